@@ -0,0 +1,52 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.benchmarks;
+
+import com.vesoft.nebula.DataSet;
+import com.vesoft.nebula.Row;
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The responses used by the benchmarks, the rows look like a vertex scan:
+ * an int id, a double, a bool and a short string.
+ */
+public final class BenchmarkData {
+    public static final List<String> COLUMNS = Arrays.asList("id", "score", "flag", "name");
+
+    private BenchmarkData() {
+    }
+
+    public static DataSet dataSet(int rowSize) {
+        List<byte[]> columnNames = new ArrayList<>(COLUMNS.size());
+        for (String column : COLUMNS) {
+            columnNames.add(column.getBytes());
+        }
+        List<Row> rows = new ArrayList<>(rowSize);
+        for (int i = 0; i < rowSize; i++) {
+            rows.add(new Row(Arrays.asList(
+                    Value.iVal(i),
+                    Value.fVal(i * 0.5),
+                    Value.bVal(i % 2 == 0),
+                    Value.sVal(("name_" + (i % 100)).getBytes()))));
+        }
+        return new DataSet(columnNames, rows);
+    }
+
+    public static ExecutionResponse response(int rowSize) {
+        ExecutionResponse resp = new ExecutionResponse();
+        resp.setError_code(ErrorCode.SUCCEEDED);
+        resp.setLatency_in_us(100);
+        resp.setSpace_name("benchmark".getBytes());
+        resp.setData(dataSet(rowSize));
+        return resp;
+    }
+}
@@ -0,0 +1,69 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.benchmarks;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.net.RoundRobinLoadBalancer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pick the server by the load balancer from many threads, all the servers are healthy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LoadBalancerBenchmark {
+    private final List<StubGraphServer> servers = new ArrayList<>();
+    private RoundRobinLoadBalancer loadBalancer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<HostAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            StubGraphServer server = new StubGraphServer(0);
+            server.start();
+            servers.add(server);
+            addresses.add(server.getAddress());
+        }
+        loadBalancer = new RoundRobinLoadBalancer(addresses, 1000);
+        if (!loadBalancer.isServersOK()) {
+            throw new IllegalStateException("The stub servers are not available");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loadBalancer.close();
+        for (StubGraphServer server : servers) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public HostAddress getAddress() {
+        return loadBalancer.getAddress();
+    }
+}
@@ -0,0 +1,104 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.benchmarks;
+
+import com.vesoft.nebula.client.graph.NebulaPoolConfig;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.data.ResultSet;
+import com.vesoft.nebula.client.graph.exception.AuthFailedException;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.graph.exception.NotValidConnectionException;
+import com.vesoft.nebula.client.graph.net.NebulaPool;
+import com.vesoft.nebula.client.graph.net.Session;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Get and release the sessions of the pool from many threads against the stub servers,
+ * the pool has fewer connections than the threads, so the threads contend for them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class NebulaPoolBenchmark {
+    @Param({"4", "16"})
+    private int maxConnSize;
+
+    @Param({"false", "true"})
+    private boolean multiplexed;
+
+    @Param({"false", "true"})
+    private boolean framed;
+
+    private final List<StubGraphServer> servers = new ArrayList<>();
+    private NebulaPool pool;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        List<HostAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            StubGraphServer server = new StubGraphServer(10, framed);
+            server.start();
+            servers.add(server);
+            addresses.add(server.getAddress());
+        }
+        NebulaPoolConfig config = new NebulaPoolConfig();
+        config.setMaxConnSize(maxConnSize);
+        config.setTimeout(3000);
+        config.setMultiplexed(multiplexed);
+        config.setFramed(framed);
+        pool = new NebulaPool();
+        if (!pool.init(addresses, config)) {
+            throw new IllegalStateException("Init the pool failed");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        for (StubGraphServer server : servers) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public void getSession()
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        Session session = pool.getSession("root", "nebula", false);
+        session.release();
+    }
+
+    @Benchmark
+    public ResultSet getSessionAndExecute()
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        Session session = pool.getSession("root", "nebula", false);
+        try {
+            return session.execute("YIELD 1");
+        } finally {
+            session.release();
+        }
+    }
+}
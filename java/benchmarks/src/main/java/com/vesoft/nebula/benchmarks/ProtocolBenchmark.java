@@ -0,0 +1,108 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.benchmarks;
+
+import com.facebook.thrift.TException;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.transport.TMemoryBuffer;
+import com.facebook.thrift.transport.TMemoryInputTransport;
+import com.vesoft.nebula.DataSet;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encode and decode the ExecutionResponse and the DataSet by TCompactProtocol,
+ * the same as the bytes on the wire between the client and graphd.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+    @Param({"10", "1000"})
+    private int rowSize;
+
+    private ExecutionResponse response;
+    private DataSet dataSet;
+    private byte[] responseBytes;
+    private byte[] dataSetBytes;
+    private TMemoryBuffer outBuffer;
+    private TCompactProtocol outProtocol;
+    private TMemoryInputTransport inTransport;
+    private TCompactProtocol inProtocol;
+
+    @Setup
+    public void setup() throws TException {
+        outBuffer = new TMemoryBuffer(4096);
+        outProtocol = new TCompactProtocol(outBuffer);
+        response = BenchmarkData.response(rowSize);
+        dataSet = response.data;
+        responseBytes = encode(response::write);
+        dataSetBytes = encode(dataSet::write);
+        inTransport = new TMemoryInputTransport();
+        inProtocol = new TCompactProtocol(inTransport);
+    }
+
+    @Benchmark
+    public int encodeResponse() throws TException {
+        resetOut();
+        response.write(outProtocol);
+        return outBuffer.length();
+    }
+
+    @Benchmark
+    public ExecutionResponse decodeResponse() throws TException {
+        inTransport.reset(responseBytes);
+        ExecutionResponse resp = new ExecutionResponse();
+        resp.read(inProtocol);
+        return resp;
+    }
+
+    @Benchmark
+    public int encodeDataSet() throws TException {
+        resetOut();
+        dataSet.write(outProtocol);
+        return outBuffer.length();
+    }
+
+    @Benchmark
+    public DataSet decodeDataSet() throws TException {
+        inTransport.reset(dataSetBytes);
+        DataSet data = new DataSet();
+        data.read(inProtocol);
+        return data;
+    }
+
+    private interface Writer {
+        void write(TCompactProtocol protocol) throws TException;
+    }
+
+    private byte[] encode(Writer writer) throws TException {
+        resetOut();
+        writer.write(outProtocol);
+        byte[] bytes = new byte[outBuffer.length()];
+        System.arraycopy(outBuffer.getArray(), 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    private void resetOut() {
+        outBuffer.reset(4096);
+    }
+}
@@ -0,0 +1,72 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.benchmarks;
+
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.client.graph.data.ResultSet;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Build the ResultSet from the decoded response, and read the values by the column name.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSetBenchmark {
+    @Param({"10", "1000"})
+    private int rowSize;
+
+    private ExecutionResponse response;
+    private List<ResultSet.Record> records;
+
+    @Setup
+    public void setup() {
+        response = BenchmarkData.response(rowSize);
+        records = new ResultSet(response).getRecords();
+    }
+
+    @Benchmark
+    public ResultSet construct() {
+        return new ResultSet(response);
+    }
+
+    @Benchmark
+    public void getByName(Blackhole blackhole) {
+        for (ResultSet.Record record : records) {
+            for (String column : BenchmarkData.COLUMNS) {
+                blackhole.consume(record.get(column));
+            }
+        }
+    }
+
+    @Benchmark
+    public void getByIndex(Blackhole blackhole) {
+        for (ResultSet.Record record : records) {
+            for (int i = 0; i < BenchmarkData.COLUMNS.size(); i++) {
+                Value value = record.get(i);
+                blackhole.consume(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.benchmarks;
+
+import com.facebook.thrift.TException;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.protocol.TProtocol;
+import com.facebook.thrift.transport.TFramedTransport;
+import com.facebook.thrift.transport.THeaderTransport;
+import com.facebook.thrift.transport.TServerSocket;
+import com.facebook.thrift.transport.TTransport;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.graph.AuthResponse;
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import com.vesoft.nebula.graph.GraphService;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The in-process graph server stands in for graphd, it serves each connection
+ * by one thread, and answers every statement with the same response.
+ */
+public class StubGraphServer implements GraphService.Iface {
+    private final ExecutionResponse response;
+    private final boolean framed;
+    private final boolean compressed;
+    private final AtomicLong nextSessionId = new AtomicLong(0);
+    private TServerSocket serverSocket;
+    private int port;
+    private volatile boolean stopped = false;
+
+    /**
+     * @param rowSize The number of rows of the response of every statement.
+     */
+    public StubGraphServer(int rowSize) {
+        this(rowSize, false);
+    }
+
+    /**
+     * @param rowSize The number of rows of the response of every statement.
+     * @param framed Whether the messages are framed with the size prefixed.
+     */
+    public StubGraphServer(int rowSize, boolean framed) {
+        this(rowSize, framed, false);
+    }
+
+    /**
+     * @param rowSize The number of rows of the response of every statement.
+     * @param framed Whether the messages are framed with the size prefixed.
+     * @param compressed Whether the messages are compressed by zlib in the header frames.
+     */
+    public StubGraphServer(int rowSize, boolean framed, boolean compressed) {
+        this.response = BenchmarkData.response(rowSize);
+        this.framed = framed;
+        this.compressed = compressed;
+    }
+
+    private TTransport wrap(TTransport accepted) {
+        if (compressed) {
+            return new THeaderTransport(accepted, new int[] {THeaderTransport.ZLIB_TRANSFORM});
+        }
+        return framed ? new TFramedTransport(accepted) : accepted;
+    }
+
+    public void start() throws IOException, TException {
+        ServerSocket socket = new ServerSocket();
+        socket.bind(new InetSocketAddress("127.0.0.1", 0));
+        this.port = socket.getLocalPort();
+        this.serverSocket = new TServerSocket(socket);
+        this.serverSocket.listen();
+        GraphService.Processor processor = new GraphService.Processor(this);
+        Thread acceptor = new Thread(() -> {
+            while (!stopped) {
+                TTransport accepted;
+                try {
+                    accepted = serverSocket.accept();
+                } catch (TException e) {
+                    return;
+                }
+                TTransport transport = wrap(accepted);
+                Thread worker = new Thread(() -> {
+                    TProtocol protocol = new TCompactProtocol(transport);
+                    try {
+                        while (!stopped) {
+                            processor.process(protocol, protocol, null);
+                        }
+                    } catch (TException e) {
+                        // The client has closed the connection
+                    } finally {
+                        transport.close();
+                    }
+                }, "StubGraphServer-worker");
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }, "StubGraphServer-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public void stop() {
+        stopped = true;
+        serverSocket.close();
+    }
+
+    public HostAddress getAddress() {
+        return new HostAddress("127.0.0.1", port);
+    }
+
+    @Override
+    public AuthResponse authenticate(byte[] username, byte[] password) {
+        AuthResponse resp = new AuthResponse();
+        resp.setError_code(ErrorCode.SUCCEEDED);
+        resp.setSession_id(nextSessionId.incrementAndGet());
+        return resp;
+    }
+
+    @Override
+    public void signout(long sessionId) {
+    }
+
+    @Override
+    public ExecutionResponse execute(long sessionId, byte[] stmt) {
+        return response;
+    }
+
+    @Override
+    public byte[] executeJson(long sessionId, byte[] stmt) {
+        return stmt;
+    }
+}
@@ -43,6 +43,10 @@ public final class TCompactProtocol extends TProtocol {
 
   private final static byte[] ttypeToCompactType = new byte[20];
 
+  private final static byte[] EMPTY_BINARY = new byte[0];
+
+  private final static int MAX_CACHED_FIELD_ID = 64;
+
   static {
     ttypeToCompactType[TType.STOP] = TType.STOP;
     ttypeToCompactType[TType.BOOL] = Types.BOOLEAN_TRUE;
@@ -120,6 +124,17 @@ public final class TCompactProtocol extends TProtocol {
    */
   private Boolean boolValue_ = null;
 
+  /**
+   * Scratch buffer of the doubles and the floats which aren't in the buffer
+   * of the transport.
+   */
+  private final byte[] fixedBuf = new byte[8];
+
+  /**
+   * The field headers read off the wire, indexed by the field id and the type.
+   */
+  private TField[] fieldCache_ = null;
+
   /**
    * Create a TCompactProtocol.
    *
@@ -296,18 +311,16 @@ public final class TCompactProtocol extends TProtocol {
    * Write a double to the wire as 8 bytes.
    */
   public void writeDouble(double dub) throws TException {
-    byte[] data = new byte[]{0, 0, 0, 0, 0, 0, 0, 0};
-    fixedLongToBytes(Double.doubleToLongBits(dub), data, 0);
-    trans_.write(data);
+    fixedLongToBytes(Double.doubleToLongBits(dub), fixedBuf, 0);
+    trans_.write(fixedBuf, 0, 8);
   }
 
   /**
    * Write a float to the wire as 4 bytes.
    */
   public void writeFloat(float flt) throws TException {
-    byte[] data = new byte[]{0, 0, 0, 0};
-    fixedIntToBytes(Float.floatToIntBits(flt), data, 0);
-    trans_.write(data);
+    fixedIntToBytes(Float.floatToIntBits(flt), fixedBuf, 0);
+    trans_.write(fixedBuf, 0, 4);
   }
 
   /**
@@ -532,7 +545,7 @@ public final class TCompactProtocol extends TProtocol {
       fieldId = (short)(lastFieldId_ + modifier);
     }
 
-    TField field = new TField("", getTType((byte)(type & 0x0f)), fieldId);
+    TField field = getField(getTType((byte)(type & 0x0f)), fieldId);
 
     // if this happens to be a boolean field, the value is encoded in the type
     if (isBoolType(type)) {
@@ -637,13 +650,22 @@ public final class TCompactProtocol extends TProtocol {
    * No magic here - just read a double off the wire.
    */
   public double readDouble() throws TException {
-    byte[] longBits = new byte[8];
-    trans_.readAll(longBits, 0, 8);
+    byte[] longBits;
+    int off;
+    if (trans_.getBytesRemainingInBuffer() >= 8) {
+      longBits = trans_.getBuffer();
+      off = trans_.getBufferPosition();
+      trans_.consumeBuffer(8);
+    } else {
+      longBits = fixedBuf;
+      off = 0;
+      trans_.readAll(longBits, 0, 8);
+    }
     long value;
     if (version_ >= VERSION_DOUBLE_BE) {
-      value = bytesToLong(longBits);
+      value = bytesToLong(longBits, off);
     } else {
-      value = bytesToLongLE(longBits);
+      value = bytesToLongLE(longBits, off);
     }
     return Double.longBitsToDouble(value);
   }
@@ -652,11 +674,18 @@ public final class TCompactProtocol extends TProtocol {
    * No magic here - just read a float off the wire.
    */
   public float readFloat() throws TException {
-    byte[] intBits = new byte[4];
-    trans_.readAll(intBits, 0, 4);
-    int value;
-    value = bytesToInt(intBits);
-    return Float.intBitsToFloat(value);
+    byte[] intBits;
+    int off;
+    if (trans_.getBytesRemainingInBuffer() >= 4) {
+      intBits = trans_.getBuffer();
+      off = trans_.getBufferPosition();
+      trans_.consumeBuffer(4);
+    } else {
+      intBits = fixedBuf;
+      off = 0;
+      trans_.readAll(intBits, 0, 4);
+    }
+    return Float.intBitsToFloat(bytesToInt(intBits, off));
   }
 
   /**
@@ -691,10 +720,15 @@ public final class TCompactProtocol extends TProtocol {
   }
 
   private byte[] readBinary(int length) throws TException {
-    if (length == 0) return new byte[0];
+    if (length == 0) return EMPTY_BINARY;
 
     byte[] buf = new byte[length];
-    trans_.readAll(buf, 0, length);
+    if (trans_.getBytesRemainingInBuffer() >= length) {
+      System.arraycopy(trans_.getBuffer(), trans_.getBufferPosition(), buf, 0, length);
+      trans_.consumeBuffer(length);
+    } else {
+      trans_.readAll(buf, 0, length);
+    }
     return buf;
   }
 
@@ -795,37 +829,57 @@ public final class TCompactProtocol extends TProtocol {
    * otherwise they'll default to ints, and when you shift an int left 56 bits,
    * you just get a messed up int.
    */
-  private long bytesToLong(byte[] bytes) {
+  private long bytesToLong(byte[] bytes, int off) {
     return
-      ((bytes[0] & 0xffL) << 56) |
-      ((bytes[1] & 0xffL) << 48) |
-      ((bytes[2] & 0xffL) << 40) |
-      ((bytes[3] & 0xffL) << 32) |
-      ((bytes[4] & 0xffL) << 24) |
-      ((bytes[5] & 0xffL) << 16) |
-      ((bytes[6] & 0xffL) <<  8) |
-      ((bytes[7] & 0xffL));
+      ((bytes[off+0] & 0xffL) << 56) |
+      ((bytes[off+1] & 0xffL) << 48) |
+      ((bytes[off+2] & 0xffL) << 40) |
+      ((bytes[off+3] & 0xffL) << 32) |
+      ((bytes[off+4] & 0xffL) << 24) |
+      ((bytes[off+5] & 0xffL) << 16) |
+      ((bytes[off+6] & 0xffL) <<  8) |
+      ((bytes[off+7] & 0xffL));
   }
 
   /* Little endian version of the above */
-  private long bytesToLongLE(byte[] bytes) {
+  private long bytesToLongLE(byte[] bytes, int off) {
     return
-      ((bytes[7] & 0xffL) << 56) |
-      ((bytes[6] & 0xffL) << 48) |
-      ((bytes[5] & 0xffL) << 40) |
-      ((bytes[4] & 0xffL) << 32) |
-      ((bytes[3] & 0xffL) << 24) |
-      ((bytes[2] & 0xffL) << 16) |
-      ((bytes[1] & 0xffL) <<  8) |
-      ((bytes[0] & 0xffL));
+      ((bytes[off+7] & 0xffL) << 56) |
+      ((bytes[off+6] & 0xffL) << 48) |
+      ((bytes[off+5] & 0xffL) << 40) |
+      ((bytes[off+4] & 0xffL) << 32) |
+      ((bytes[off+3] & 0xffL) << 24) |
+      ((bytes[off+2] & 0xffL) << 16) |
+      ((bytes[off+1] & 0xffL) <<  8) |
+      ((bytes[off+0] & 0xffL));
   }
 
-  private int bytesToInt(byte[] bytes) {
+  private int bytesToInt(byte[] bytes, int off) {
     return
-      ((bytes[0] & 0xff) << 24) |
-      ((bytes[1] & 0xff) << 16) |
-      ((bytes[2] & 0xff) <<  8) |
-      ((bytes[3] & 0xff));
+      ((bytes[off+0] & 0xff) << 24) |
+      ((bytes[off+1] & 0xff) << 16) |
+      ((bytes[off+2] & 0xff) <<  8) |
+      ((bytes[off+3] & 0xff));
+  }
+
+  /**
+   * TField is immutable, so the headers of the fields with the small ids are
+   * cached instead of being allocated for each field read off the wire.
+   */
+  private TField getField(byte type, short fieldId) {
+    if (fieldId < 0 || fieldId >= MAX_CACHED_FIELD_ID) {
+      return new TField("", type, fieldId);
+    }
+    if (fieldCache_ == null) {
+      fieldCache_ = new TField[MAX_CACHED_FIELD_ID << 5];
+    }
+    int idx = (fieldId << 5) | (type & 0x1f);
+    TField field = fieldCache_[idx];
+    if (field == null || field.type != type) {
+      field = new TField("", type, fieldId);
+      fieldCache_[idx] = field;
+    }
+    return field;
   }
 
   //
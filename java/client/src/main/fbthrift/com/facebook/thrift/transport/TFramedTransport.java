@@ -29,6 +29,11 @@ public class TFramedTransport extends TTransport {
 
   protected static final int DEFAULT_MAX_LENGTH = 0x7FFFFFFF;
 
+  /**
+   * The read buffer larger than it isn't reused by the next frame
+   */
+  private static final int MAX_RETAINED_LENGTH = 1024 * 1024;
+
   private int maxLength_;
 
   /**
@@ -147,9 +152,13 @@ public class TFramedTransport extends TTransport {
       );
     }
 
-    byte[] buff = new byte[size];
+    // Reuse the buffer of the last frame, except the large one
+    byte[] buff = readBuffer_.getBuffer();
+    if (buff.length < size || buff.length > MAX_RETAINED_LENGTH) {
+      buff = new byte[size];
+    }
     transport_.readAll(buff, 0, size);
-    readBuffer_.reset(buff);
+    readBuffer_.reset(buff, 0, size);
   }
 
   @Override
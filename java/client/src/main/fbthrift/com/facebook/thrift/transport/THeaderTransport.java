@@ -0,0 +1,412 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.facebook.thrift.transport;
+
+import com.facebook.thrift.TByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * THeaderTransport is the client side of the header format of fbthrift for the
+ * compact protocol. Each message is sent in a frame with the header listing the
+ * transforms applied to the payload, and the server applies the same transforms
+ * to the response, so the compression is negotiated per message.
+ *
+ * Only the zlib transform is supported, the info headers of the responses are
+ * skipped, and the frames without the header magic are read as plain frames.
+ *
+ *   +--------+-------+-------+-------+-------------+--------+---------+
+ *   | length | magic | flags | seqId | header size | header | payload |
+ *   |   4    |   2   |   2   |   4   |  2 (words)  |        |         |
+ *   +--------+-------+-------+-------+-------------+--------+---------+
+ */
+public class THeaderTransport extends TTransport {
+
+  public static final int HEADER_MAGIC = 0x0FFF;
+
+  public static final int T_COMPACT_PROTOCOL = 2;
+
+  public static final int ZLIB_TRANSFORM = 1;
+
+  protected static final int DEFAULT_MAX_LENGTH = 0x7FFFFFFF;
+
+  /**
+   * The magic, the flags, the sequence id and the header size
+   */
+  private static final int FIXED_HEADER_SIZE = 10;
+
+  /**
+   * The buffers larger than it aren't reused by the next frame
+   */
+  private static final int MAX_RETAINED_LENGTH = 1024 * 1024;
+
+  private int maxLength_;
+
+  /**
+   * Underlying transport
+   */
+  protected TTransport transport_ = null;
+
+  /**
+   * The transforms applied to the requests in order
+   */
+  private final int[] writeTransforms_;
+
+  private int seqId_ = 0;
+
+  /**
+   * Buffer for output
+   */
+  protected final TByteArrayOutputStream writeBuffer_ =
+    new TByteArrayOutputStream(1024);
+
+  /**
+   * Buffer for input, it's the frame or the decompressed payload
+   */
+  protected TMemoryInputTransport readBuffer_ =
+    new TMemoryInputTransport(new byte[0]);
+
+  private byte[] frameBuffer_ = new byte[0];
+
+  /**
+   * The decompressed payload of the response
+   */
+  private byte[] inflateBuffer_ = new byte[0];
+
+  /**
+   * The compressed payload of the request
+   */
+  private byte[] deflateBuffer_ = new byte[0];
+
+  /**
+   * The fixed part of the header of the request
+   */
+  private final byte[] fixedHeader_ = new byte[4 + FIXED_HEADER_SIZE];
+
+  /**
+   * The protocol id, the transforms and the padding of the request
+   */
+  private final byte[] header_;
+
+  private final int headerSize_;
+
+  private Deflater deflater_ = null;
+
+  private Inflater inflater_ = null;
+
+  private final byte[] i32buf = new byte[4];
+
+  /**
+   * @param transforms The transforms applied to the requests, such as ZLIB_TRANSFORM
+   */
+  public THeaderTransport(TTransport transport, int[] transforms) {
+    this(transport, transforms, DEFAULT_MAX_LENGTH);
+  }
+
+  public THeaderTransport(TTransport transport, int[] transforms, int maxLength) {
+    for (int transform : transforms) {
+      checkTransform(transform);
+    }
+    transport_ = transport;
+    maxLength_ = maxLength;
+    writeTransforms_ = transforms.clone();
+    header_ = new byte[5 * (2 + transforms.length) + 3];
+    int size = writeVarint32(T_COMPACT_PROTOCOL, header_, 0);
+    size = writeVarint32(transforms.length, header_, size);
+    for (int transform : transforms) {
+      size = writeVarint32(transform, header_, size);
+    }
+    headerSize_ = (size + 3) / 4 * 4;
+  }
+
+  @Override
+  public void open() throws TTransportException {
+    transport_.open();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return transport_.isOpen();
+  }
+
+  @Override
+  public void close() {
+    transport_.close();
+    // The transport may be opened again, the ended ones can't be reset
+    if (deflater_ != null) {
+      deflater_.end();
+      deflater_ = null;
+    }
+    if (inflater_ != null) {
+      inflater_.end();
+      inflater_ = null;
+    }
+  }
+
+  @Override
+  public int read(byte[] buf, int off, int len) throws TTransportException {
+    int got = readBuffer_.read(buf, off, len);
+    if (got > 0) {
+      return got;
+    }
+
+    // Read another frame of data
+    readFrame();
+
+    return readBuffer_.read(buf, off, len);
+  }
+
+  @Override
+  public byte[] getBuffer() {
+    return readBuffer_.getBuffer();
+  }
+
+  @Override
+  public int getBufferPosition() {
+    return readBuffer_.getBufferPosition();
+  }
+
+  @Override
+  public int getBytesRemainingInBuffer() {
+    return readBuffer_.getBytesRemainingInBuffer();
+  }
+
+  @Override
+  public void consumeBuffer(int len) {
+    readBuffer_.consumeBuffer(len);
+  }
+
+  protected void readFrame() throws TTransportException {
+    transport_.readAll(i32buf, 0, 4);
+    int size = TFramedTransport.decodeWord(i32buf);
+
+    if (size < 0) {
+      throw new TTransportException(
+        String.format("Read a negative frame size (%d)!",
+                      size)
+      );
+    }
+
+    if (size > maxLength_) {
+      throw new TTransportException(
+        String.format("Frame size (%d) larger than max length (%d)!",
+                      size,
+                      maxLength_)
+      );
+    }
+
+    if (frameBuffer_.length < size || frameBuffer_.length > MAX_RETAINED_LENGTH) {
+      frameBuffer_ = new byte[size];
+    }
+    byte[] frame = frameBuffer_;
+    transport_.readAll(frame, 0, size);
+
+    if (size < FIXED_HEADER_SIZE || decodeShort(frame, 0) != HEADER_MAGIC) {
+      readBuffer_.reset(frame, 0, size);
+      return;
+    }
+
+    int headerEnd = FIXED_HEADER_SIZE + decodeShort(frame, 8) * 4;
+    if (headerEnd > size) {
+      throw new THeaderException(
+        String.format("Header size (%d) larger than frame size (%d)!",
+                      headerEnd - FIXED_HEADER_SIZE,
+                      size)
+      );
+    }
+    int[] pos = {FIXED_HEADER_SIZE};
+    int protocolId = readVarint32(frame, pos, headerEnd);
+    if (protocolId != T_COMPACT_PROTOCOL) {
+      throw new THeaderException(
+        String.format("Unsupported protocol id %d", protocolId));
+    }
+    int numTransforms = readVarint32(frame, pos, headerEnd);
+    for (int i = 0; i < numTransforms; i++) {
+      int transform = readVarint32(frame, pos, headerEnd);
+      if (transform != ZLIB_TRANSFORM) {
+        throw new THeaderException(
+          String.format("Unsupported transform %d", transform));
+      }
+    }
+
+    byte[] payload = frame;
+    int offset = headerEnd;
+    int length = size - headerEnd;
+    // Undo the transforms in the reverse order
+    for (int i = numTransforms - 1; i >= 0; i--) {
+      length = inflate(payload, offset, length);
+      payload = inflateBuffer_;
+      offset = 0;
+    }
+    readBuffer_.reset(payload, offset, length);
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) throws TTransportException {
+    writeBuffer_.write(buf, off, len);
+  }
+
+  @Override
+  public void flush() throws TTransportException {
+    byte[] payload = writeBuffer_.get();
+    int length = writeBuffer_.len();
+    for (int i = 0; i < writeTransforms_.length; i++) {
+      length = deflate(payload, length);
+      payload = deflateBuffer_;
+    }
+
+    byte[] fixed = fixedHeader_;
+    TFramedTransport.encodeWord(FIXED_HEADER_SIZE + headerSize_ + length, fixed);
+    encodeShort(HEADER_MAGIC, fixed, 4);
+    encodeShort(0, fixed, 6);
+    encodeWord(seqId_++, fixed, 8);
+    encodeShort(headerSize_ / 4, fixed, 12);
+
+    try {
+      transport_.write(fixed, 0, fixed.length);
+      transport_.write(header_, 0, headerSize_);
+      transport_.write(payload, 0, length);
+      transport_.flush();
+    } finally {
+      writeBuffer_.reset();
+      if (deflateBuffer_.length > MAX_RETAINED_LENGTH) {
+        deflateBuffer_ = new byte[0];
+      }
+    }
+  }
+
+  /**
+   * Compress the bytes into the deflate buffer
+   *
+   * @return The length of the compressed bytes
+   */
+  private int deflate(byte[] buf, int len) {
+    if (deflater_ == null) {
+      deflater_ = new Deflater(Deflater.BEST_SPEED);
+    }
+    deflater_.reset();
+    deflater_.setInput(buf, 0, len);
+    deflater_.finish();
+    byte[] out = deflateBuffer_;
+    if (out == buf || out.length < len / 2 + 64) {
+      out = new byte[len / 2 + 64];
+    }
+    int n = 0;
+    while (!deflater_.finished()) {
+      if (n == out.length) {
+        byte[] larger = new byte[out.length * 2];
+        System.arraycopy(out, 0, larger, 0, n);
+        out = larger;
+      }
+      n += deflater_.deflate(out, n, out.length - n);
+    }
+    deflateBuffer_ = out;
+    return n;
+  }
+
+  /**
+   * Decompress the bytes into the inflate buffer
+   *
+   * @return The length of the decompressed bytes
+   */
+  private int inflate(byte[] buf, int off, int len) throws THeaderException {
+    if (inflater_ == null) {
+      inflater_ = new Inflater();
+    }
+    inflater_.reset();
+    inflater_.setInput(buf, off, len);
+    byte[] out = inflateBuffer_;
+    if (out == buf || out.length < len * 2 || out.length > MAX_RETAINED_LENGTH) {
+      out = new byte[Math.max(len * 4, 256)];
+    }
+    int n = 0;
+    try {
+      while (!inflater_.finished()) {
+        if (n == out.length) {
+          byte[] larger = new byte[out.length * 2];
+          System.arraycopy(out, 0, larger, 0, n);
+          out = larger;
+        }
+        int got = inflater_.inflate(out, n, out.length - n);
+        if (got == 0 && (inflater_.needsInput() || inflater_.needsDictionary())) {
+          throw new THeaderException("Truncated zlib payload");
+        }
+        n += got;
+        if (n > maxLength_) {
+          throw new THeaderException(
+            String.format("Decompressed size larger than max length (%d)!", maxLength_));
+        }
+      }
+    } catch (DataFormatException e) {
+      throw new THeaderException(e);
+    }
+    inflateBuffer_ = out;
+    return n;
+  }
+
+  private static void checkTransform(int transform) {
+    if (transform != ZLIB_TRANSFORM) {
+      throw new IllegalArgumentException(
+        String.format("Unsupported transform %d", transform));
+    }
+  }
+
+  private static int readVarint32(byte[] buf, int[] pos, int end) throws THeaderException {
+    int result = 0;
+    int shift = 0;
+    while (true) {
+      if (pos[0] >= end || shift > 28) {
+        throw new THeaderException("Malformed varint in the header");
+      }
+      byte b = buf[pos[0]++];
+      result |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return result;
+      }
+      shift += 7;
+    }
+  }
+
+  private static int writeVarint32(int n, byte[] buf, int pos) {
+    while ((n & ~0x7F) != 0) {
+      buf[pos++] = (byte) ((n & 0x7F) | 0x80);
+      n >>>= 7;
+    }
+    buf[pos++] = (byte) n;
+    return pos;
+  }
+
+  private static int decodeShort(byte[] buf, int off) {
+    return ((buf[off] & 0xff) << 8) | (buf[off + 1] & 0xff);
+  }
+
+  private static void encodeShort(int value, byte[] buf, int off) {
+    buf[off] = (byte) (0xff & (value >> 8));
+    buf[off + 1] = (byte) (0xff & value);
+  }
+
+  private static void encodeWord(int value, byte[] buf, int off) {
+    buf[off] = (byte) (0xff & (value >> 24));
+    buf[off + 1] = (byte) (0xff & (value >> 16));
+    buf[off + 2] = (byte) (0xff & (value >> 8));
+    buf[off + 3] = (byte) (0xff & value);
+  }
+}
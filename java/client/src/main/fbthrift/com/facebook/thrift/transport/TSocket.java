@@ -19,7 +19,6 @@
 
 package com.facebook.thrift.transport;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -62,6 +61,26 @@ public class TSocket extends TIOStreamTransport implements TSocketIf {
    */
   private int connectionTimeout_ = 0;
 
+  /**
+   * Size of the read and write buffers
+   */
+  private int bufferSize_ = DEFAULT_BUFFER_SIZE;
+
+  public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+  /**
+   * Read buffer, it's exposed by getBuffer so that the protocol can decode
+   * from it directly instead of copying each field out of the stream.
+   */
+  private byte[] readBuffer_ = null;
+  private int readPos_ = 0;
+  private int readEnd_ = 0;
+
+  /**
+   * Number of bytes read from the socket
+   */
+  private long bytesRead_ = 0;
+
   /**
    * Constructor that takes an already created socket.
    *
@@ -79,8 +98,7 @@ public class TSocket extends TIOStreamTransport implements TSocketIf {
 
     if (isOpen()) {
       try {
-        inputStream_ = new BufferedInputStream(socket_.getInputStream());
-        outputStream_ = new BufferedOutputStream(socket_.getOutputStream());
+        openStreams();
       } catch (IOException iox) {
         close();
         throw new TTransportException(TTransportException.NOT_OPEN, iox);
@@ -121,10 +139,25 @@ public class TSocket extends TIOStreamTransport implements TSocketIf {
    * @param connectionTimeout Socket connection timeout
    */
   public TSocket(String host, int port, int timeout, int connectionTimeout) {
+    this(host, port, timeout, connectionTimeout, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Creates a new unconnected socket that will connect to the given host
+   * on the given port.
+   *
+   * @param host              Remote host
+   * @param port              Remote port
+   * @param timeout           Socket timeout
+   * @param connectionTimeout Socket connection timeout
+   * @param bufferSize        Size of the read and write buffers
+   */
+  public TSocket(String host, int port, int timeout, int connectionTimeout, int bufferSize) {
     host_ = host;
     port_ = port;
     timeout_ = timeout;
     connectionTimeout_ = connectionTimeout;
+    bufferSize_ = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
     initSocket();
   }
 
@@ -197,20 +230,80 @@ public class TSocket extends TIOStreamTransport implements TSocketIf {
 
     try {
       socket_.connect(new InetSocketAddress(host_, port_), connectionTimeout_);
-      inputStream_ = new BufferedInputStream(socket_.getInputStream());
-      outputStream_ = new BufferedOutputStream(socket_.getOutputStream());
+      openStreams();
     } catch (IOException iox) {
       close();
       throw new TTransportException(TTransportException.NOT_OPEN, iox);
     }
   }
 
+  /**
+   * The input stream is read into readBuffer_, so it isn't buffered again.
+   */
+  private void openStreams() throws IOException {
+    inputStream_ = socket_.getInputStream();
+    outputStream_ = new BufferedOutputStream(socket_.getOutputStream(), bufferSize_);
+    if (readBuffer_ == null) {
+      readBuffer_ = new byte[bufferSize_];
+    }
+    readPos_ = 0;
+    readEnd_ = 0;
+  }
+
+  /**
+   * Reads from the read buffer, the read larger than the buffer goes to
+   * the socket directly.
+   */
+  public int read(byte[] buf, int off, int len) throws TTransportException {
+    if (readPos_ == readEnd_) {
+      if (len >= bufferSize_) {
+        int n = super.read(buf, off, len);
+        bytesRead_ += n;
+        return n;
+      }
+      readPos_ = 0;
+      readEnd_ = 0;
+      readEnd_ = super.read(readBuffer_, 0, readBuffer_.length);
+      bytesRead_ += readEnd_;
+    }
+    int n = Math.min(len, readEnd_ - readPos_);
+    System.arraycopy(readBuffer_, readPos_, buf, off, n);
+    readPos_ += n;
+    return n;
+  }
+
+  public byte[] getBuffer() {
+    return readBuffer_;
+  }
+
+  /**
+   * Returns the number of bytes read from the socket, including the bytes
+   * still in the read buffer.
+   */
+  public long getBytesRead() {
+    return bytesRead_;
+  }
+
+  public int getBufferPosition() {
+    return readPos_;
+  }
+
+  public int getBytesRemainingInBuffer() {
+    return readEnd_ - readPos_;
+  }
+
+  public void consumeBuffer(int len) {
+    readPos_ += len;
+  }
+
   /**
    * Closes the socket.
    */
   public void close() {
     // Close the underlying streams
     super.close();
+    readPos_ = 0;
+    readEnd_ = 0;
 
     // Close the socket
     if (socket_ != null) {
@@ -6,6 +6,8 @@
 
 package com.vesoft.nebula.client.graph;
 
+import com.vesoft.nebula.client.graph.net.ClientMetrics;
+
 public class NebulaPoolConfig {
     // The min connections in pool for all addresses
     private int minConnsSize = 0;
@@ -13,14 +15,89 @@ public class NebulaPoolConfig {
     // The max connections in pool for all addresses
     private int maxConnsSize = 10;
 
+    // The min idle connections kept for each address,
+    // 0 means the minConnSize is split between the addresses
+    private int minConnSizePerHost = 0;
+
+    // The max connections to each address, 0 means no limit except maxConnSize,
+    // the sessions waiting for the connections of one address get them in order
+    private int maxConnSizePerHost = 0;
+
+    // The wait time to get the session when all connections are in use,
+    // unit: millisecond
+    private int waitTime = 60 * 1000;
+
+    // The max sessions waiting for the connections, getting more sessions fails at once
+    // 0 means no limit
+    private int maxWaiters = 0;
+
     // Socket timeout and Socket connection timeout, unit: millisecond
     private int timeout = 0;
 
+    // The size of the read buffer and the write buffer of each connection, unit: byte
+    // The large read buffer helps to decode the large results
+    private int bufferSize = 8 * 1024;
+
+    // Send the requests and receive the responses in the frames with the size prefixed,
+    // so each response is read into a buffer of its size at once and decoded from memory
+    private boolean framed = false;
+
+    // Compress the requests and the responses by zlib, the messages are sent in the header
+    // frames of fbthrift, so the server should accept the header transport
+    private boolean compressed = false;
+
     // The idleTime of the connection, unit: millisecond
     // The connection's idle time more than idleTime, it will be delete
     // 0 means never delete
     private int idleTime = 0;
 
+    // The connection borrowed longer than abandonedTime is closed and reclaimed when
+    // the connections run out, such as the one of the session never released,
+    // unit: millisecond, 0 means never reclaim
+    private int abandonedTime = 300 * 1000;
+
+    // The connection idle longer than validateIdleTime is pinged before it's
+    // used by the session, unit: millisecond
+    // 0 means the connection is pinged every time
+    private int validateIdleTime = 30 * 1000;
+
+    // Share one connection per server among all sessions of the pool,
+    // the requests on it are pipelined and matched by the sequence id
+    private boolean multiplexed = false;
+
+    // The interval of the health check of the servers, unit: millisecond
+    // The servers are also checked at once when a request fails without the response
+    private int healthCheckInterval = 5 * 1000;
+
+    // The way to pick the server for the new connection
+    private LoadBalancerType loadBalancerType = LoadBalancerType.ROUND_ROBIN;
+
+    // The metrics of the sessions, the connections and the requests,
+    // such as DefaultClientMetrics
+    private ClientMetrics metrics = ClientMetrics.NOOP;
+
+    // The max size of the results of the read statements cached by the pool, unit: byte
+    // The results of GO, FETCH and LOOKUP are cached until the sessions write the space,
+    // 0 means no cache
+    private long resultCacheSize = 0;
+
+    // The time to keep the cached results, unit: millisecond
+    // The writes of the other clients are seen after it
+    private int resultCacheTtl = 10 * 1000;
+
+    // Execute the same read statement of the sessions of one user in one space once
+    // when it's in flight, the others share the response
+    private boolean coalesceReads = false;
+
+    public enum LoadBalancerType {
+        // Pick the healthy servers in turn
+        ROUND_ROBIN,
+        // Pick the server with the fewest requests in flight
+        LEAST_CONNECTIONS,
+        // Pick the server with the lowest moving average of the latency
+        EWMA_LATENCY
+    }
+
     public int getMinConnSize() {
         return minConnsSize;
     }
@@ -37,6 +114,38 @@ public class NebulaPoolConfig {
         this.maxConnsSize = maxConnSize;
     }
 
+    public int getMinConnSizePerHost() {
+        return minConnSizePerHost;
+    }
+
+    public void setMinConnSizePerHost(int minConnSizePerHost) {
+        this.minConnSizePerHost = minConnSizePerHost;
+    }
+
+    public int getMaxConnSizePerHost() {
+        return maxConnSizePerHost;
+    }
+
+    public void setMaxConnSizePerHost(int maxConnSizePerHost) {
+        this.maxConnSizePerHost = maxConnSizePerHost;
+    }
+
+    public int getWaitTime() {
+        return waitTime;
+    }
+
+    public void setWaitTime(int waitTime) {
+        this.waitTime = waitTime;
+    }
+
+    public int getMaxWaiters() {
+        return maxWaiters;
+    }
+
+    public void setMaxWaiters(int maxWaiters) {
+        this.maxWaiters = maxWaiters;
+    }
+
     public int getTimeout() {
         return timeout;
     }
@@ -45,6 +154,30 @@ public class NebulaPoolConfig {
         this.timeout = timeout;
     }
 
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public boolean isFramed() {
+        return framed;
+    }
+
+    public void setFramed(boolean framed) {
+        this.framed = framed;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
     public int getIdleTime() {
         return idleTime;
     }
@@ -52,4 +185,76 @@ public class NebulaPoolConfig {
     public void setIdleTime(int idleTime) {
         this.idleTime = idleTime;
     }
+
+    public int getAbandonedTime() {
+        return abandonedTime;
+    }
+
+    public void setAbandonedTime(int abandonedTime) {
+        this.abandonedTime = abandonedTime;
+    }
+
+    public int getValidateIdleTime() {
+        return validateIdleTime;
+    }
+
+    public void setValidateIdleTime(int validateIdleTime) {
+        this.validateIdleTime = validateIdleTime;
+    }
+
+    public boolean isMultiplexed() {
+        return multiplexed;
+    }
+
+    public void setMultiplexed(boolean multiplexed) {
+        this.multiplexed = multiplexed;
+    }
+
+    public int getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public void setHealthCheckInterval(int healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public LoadBalancerType getLoadBalancerType() {
+        return loadBalancerType;
+    }
+
+    public void setLoadBalancerType(LoadBalancerType loadBalancerType) {
+        this.loadBalancerType = loadBalancerType;
+    }
+
+    public ClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    public void setMetrics(ClientMetrics metrics) {
+        this.metrics = metrics == null ? ClientMetrics.NOOP : metrics;
+    }
+
+    public long getResultCacheSize() {
+        return resultCacheSize;
+    }
+
+    public void setResultCacheSize(long resultCacheSize) {
+        this.resultCacheSize = resultCacheSize;
+    }
+
+    public int getResultCacheTtl() {
+        return resultCacheTtl;
+    }
+
+    public void setResultCacheTtl(int resultCacheTtl) {
+        this.resultCacheTtl = resultCacheTtl;
+    }
+
+    public boolean isCoalesceReads() {
+        return coalesceReads;
+    }
+
+    public void setCoalesceReads(boolean coalesceReads) {
+        this.coalesceReads = coalesceReads;
+    }
 }
@@ -0,0 +1,79 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph;
+
+public class SessionPoolConfig {
+    // The max sessions authenticated by the pool, idle and in use
+    private int maxSessionSize = 10;
+
+    // The space used by the sessions, null means the sessions don't use any space
+    private String spaceName = null;
+
+    // The wait time to borrow the session when all of them are in use, unit: millisecond
+    private int waitTime = 60 * 1000;
+
+    // The idle session is kept alive by a light statement after it is idle
+    // more than keepAliveTime, unit: millisecond
+    // 0 means never
+    private int keepAliveTime = 60 * 1000;
+
+    // The session is signed out after it is created more than maxLifetime,
+    // unit: millisecond
+    // 0 means never
+    private int maxLifetime = 0;
+
+    // Reconnect to another server when the server of the session is broken
+    private boolean reconnect = false;
+
+    public int getMaxSessionSize() {
+        return maxSessionSize;
+    }
+
+    public void setMaxSessionSize(int maxSessionSize) {
+        this.maxSessionSize = maxSessionSize;
+    }
+
+    public String getSpaceName() {
+        return spaceName;
+    }
+
+    public void setSpaceName(String spaceName) {
+        this.spaceName = spaceName;
+    }
+
+    public int getWaitTime() {
+        return waitTime;
+    }
+
+    public void setWaitTime(int waitTime) {
+        this.waitTime = waitTime;
+    }
+
+    public int getKeepAliveTime() {
+        return keepAliveTime;
+    }
+
+    public void setKeepAliveTime(int keepAliveTime) {
+        this.keepAliveTime = keepAliveTime;
+    }
+
+    public int getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(int maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public boolean isReconnect() {
+        return reconnect;
+    }
+
+    public void setReconnect(boolean reconnect) {
+        this.reconnect = reconnect;
+    }
+}
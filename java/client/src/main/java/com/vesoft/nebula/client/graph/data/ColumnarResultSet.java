@@ -0,0 +1,270 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.data;
+
+import com.vesoft.nebula.Value;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The column by column view of the ResultSet. The column of int, float, bool and string
+ * values is kept in primitive arrays, the strings are dictionary encoded, and the nulls
+ * are kept in a bitmap. The column mixed with different types or with the other types
+ * keeps the Value objects.
+ */
+public class ColumnarResultSet {
+    private final List<String> columnNames;
+    private final Map<String, Integer> columnIndexes;
+    private final List<Column> columns;
+    private final int rowSize;
+
+    public abstract static class Column {
+        protected final String name;
+        protected final int size;
+        protected final BitSet nulls;
+
+        protected Column(String name, int size, BitSet nulls) {
+            this.name = name;
+            this.size = size;
+            this.nulls = nulls;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public boolean isNull(int index) {
+            return nulls.get(index);
+        }
+
+        public int nullCount() {
+            return nulls.cardinality();
+        }
+    }
+
+    public static class LongColumn extends Column {
+        private final long[] values;
+
+        LongColumn(String name, long[] values, BitSet nulls) {
+            super(name, values.length, nulls);
+            this.values = values;
+        }
+
+        /**
+         * @return The value of the row, 0 if it's null.
+         */
+        public long get(int index) {
+            return values[index];
+        }
+
+        public long[] values() {
+            return values;
+        }
+    }
+
+    public static class DoubleColumn extends Column {
+        private final double[] values;
+
+        DoubleColumn(String name, double[] values, BitSet nulls) {
+            super(name, values.length, nulls);
+            this.values = values;
+        }
+
+        /**
+         * @return The value of the row, 0 if it's null.
+         */
+        public double get(int index) {
+            return values[index];
+        }
+
+        public double[] values() {
+            return values;
+        }
+    }
+
+    public static class BooleanColumn extends Column {
+        private final BitSet values;
+
+        BooleanColumn(String name, int size, BitSet values, BitSet nulls) {
+            super(name, size, nulls);
+            this.values = values;
+        }
+
+        /**
+         * @return The value of the row, false if it's null.
+         */
+        public boolean get(int index) {
+            return values.get(index);
+        }
+    }
+
+    public static class StringColumn extends Column {
+        private final int[] codes;
+        private final List<String> dictionary;
+
+        StringColumn(String name, int[] codes, List<String> dictionary, BitSet nulls) {
+            super(name, codes.length, nulls);
+            this.codes = codes;
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * @return The value of the row, null if it's null.
+         */
+        public String get(int index) {
+            return nulls.get(index) ? null : dictionary.get(codes[index]);
+        }
+
+        /**
+         * @return The index of the value in the dictionary, -1 if it's null.
+         */
+        public int getCode(int index) {
+            return codes[index];
+        }
+
+        public List<String> getDictionary() {
+            return dictionary;
+        }
+    }
+
+    public static class ValueColumn extends Column {
+        private final Value[] values;
+
+        ValueColumn(String name, Value[] values, BitSet nulls) {
+            super(name, values.length, nulls);
+            this.values = values;
+        }
+
+        public Value get(int index) {
+            return values[index];
+        }
+    }
+
+    public ColumnarResultSet(List<String> columnNames, List<ResultSet.Record> records) {
+        this.columnNames = columnNames == null ? Collections.emptyList() : columnNames;
+        this.columnIndexes = ResultSet.indexColumns(this.columnNames);
+        this.rowSize = records == null ? 0 : records.size();
+        this.columns = new ArrayList<>(this.columnNames.size());
+        for (int i = 0; i < this.columnNames.size(); i++) {
+            this.columns.add(buildColumn(this.columnNames.get(i), i, records));
+        }
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public int rowSize() {
+        return rowSize;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    public Column getColumn(int index) {
+        return columns.get(index);
+    }
+
+    public Column getColumn(String name) {
+        Integer index = columnIndexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException(
+                    "Cannot get column because the name '" + name + "' is not exist");
+        }
+        return columns.get(index);
+    }
+
+    private Column buildColumn(String name, int col, List<ResultSet.Record> records) {
+        BitSet nulls = new BitSet(rowSize);
+        int type = Value.NVAL;
+        for (int row = 0; row < rowSize; row++) {
+            int setField = records.get(row).get(col).getSetField();
+            if (setField == Value.NVAL) {
+                nulls.set(row);
+            } else if (type == Value.NVAL) {
+                type = setField;
+            } else if (type != setField) {
+                return buildValueColumn(name, col, records, nulls);
+            }
+        }
+        switch (type) {
+            case Value.IVAL: {
+                long[] values = new long[rowSize];
+                for (int row = 0; row < rowSize; row++) {
+                    if (!nulls.get(row)) {
+                        values[row] = records.get(row).getLong(col);
+                    }
+                }
+                return new LongColumn(name, values, nulls);
+            }
+            case Value.FVAL: {
+                double[] values = new double[rowSize];
+                for (int row = 0; row < rowSize; row++) {
+                    if (!nulls.get(row)) {
+                        values[row] = records.get(row).getDouble(col);
+                    }
+                }
+                return new DoubleColumn(name, values, nulls);
+            }
+            case Value.BVAL: {
+                BitSet values = new BitSet(rowSize);
+                for (int row = 0; row < rowSize; row++) {
+                    if (!nulls.get(row) && records.get(row).getBoolean(col)) {
+                        values.set(row);
+                    }
+                }
+                return new BooleanColumn(name, rowSize, values, nulls);
+            }
+            case Value.SVAL: {
+                int[] codes = new int[rowSize];
+                List<String> dictionary = new ArrayList<>();
+                Map<ByteBuffer, Integer> dictIndexes = new HashMap<>();
+                for (int row = 0; row < rowSize; row++) {
+                    if (nulls.get(row)) {
+                        codes[row] = -1;
+                        continue;
+                    }
+                    byte[] bytes = records.get(row).getBytes(col);
+                    Integer code = dictIndexes.get(ByteBuffer.wrap(bytes));
+                    if (code == null) {
+                        code = dictionary.size();
+                        dictionary.add(new String(bytes));
+                        dictIndexes.put(ByteBuffer.wrap(bytes), code);
+                    }
+                    codes[row] = code;
+                }
+                return new StringColumn(name, codes, dictionary, nulls);
+            }
+            default:
+                return buildValueColumn(name, col, records, nulls);
+        }
+    }
+
+    private Column buildValueColumn(String name,
+                                    int col,
+                                    List<ResultSet.Record> records,
+                                    BitSet nulls) {
+        Value[] values = new Value[rowSize];
+        for (int row = 0; row < rowSize; row++) {
+            values[row] = records.get(row).get(col);
+            if (values[row].getSetField() == Value.NVAL) {
+                nulls.set(row);
+            }
+        }
+        return new ValueColumn(name, values, nulls);
+    }
+}
@@ -6,6 +6,8 @@
 
 package com.vesoft.nebula.client.graph.data;
 
+import java.util.Objects;
+
 public class HostAddress {
     private String host;
     private int port;
@@ -23,6 +25,23 @@ public class HostAddress {
         return port;
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        HostAddress that = (HostAddress) o;
+        return port == that.port && Objects.equals(host, that.host);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(host, port);
+    }
+
     @Override
     public String toString() {
         return host +  ":" + port;
@@ -12,8 +12,11 @@ import com.vesoft.nebula.Value;
 import com.vesoft.nebula.graph.ErrorCode;
 import com.vesoft.nebula.graph.ExecutionResponse;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Spliterator;
 import java.util.function.Consumer;
 
@@ -21,16 +24,24 @@ public class ResultSet {
     private int code = ErrorCode.SUCCEEDED;
     private String errorMessage;
     private List<String> columnNames;
+    private Map<String, Integer> columnIndexes = Collections.emptyMap();
     private List<Record> records;
 
     public static class Record implements Iterable<Value> {
         private final Row row;
         private final List<String> columnNames;
+        // Shared by all the records of the same ResultSet
+        private final Map<String, Integer> columnIndexes;
         private int curror = -1;
 
         public Record(List<String> columnNames, Row row) {
+            this(columnNames, indexColumns(columnNames), row);
+        }
+
+        public Record(List<String> columnNames, Map<String, Integer> columnIndexes, Row row) {
             this.row = row;
             this.columnNames = columnNames;
+            this.columnIndexes = columnIndexes;
         }
 
         @Override
@@ -53,12 +64,47 @@ public class ResultSet {
         }
 
         public Value get(String key) {
-            int index = columnNames.indexOf(key);
-            if (index == -1) {
-                throw new IllegalArgumentException(
-                        "Cannot get field because the key '" + key + "' is not exist");
-            }
-            return this.row.values.get(index);
+            return this.row.values.get(indexOf(key));
+        }
+
+        public long getLong(int index) {
+            return get(index).getIVal();
+        }
+
+        public long getLong(String key) {
+            return get(key).getIVal();
+        }
+
+        public double getDouble(int index) {
+            return get(index).getFVal();
+        }
+
+        public double getDouble(String key) {
+            return get(key).getFVal();
+        }
+
+        public boolean getBoolean(int index) {
+            return get(index).isBVal();
+        }
+
+        public boolean getBoolean(String key) {
+            return get(key).isBVal();
+        }
+
+        public byte[] getBytes(int index) {
+            return get(index).getSVal();
+        }
+
+        public byte[] getBytes(String key) {
+            return get(key).getSVal();
+        }
+
+        public boolean isNull(int index) {
+            return get(index).getSetField() == Value.NVAL;
+        }
+
+        public boolean isNull(String key) {
+            return get(key).getSetField() == Value.NVAL;
         }
 
         public int size() {
@@ -66,7 +112,16 @@ public class ResultSet {
         }
 
         public boolean contains(String key) {
-            return this.columnNames.contains(key);
+            return this.columnIndexes.containsKey(key);
+        }
+
+        private int indexOf(String key) {
+            Integer index = columnIndexes.get(key);
+            if (index == null) {
+                throw new IllegalArgumentException(
+                        "Cannot get field because the key '" + key + "' is not exist");
+            }
+            return index;
         }
     }
 
@@ -88,13 +143,29 @@ public class ResultSet {
             for (byte[] column : resp.data.column_names) {
                 this.columnNames.add(new String(column).intern());
             }
+            this.columnIndexes = indexColumns(this.columnNames);
             this.records = new ArrayList<>(resp.data.rows.size());
             for (Row row : resp.data.rows) {
-                this.records.add(new Record(this.columnNames, row));
+                this.records.add(new Record(this.columnNames, this.columnIndexes, row));
             }
         }
     }
 
+    /**
+     * Build the map from the column name to its index, if the names are duplicate,
+     * the first one wins like List.indexOf.
+     *
+     * @param columnNames The column names.
+     * @return The map from the column name to its index.
+     */
+    public static Map<String, Integer> indexColumns(List<String> columnNames) {
+        Map<String, Integer> columnIndexes = new HashMap<>(columnNames.size() * 2);
+        for (int i = 0; i < columnNames.size(); i++) {
+            columnIndexes.putIfAbsent(columnNames.get(i), i);
+        }
+        return columnIndexes;
+    }
+
     public boolean isSucceeded() {
         return this.code == ErrorCode.SUCCEEDED;
     }
@@ -114,4 +185,13 @@ public class ResultSet {
     public List<Record> getRecords() {
         return this.records;
     }
+
+    /**
+     * Convert the records to columns backed by primitive arrays.
+     *
+     * @return The columnar view of the records.
+     */
+    public ColumnarResultSet toColumnar() {
+        return new ColumnarResultSet(this.columnNames, this.records);
+    }
 }
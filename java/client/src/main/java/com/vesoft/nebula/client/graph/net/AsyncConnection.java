@@ -0,0 +1,202 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.facebook.thrift.TException;
+import com.facebook.thrift.async.AsyncMethodCallback;
+import com.facebook.thrift.async.TAsyncClientManager;
+import com.facebook.thrift.async.TAsyncMethodCall;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.transport.TNonblockingSocket;
+import com.facebook.thrift.transport.TNonblockingTransport;
+import com.facebook.thrift.transport.TTransportException;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import com.vesoft.nebula.graph.GraphService;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The connection based on the non-blocking socket, all the io of the connections
+ * which share the same TAsyncClientManager are driven by its selector thread.
+ * The generated AsyncClient only allows one call in flight, so the requests
+ * are queued in the connection and sent one by one.
+ * The returned futures are completed in the selector thread, so don't block in
+ * the callbacks of them.
+ */
+public class AsyncConnection extends Connection {
+    private final TAsyncClientManager manager;
+    private TNonblockingTransport transport = null;
+    private GraphService.AsyncClient client = null;
+    private final Queue<PendingCall> pendingCalls = new ArrayDeque<>();
+    private PendingCall current = null;
+    private volatile boolean broken = true;
+
+    private static class PendingCall {
+        private final long sessionID;
+        private final byte[] stmt;
+        private final CompletableFuture<ExecutionResponse> future;
+
+        PendingCall(long sessionID, byte[] stmt, CompletableFuture<ExecutionResponse> future) {
+            this.sessionID = sessionID;
+            this.stmt = stmt;
+            this.future = future;
+        }
+    }
+
+    public AsyncConnection(TAsyncClientManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void open(HostAddress address, int timeout) throws IOErrorException {
+        this.serverAddr = address;
+        this.timeout = timeout;
+        try {
+            this.transport = new TNonblockingSocket(
+                    address.getHost(), address.getPort(), timeout);
+            this.client = new GraphService.AsyncClient(
+                    new TCompactProtocol.Factory(), manager, transport);
+            if (timeout > 0) {
+                this.client.setTimeout(timeout);
+            }
+            this.broken = false;
+        } catch (TException | IOException e) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+        }
+    }
+
+    /**
+     * Execute the query sentence asynchronously.
+     *
+     * @param sessionID The session id from authenticate.
+     * @param stmt The query sentence.
+     * @return The future of the response, it is completed exceptionally with
+     *     IOErrorException when the connection is broken.
+     */
+    public CompletableFuture<ExecutionResponse> execute(long sessionID, String stmt) {
+        CompletableFuture<ExecutionResponse> future = new CompletableFuture<>();
+        if (broken) {
+            future.completeExceptionally(new IOErrorException(
+                    IOErrorException.E_CONNECT_BROKEN, "The connection is broken"));
+            return future;
+        }
+        synchronized (this) {
+            pendingCalls.add(new PendingCall(sessionID, stmt.getBytes(), future));
+            if (current != null) {
+                return future;
+            }
+        }
+        sendNext();
+        return future;
+    }
+
+    private void sendNext() {
+        final PendingCall call;
+        synchronized (this) {
+            call = pendingCalls.poll();
+            current = call;
+            if (call == null) {
+                return;
+            }
+        }
+        try {
+            client.execute(call.sessionID, call.stmt, new AsyncMethodCallback() {
+                @Override
+                public void onComplete(TAsyncMethodCall response) {
+                    ExecutionResponse resp = null;
+                    Exception error = null;
+                    try {
+                        resp = ((GraphService.AsyncClient.execute_call) response).getResult();
+                    } catch (TException e) {
+                        error = e;
+                    }
+                    // Start the next call before running the callbacks of this one
+                    sendNext();
+                    if (error != null) {
+                        call.future.completeExceptionally(toIOError(error));
+                    } else {
+                        call.future.complete(resp);
+                    }
+                }
+
+                @Override
+                public void onError(Exception exception) {
+                    failPendingCalls(exception);
+                }
+            });
+        } catch (TException | IllegalStateException e) {
+            failPendingCalls(e);
+        }
+    }
+
+    private void failPendingCalls(Exception exception) {
+        broken = true;
+        Queue<PendingCall> calls = new ArrayDeque<>();
+        synchronized (this) {
+            if (current != null) {
+                calls.add(current);
+                current = null;
+            }
+            calls.addAll(pendingCalls);
+            pendingCalls.clear();
+        }
+        for (PendingCall call : calls) {
+            call.future.completeExceptionally(toIOError(exception));
+        }
+    }
+
+    private IOErrorException toIOError(Exception e) {
+        if (e instanceof IOException
+                || e instanceof TimeoutException
+                || e instanceof IllegalStateException) {
+            return new IOErrorException(IOErrorException.E_CONNECT_BROKEN, e.getMessage());
+        }
+        if (e instanceof TTransportException) {
+            TTransportException te = (TTransportException) e;
+            if (te.getType() == TTransportException.END_OF_FILE
+                    || te.getType() == TTransportException.NOT_OPEN) {
+                return new IOErrorException(IOErrorException.E_CONNECT_BROKEN, te.getMessage());
+            }
+        }
+        return new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+    }
+
+    public boolean isOpen() {
+        return !broken;
+    }
+
+    @Override
+    public boolean ping() {
+        try {
+            execute(0, "YIELD 1;").get();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return !(e.getCause() instanceof IOErrorException)
+                    || ((IOErrorException) e.getCause()).getType()
+                        != IOErrorException.E_CONNECT_BROKEN;
+        }
+    }
+
+    @Override
+    public void close() {
+        broken = true;
+        if (transport != null) {
+            transport.close();
+        }
+        // The selector skips the closed channel, so fail the waiting calls here
+        failPendingCalls(new IOException("The connection is closed"));
+    }
+}
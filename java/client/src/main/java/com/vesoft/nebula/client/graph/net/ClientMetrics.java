@@ -0,0 +1,63 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+
+/**
+ * The listener of the pool, the connections and the requests, it's called in the
+ * threads of the requests, so it should be cheap and shouldn't block.
+ * The times are in microseconds, and the sizes are in bytes.
+ */
+public interface ClientMetrics {
+    ClientMetrics NOOP = new ClientMetrics() {
+    };
+
+    /**
+     * The connection to the server is opened.
+     */
+    default void connectionOpened(HostAddress address) {
+    }
+
+    /**
+     * The connection to the server is closed.
+     */
+    default void connectionClosed(HostAddress address) {
+    }
+
+    /**
+     * The session is got from the pool.
+     *
+     * @param waitTimeUs The time to get the connection and to authenticate.
+     */
+    default void sessionAcquired(long waitTimeUs) {
+    }
+
+    /**
+     * The response of the request is received.
+     *
+     * @param address The server.
+     * @param roundTripUs The time from sending the request to decoding the response.
+     * @param decodeUs The time from the response header to the end of the response.
+     * @param serverLatencyUs The latency_in_us of the response.
+     * @param requestBytes The size of the request.
+     * @param responseBytes The size of the response.
+     */
+    default void requestSucceeded(HostAddress address,
+                                  long roundTripUs,
+                                  long decodeUs,
+                                  long serverLatencyUs,
+                                  long requestBytes,
+                                  long responseBytes) {
+    }
+
+    /**
+     * The request failed without the response, such as the timeout.
+     */
+    default void requestFailed(HostAddress address, long roundTripUs) {
+    }
+}
@@ -3,11 +3,18 @@ package com.vesoft.nebula.client.graph.net;
 import com.vesoft.nebula.client.graph.NebulaPoolConfig;
 import com.vesoft.nebula.client.graph.data.HostAddress;
 import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
 import org.apache.commons.pool2.BasePooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
 import org.apache.commons.pool2.impl.DefaultPooledObject;
 
-public class ConnObjectPool extends BasePooledObjectFactory<SyncConnection> {
+/**
+ * The factory of the connections keyed by the server, it's used by {@link HostConnectionPool}.
+ * It was an unkeyed factory of GenericObjectPool, the pools built on it should wrap
+ * {@link #toPooledObjectFactory()} instead.
+ */
+public class ConnObjectPool extends BaseKeyedPooledObjectFactory<HostAddress, SyncConnection> {
     private final NebulaPoolConfig config;
     private LoadBalancer loadBalancer;
     private static final int retryTime = 3;
@@ -18,17 +25,18 @@ public class ConnObjectPool extends BasePooledObjectFactory<SyncConnection> {
     }
 
     @Override
-    public SyncConnection create() throws IOErrorException {
-        HostAddress address = loadBalancer.getAddress();
-        if (address == null) {
-            throw new IOErrorException(IOErrorException.E_ALL_BROKEN,
-                    "All servers are broken.");
-        }
-        int retry = retryTime;
+    public SyncConnection create(HostAddress address) throws IOErrorException {
         SyncConnection conn = new SyncConnection();
+        conn.setBufferSize(config.getBufferSize());
+        conn.setFramed(config.isFramed());
+        conn.setCompressed(config.isCompressed());
+        conn.setMetrics(config.getMetrics());
+        int retry = retryTime;
         while (retry-- > 0) {
             try {
                 conn.open(address, config.getTimeout());
+                loadBalancer.connectionOpened(address);
+                config.getMetrics().connectionOpened(address);
                 return conn;
             } catch (IOErrorException e) {
                 if (retry == 0) {
@@ -40,23 +48,47 @@ public class ConnObjectPool extends BasePooledObjectFactory<SyncConnection> {
         return null;
     }
 
+    /**
+     * Open the connection to the server picked by the load balancer.
+     *
+     * @deprecated Use {@link #create(HostAddress)}, the connections are pooled by server.
+     */
+    @Deprecated
+    public SyncConnection create() throws IOErrorException {
+        HostAddress address = loadBalancer.getAddress();
+        if (address == null) {
+            throw new IOErrorException(IOErrorException.E_ALL_BROKEN,
+                    "All servers are broken.");
+        }
+        return create(address);
+    }
+
     @Override
     public PooledObject<SyncConnection> wrap(SyncConnection connection) {
         return new DefaultPooledObject<>(connection);
     }
 
     @Override
-    public void destroyObject(PooledObject<SyncConnection> p) throws Exception {
+    public void destroyObject(HostAddress address, PooledObject<SyncConnection> p)
+            throws Exception {
         p.getObject().close();
-        // TODO: update the server connection num into load balancer
-        super.destroyObject(p);
+        if (p.getObject().getServerAddress() != null) {
+            loadBalancer.connectionClosed(p.getObject().getServerAddress());
+            config.getMetrics().connectionClosed(p.getObject().getServerAddress());
+        }
+        super.destroyObject(address, p);
     }
 
     @Override
-    public boolean validateObject(PooledObject<SyncConnection> p) {
+    public boolean validateObject(HostAddress address, PooledObject<SyncConnection> p) {
         if (p.getObject() == null) {
             return false;
         }
+        // The connection used recently isn't pinged, if it's broken,
+        // the error is found by the next request
+        if (p.getIdleTimeMillis() < config.getValidateIdleTime()) {
+            return true;
+        }
         if (!p.getObject().ping()) {
             p.getObject().close();
             return false;
@@ -64,10 +96,45 @@ public class ConnObjectPool extends BasePooledObjectFactory<SyncConnection> {
         return true;
     }
 
+    /**
+     * The unkeyed factory for the GenericObjectPool built before the connections are pooled
+     * by server, each connection is opened to the server picked by the load balancer.
+     *
+     * @deprecated Use {@link HostConnectionPool}.
+     */
+    @Deprecated
+    public PooledObjectFactory<SyncConnection> toPooledObjectFactory() {
+        return new BasePooledObjectFactory<SyncConnection>() {
+            @Override
+            public SyncConnection create() throws IOErrorException {
+                return ConnObjectPool.this.create();
+            }
+
+            @Override
+            public PooledObject<SyncConnection> wrap(SyncConnection connection) {
+                return ConnObjectPool.this.wrap(connection);
+            }
+
+            @Override
+            public void destroyObject(PooledObject<SyncConnection> p) throws Exception {
+                ConnObjectPool.this.destroyObject(p.getObject().getServerAddress(), p);
+            }
+
+            @Override
+            public boolean validateObject(PooledObject<SyncConnection> p) {
+                return ConnObjectPool.this.validateObject(p.getObject().getServerAddress(), p);
+            }
+        };
+    }
+
     public boolean init() {
         return loadBalancer.isServersOK();
     }
 
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
     public void updateServerStatus() {
         loadBalancer.updateServersStatus();
     }
@@ -5,11 +5,16 @@ import com.vesoft.nebula.client.graph.exception.IOErrorException;
 
 public abstract class Connection {
     protected HostAddress serverAddr = null;
+    protected int timeout = 0;
 
     public HostAddress getServerAddress() {
         return this.serverAddr;
     }
 
+    public int getTimeout() {
+        return this.timeout;
+    }
+
     public abstract void open(HostAddress address, int timeout) throws IOErrorException;
 
     public abstract void close();
@@ -0,0 +1,154 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics kept in memory, the counters are LongAdders and the distributions are
+ * LatencyHistograms, so recording doesn't lock. They are read by the exporters,
+ * such as a reporter which samples the counters and the percentiles periodically.
+ */
+public class DefaultClientMetrics implements ClientMetrics {
+    private final Map<HostAddress, HostMetrics> hosts = new ConcurrentHashMap<>();
+    private final LatencyHistogram sessionWaitTimes = new LatencyHistogram();
+
+    /**
+     * The metrics of the requests and the connections of one server.
+     */
+    public static class HostMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder connectionsOpened = new LongAdder();
+        private final LongAdder connectionsClosed = new LongAdder();
+        private final LatencyHistogram roundTripTimes = new LatencyHistogram();
+        private final LatencyHistogram decodeTimes = new LatencyHistogram();
+        private final LatencyHistogram serverLatencies = new LatencyHistogram();
+        private final LatencyHistogram requestSizes = new LatencyHistogram();
+        private final LatencyHistogram responseSizes = new LatencyHistogram();
+
+        /**
+         * @return The number of the requests, including the failed ones.
+         */
+        public long getRequests() {
+            return requests.sum();
+        }
+
+        public long getFailures() {
+            return failures.sum();
+        }
+
+        public long getConnectionsOpened() {
+            return connectionsOpened.sum();
+        }
+
+        public long getConnectionsClosed() {
+            return connectionsClosed.sum();
+        }
+
+        /**
+         * @return The round trip times of the succeeded requests, unit: microsecond.
+         */
+        public LatencyHistogram getRoundTripTimes() {
+            return roundTripTimes;
+        }
+
+        /**
+         * @return The time to decode the responses, unit: microsecond.
+         */
+        public LatencyHistogram getDecodeTimes() {
+            return decodeTimes;
+        }
+
+        /**
+         * @return The latency_in_us reported by the server, unit: microsecond.
+         */
+        public LatencyHistogram getServerLatencies() {
+            return serverLatencies;
+        }
+
+        /**
+         * @return The sizes of the requests, unit: byte.
+         */
+        public LatencyHistogram getRequestSizes() {
+            return requestSizes;
+        }
+
+        /**
+         * @return The sizes of the responses, unit: byte.
+         */
+        public LatencyHistogram getResponseSizes() {
+            return responseSizes;
+        }
+    }
+
+    @Override
+    public void connectionOpened(HostAddress address) {
+        getOrCreate(address).connectionsOpened.increment();
+    }
+
+    @Override
+    public void connectionClosed(HostAddress address) {
+        getOrCreate(address).connectionsClosed.increment();
+    }
+
+    @Override
+    public void sessionAcquired(long waitTimeUs) {
+        sessionWaitTimes.record(waitTimeUs);
+    }
+
+    @Override
+    public void requestSucceeded(HostAddress address,
+                                 long roundTripUs,
+                                 long decodeUs,
+                                 long serverLatencyUs,
+                                 long requestBytes,
+                                 long responseBytes) {
+        HostMetrics metrics = getOrCreate(address);
+        metrics.requests.increment();
+        metrics.roundTripTimes.record(roundTripUs);
+        metrics.decodeTimes.record(decodeUs);
+        metrics.serverLatencies.record(serverLatencyUs);
+        metrics.requestSizes.record(requestBytes);
+        metrics.responseSizes.record(responseBytes);
+    }
+
+    @Override
+    public void requestFailed(HostAddress address, long roundTripUs) {
+        HostMetrics metrics = getOrCreate(address);
+        metrics.requests.increment();
+        metrics.failures.increment();
+    }
+
+    /**
+     * @return The metrics of the server, null if nothing is recorded for it.
+     */
+    public HostMetrics getHostMetrics(HostAddress address) {
+        return hosts.get(address);
+    }
+
+    public Map<HostAddress, HostMetrics> getAllHostMetrics() {
+        return Collections.unmodifiableMap(hosts);
+    }
+
+    /**
+     * @return The time to get the sessions, unit: microsecond.
+     */
+    public LatencyHistogram getSessionWaitTimes() {
+        return sessionWaitTimes;
+    }
+
+    private HostMetrics getOrCreate(HostAddress address) {
+        // get doesn't lock, computeIfAbsent is only for the new server
+        HostMetrics metrics = hosts.get(address);
+        return metrics != null ? metrics : hosts.computeIfAbsent(address, a -> new HostMetrics());
+    }
+}
@@ -0,0 +1,66 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import java.util.List;
+
+/**
+ * Pick the healthy server by the exponentially weighted moving average of the
+ * latency_in_us of its responses, multiplied by the requests in flight plus one,
+ * so a slow server gets fewer requests, and a fast server isn't flooded.
+ * The server without any response yet is picked first to get its latency.
+ */
+public class EwmaLatencyLoadBalancer extends HostStatsLoadBalancer {
+    // The weight of the new sample
+    public static final double DEFAULT_DECAY = 0.3;
+    private final double decay;
+
+    public EwmaLatencyLoadBalancer(List<HostAddress> addresses, int timeout) {
+        this(addresses, timeout, DEFAULT_DECAY);
+    }
+
+    /**
+     * @param addresses The graph servers.
+     * @param timeout The timeout of the health check, unit: millisecond.
+     * @param decay The weight of the new latency sample, between 0 and 1.
+     */
+    public EwmaLatencyLoadBalancer(List<HostAddress> addresses, int timeout, double decay) {
+        this(addresses, timeout, decay, DEFAULT_CHECK_INTERVAL);
+    }
+
+    /**
+     * @param addresses The graph servers.
+     * @param timeout The timeout of the health check, unit: millisecond.
+     * @param decay The weight of the new latency sample, between 0 and 1.
+     * @param checkInterval The interval of the health check, unit: millisecond.
+     */
+    public EwmaLatencyLoadBalancer(List<HostAddress> addresses,
+                                   int timeout,
+                                   double decay,
+                                   int checkInterval) {
+        super(addresses, timeout, checkInterval);
+        if (decay <= 0 || decay > 1) {
+            throw new IllegalArgumentException("The decay should be in (0, 1]");
+        }
+        this.decay = decay;
+    }
+
+    @Override
+    protected double cost(HostStats hostStats) {
+        double latency = hostStats.getEwmaLatency();
+        if (latency < 0) {
+            return 0;
+        }
+        return latency * (hostStats.getInFlight() + 1);
+    }
+
+    @Override
+    protected void updateLatency(HostStats hostStats, long latencyInUs) {
+        hostStats.updateLatency(latencyInUs, decay);
+    }
+}
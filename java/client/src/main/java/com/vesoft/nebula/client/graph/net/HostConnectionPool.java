@@ -0,0 +1,350 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The connections are pooled by server, each server has its own idle connections,
+ * min idle and max total, so a slow server only holds its own connections and
+ * doesn't starve the others. The max total of all servers is still bounded.
+ * When the max total per server is set, the borrowers of a server wait in
+ * FIFO order for its connections.
+ * The keyed pool of commons-pool2 2.2 has no abandoned config, so the connections
+ * borrowed longer than the abandoned time, such as the ones of the sessions never
+ * released, are reclaimed here when a server or the pool runs out of connections.
+ */
+public class HostConnectionPool {
+    private final GenericKeyedObjectPool<HostAddress, SyncConnection> pool;
+    private final ConnObjectPool factory;
+    private final List<HostAddress> addresses;
+    private final int maxTotalPerHost;
+    private final int minIdlePerHost;
+    // The permits of the connections of each server, only used with maxTotalPerHost
+    private final Map<HostAddress, Semaphore> permits = new ConcurrentHashMap<>();
+    // The borrow time of the connections in use, the one removed from it is owned
+    // by the caller returning, invalidating or reclaiming it
+    private final Map<SyncConnection, Long> borrowTimes = new ConcurrentHashMap<>();
+    private final int abandonedTime;
+    private ScheduledExecutorService warmer = null;
+    // Notified when the connection is returned or invalidated
+    private volatile Runnable releaseListener = null;
+    private final int warmDelay = 60;  // unit seconds
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * @param factory The factory of the connections.
+     * @param addresses The servers.
+     * @param maxTotal The max connections of all servers.
+     * @param maxTotalPerHost The max connections of each server, 0 means only maxTotal.
+     * @param minIdlePerHost The min idle connections kept for each server.
+     * @param idleTime The idle time before the connection is evicted in ms, 0 means never.
+     */
+    public HostConnectionPool(ConnObjectPool factory,
+                              List<HostAddress> addresses,
+                              int maxTotal,
+                              int maxTotalPerHost,
+                              int minIdlePerHost,
+                              int idleTime) {
+        this(factory, addresses, maxTotal, maxTotalPerHost, minIdlePerHost, idleTime, 0);
+    }
+
+    /**
+     * @param factory The factory of the connections.
+     * @param addresses The servers.
+     * @param maxTotal The max connections of all servers.
+     * @param maxTotalPerHost The max connections of each server, 0 means only maxTotal.
+     * @param minIdlePerHost The min idle connections kept for each server.
+     * @param idleTime The idle time before the connection is evicted in ms, 0 means never.
+     * @param abandonedTime The borrow time before the connection is reclaimed in ms
+     *     when the connections run out, 0 means never.
+     */
+    public HostConnectionPool(ConnObjectPool factory,
+                              List<HostAddress> addresses,
+                              int maxTotal,
+                              int maxTotalPerHost,
+                              int minIdlePerHost,
+                              int idleTime,
+                              int abandonedTime) {
+        this.factory = factory;
+        this.addresses = new ArrayList<>(addresses);
+        this.maxTotalPerHost = maxTotalPerHost;
+        this.minIdlePerHost = minIdlePerHost;
+        this.abandonedTime = abandonedTime;
+        GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setMaxTotal(maxTotal);
+        config.setMaxTotalPerKey(maxTotalPerHost > 0 ? maxTotalPerHost : maxTotal);
+        config.setMaxIdlePerKey(maxTotalPerHost > 0 ? maxTotalPerHost : maxTotal);
+        config.setMinIdlePerKey(minIdlePerHost);
+        config.setMinEvictableIdleTimeMillis(idleTime <= 0 ? Long.MAX_VALUE : idleTime);
+        // The idle connections are checked by the factory when they are borrowed,
+        // and the ones idle longer than idleTime are closed in the background
+        config.setTestOnBorrow(true);
+        if (idleTime > 0) {
+            config.setTimeBetweenEvictionRunsMillis(idleTime);
+            config.setNumTestsPerEvictionRun(Math.max(1, maxTotal));
+        }
+        // The config isn't passed to the constructor, which starts the evictor
+        // with the min evictable idle time as its period
+        this.pool = new GenericKeyedObjectPool<>(factory);
+        this.pool.setConfig(config);
+    }
+
+    public boolean init() {
+        boolean ok = factory.init();
+        if (minIdlePerHost > 0) {
+            ensureMinIdle();
+            // The server restarted is warmed up again
+            warmer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "HostConnectionPool-warmer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            warmer.scheduleWithFixedDelay(this::ensureMinIdle, warmDelay, warmDelay,
+                    TimeUnit.SECONDS);
+        }
+        return ok;
+    }
+
+    public void close() {
+        if (warmer != null) {
+            warmer.shutdownNow();
+        }
+        pool.close();
+    }
+
+    public boolean isClosed() {
+        return pool.isClosed();
+    }
+
+    /**
+     * Borrow the connection to the server picked by the load balancer.
+     *
+     * @param waitTime The max time to wait for the connection in ms.
+     */
+    public SyncConnection borrowObject(long waitTime) throws Exception {
+        HostAddress address = factory.getLoadBalancer().getAddress();
+        if (address == null) {
+            throw new IOErrorException(IOErrorException.E_ALL_BROKEN,
+                    "All servers are broken.");
+        }
+        return borrowObject(address, waitTime);
+    }
+
+    /**
+     * Borrow the connection to the server.
+     *
+     * @param address The server.
+     * @param waitTime The max time to wait for the connection in ms.
+     */
+    public SyncConnection borrowObject(HostAddress address, long waitTime) throws Exception {
+        reclaimAbandoned(address);
+        Semaphore semaphore = getPermits(address);
+        if (semaphore == null) {
+            return track(pool.borrowObject(address, waitTime));
+        }
+        long deadline = System.currentTimeMillis() + waitTime;
+        if (!semaphore.tryAcquire(waitTime, TimeUnit.MILLISECONDS)) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, String.format(
+                    "Timeout waiting for idle connection to %s", address));
+        }
+        try {
+            return track(pool.borrowObject(address,
+                    Math.max(0, deadline - System.currentTimeMillis())));
+        } catch (Exception e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Borrow the connection without waiting, the servers are tried in the order
+     * picked by the load balancer.
+     *
+     * @return The connection, null if the connections of the servers are all in use.
+     */
+    public SyncConnection tryBorrowObject() throws Exception {
+        for (int i = 0; i < addresses.size(); i++) {
+            HostAddress address = factory.getLoadBalancer().getAddress();
+            if (address == null) {
+                throw new IOErrorException(IOErrorException.E_ALL_BROKEN,
+                        "All servers are broken.");
+            }
+            reclaimAbandoned(address);
+            Semaphore semaphore = getPermits(address);
+            if (semaphore != null && !semaphore.tryAcquire()) {
+                continue;
+            }
+            try {
+                return track(pool.borrowObject(address, 0));
+            } catch (NoSuchElementException e) {
+                // The connections of the server are all in use
+                if (semaphore != null) {
+                    semaphore.release();
+                }
+            } catch (Exception e) {
+                if (semaphore != null) {
+                    semaphore.release();
+                }
+                throw e;
+            }
+        }
+        return null;
+    }
+
+    public void returnObject(SyncConnection connection) {
+        // It's returned twice, or it's reclaimed, the permit is released only once
+        untrack(connection);
+        HostAddress address = connection.getServerAddress();
+        try {
+            pool.returnObject(address, connection);
+        } finally {
+            releasePermit(address);
+            notifyRelease();
+        }
+    }
+
+    public void invalidateObject(SyncConnection connection) throws Exception {
+        untrack(connection);
+        HostAddress address = connection.getServerAddress();
+        try {
+            pool.invalidateObject(address, connection);
+        } finally {
+            // The connection is dropped from the pool even if closing it fails
+            releasePermit(address);
+            notifyRelease();
+        }
+    }
+
+    public void setReleaseListener(Runnable releaseListener) {
+        this.releaseListener = releaseListener;
+    }
+
+    public ConnObjectPool getFactory() {
+        return factory;
+    }
+
+    public int getNumActive() {
+        return pool.getNumActive();
+    }
+
+    public int getNumActive(HostAddress address) {
+        return pool.getNumActive(address);
+    }
+
+    public int getNumIdle() {
+        return pool.getNumIdle();
+    }
+
+    public int getNumIdle(HostAddress address) {
+        return pool.getNumIdle(address);
+    }
+
+    public int getNumWaiters() {
+        return pool.getNumWaiters();
+    }
+
+    /**
+     * Open the min idle connections of each server, the broken servers are skipped.
+     */
+    public void ensureMinIdle() {
+        for (HostAddress address : addresses) {
+            if (pool.isClosed()) {
+                return;
+            }
+            try {
+                pool.preparePool(address);
+            } catch (Exception e) {
+                log.warn(String.format("Prepare connections to %s failed: %s",
+                        address, e.getMessage()));
+            }
+        }
+    }
+
+    private SyncConnection track(SyncConnection connection) {
+        borrowTimes.put(connection, System.currentTimeMillis());
+        return connection;
+    }
+
+    private void untrack(SyncConnection connection) {
+        if (borrowTimes.remove(connection) == null) {
+            throw new IllegalStateException(
+                    "The connection isn't borrowed from the pool, or it's reclaimed");
+        }
+    }
+
+    /**
+     * Invalidate the connections borrowed longer than the abandoned time when the server
+     * or the pool runs out of connections, like the abandoned config of commons-pool2.
+     */
+    private void reclaimAbandoned(HostAddress address) {
+        if (abandonedTime <= 0 || !isExhausted(address)) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() - abandonedTime;
+        for (Map.Entry<SyncConnection, Long> entry : borrowTimes.entrySet()) {
+            SyncConnection connection = entry.getKey();
+            // The connection returned meanwhile isn't reclaimed
+            if (entry.getValue() > deadline || !borrowTimes.remove(connection, entry.getValue())) {
+                continue;
+            }
+            HostAddress server = connection.getServerAddress();
+            log.warn(String.format("Reclaim the connection to %s borrowed longer than %d ms",
+                    server, abandonedTime));
+            try {
+                pool.invalidateObject(server, connection);
+            } catch (Exception e) {
+                log.warn("Close the abandoned connection failed: " + e.getMessage());
+            } finally {
+                releasePermit(server);
+            }
+        }
+    }
+
+    private boolean isExhausted(HostAddress address) {
+        Semaphore semaphore = getPermits(address);
+        if (semaphore != null && semaphore.availablePermits() == 0) {
+            return true;
+        }
+        return pool.getNumIdle() < 2 && pool.getNumActive() > pool.getMaxTotal() - 3;
+    }
+
+    private Semaphore getPermits(HostAddress address) {
+        if (maxTotalPerHost <= 0) {
+            return null;
+        }
+        return permits.computeIfAbsent(address, k -> new Semaphore(maxTotalPerHost, true));
+    }
+
+    private void notifyRelease() {
+        Runnable listener = releaseListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private void releasePermit(HostAddress address) {
+        Semaphore semaphore = maxTotalPerHost <= 0 ? null : permits.get(address);
+        if (semaphore != null) {
+            semaphore.release();
+        }
+    }
+}
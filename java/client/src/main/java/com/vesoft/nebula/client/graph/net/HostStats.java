@@ -0,0 +1,67 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The load of one server seen by the client: the open connections,
+ * the requests in flight and the moving average of the server latency.
+ */
+public class HostStats {
+    private final AtomicInteger connections = new AtomicInteger(0);
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    // The bits of the double value, a negative value means no sample yet
+    private final AtomicLong ewmaLatency = new AtomicLong(Double.doubleToLongBits(-1));
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return The moving average of the latency in us, -1 if there is no sample.
+     */
+    public double getEwmaLatency() {
+        return Double.longBitsToDouble(ewmaLatency.get());
+    }
+
+    void connectionOpened() {
+        connections.incrementAndGet();
+    }
+
+    void connectionClosed() {
+        connections.updateAndGet(n -> n > 0 ? n - 1 : 0);
+    }
+
+    void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void requestFinished() {
+        inFlight.updateAndGet(n -> n > 0 ? n - 1 : 0);
+    }
+
+    /**
+     * @param latency The new sample.
+     * @param decay The weight of the new sample, between 0 and 1.
+     */
+    void updateLatency(long latency, double decay) {
+        while (true) {
+            long oldBits = ewmaLatency.get();
+            double old = Double.longBitsToDouble(oldBits);
+            double newValue = old < 0 ? latency : old + decay * (latency - old);
+            if (ewmaLatency.compareAndSet(oldBits, Double.doubleToLongBits(newValue))) {
+                return;
+            }
+        }
+    }
+}
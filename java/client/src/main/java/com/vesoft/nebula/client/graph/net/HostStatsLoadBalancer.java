@@ -0,0 +1,90 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The load balancer picks the healthy server with the lowest cost, the cost is
+ * computed from the connections, the requests in flight and the latency of the server
+ * reported by the pool and the sessions. The servers with the same cost are picked
+ * in turn.
+ */
+public abstract class HostStatsLoadBalancer extends RoundRobinLoadBalancer {
+    private final Map<HostAddress, HostStats> stats = new ConcurrentHashMap<>();
+
+    public HostStatsLoadBalancer(List<HostAddress> addresses, int timeout) {
+        this(addresses, timeout, DEFAULT_CHECK_INTERVAL);
+    }
+
+    public HostStatsLoadBalancer(List<HostAddress> addresses, int timeout, int checkInterval) {
+        super(addresses, timeout, checkInterval);
+        for (HostAddress addr : addresses) {
+            stats.put(addr, new HostStats());
+        }
+    }
+
+    /**
+     * @return The cost of the server, the server with the lowest cost is picked.
+     */
+    protected abstract double cost(HostStats hostStats);
+
+    @Override
+    public HostAddress getAddress() {
+        HostAddress[] healthy = getHealthyAddresses();
+        if (healthy.length == 0) {
+            return null;
+        }
+        int start = nextIndex(healthy.length);
+        HostAddress best = null;
+        double bestCost = Double.MAX_VALUE;
+        for (int i = 0; i < healthy.length; i++) {
+            HostAddress addr = healthy[(start + i) % healthy.length];
+            double cost = cost(getStats(addr));
+            if (best == null || cost < bestCost) {
+                best = addr;
+                bestCost = cost;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void connectionOpened(HostAddress address) {
+        getStats(address).connectionOpened();
+    }
+
+    @Override
+    public void connectionClosed(HostAddress address) {
+        getStats(address).connectionClosed();
+    }
+
+    @Override
+    public void requestStarted(HostAddress address) {
+        getStats(address).requestStarted();
+    }
+
+    @Override
+    public void requestFinished(HostAddress address, long latencyInUs) {
+        super.requestFinished(address, latencyInUs);
+        HostStats hostStats = getStats(address);
+        hostStats.requestFinished();
+        if (latencyInUs >= 0) {
+            updateLatency(hostStats, latencyInUs);
+        }
+    }
+
+    protected void updateLatency(HostStats hostStats, long latencyInUs) {
+    }
+
+    private HostStats getStats(HostAddress address) {
+        return stats.computeIfAbsent(address, k -> new HostStats());
+    }
+}
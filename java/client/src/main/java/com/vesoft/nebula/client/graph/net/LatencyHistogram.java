@@ -0,0 +1,92 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The histogram of the non-negative values, such as the latencies. Each power of two
+ * is split into 8 buckets, so the percentile is within 12.5% of the real value.
+ * Recording a value is lock free, and the readers may see the values recorded
+ * at the same time partially.
+ */
+public class LatencyHistogram {
+    private static final int subBits = 3;
+    private static final int subCount = 1 << subBits;
+    private static final int bucketCount = (64 - subBits) << subBits;
+    private final AtomicLongArray buckets = new AtomicLongArray(bucketCount);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(indexOf(v));
+        count.increment();
+        sum.add(v);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @param percentile The percentile in [0, 100].
+     * @return The upper bound of the bucket which has the percentile, 0 if it's empty.
+     */
+    public long getPercentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, percentile) / 100));
+        long seen = 0;
+        for (int i = 0; i < bucketCount; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return i + 1 < bucketCount ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+            }
+        }
+        // The count is increased after the bucket, so the max bucket is returned
+        for (int i = bucketCount - 1; i >= 0; i--) {
+            if (buckets.get(i) > 0) {
+                return i + 1 < bucketCount ? lowerBound(i + 1) - 1 : Long.MAX_VALUE;
+            }
+        }
+        return 0;
+    }
+
+    public void reset() {
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+    }
+
+    static int indexOf(long value) {
+        if (value < subCount) {
+            return (int) value;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) ((value >>> (exp - subBits)) & (subCount - 1));
+        return ((exp - subBits + 1) << subBits) + sub;
+    }
+
+    static long lowerBound(int index) {
+        if (index < subCount) {
+            return index;
+        }
+        int exp = (index >> subBits) + subBits - 1;
+        return (long) (subCount + (index & (subCount - 1))) << (exp - subBits);
+    }
+}
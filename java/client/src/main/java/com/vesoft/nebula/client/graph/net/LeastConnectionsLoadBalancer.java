@@ -0,0 +1,31 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import java.util.List;
+
+/**
+ * Pick the healthy server with the fewest requests in flight. The open connections
+ * aren't counted, the idle ones in the pool are no load on the server.
+ */
+public class LeastConnectionsLoadBalancer extends HostStatsLoadBalancer {
+    public LeastConnectionsLoadBalancer(List<HostAddress> addresses, int timeout) {
+        super(addresses, timeout);
+    }
+
+    public LeastConnectionsLoadBalancer(List<HostAddress> addresses,
+                                        int timeout,
+                                        int checkInterval) {
+        super(addresses, timeout, checkInterval);
+    }
+
+    @Override
+    protected double cost(HostStats hostStats) {
+        return hostStats.getInFlight();
+    }
+}
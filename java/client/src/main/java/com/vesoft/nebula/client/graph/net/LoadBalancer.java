@@ -10,4 +10,31 @@ public interface LoadBalancer {
     void updateServersStatus();
 
     boolean isServersOK();
+
+    /**
+     * The connection to the server is opened, it's called by the pool.
+     */
+    default void connectionOpened(HostAddress address) {
+    }
+
+    /**
+     * The connection to the server is closed, it's called by the pool.
+     */
+    default void connectionClosed(HostAddress address) {
+    }
+
+    /**
+     * The request is sent to the server, it's called by the session.
+     */
+    default void requestStarted(HostAddress address) {
+    }
+
+    /**
+     * The response is received from the server, it's called by the session.
+     *
+     * @param address The server.
+     * @param latencyInUs The latency_in_us of the response, -1 if the request failed.
+     */
+    default void requestFinished(HostAddress address, long latencyInUs) {
+    }
 }
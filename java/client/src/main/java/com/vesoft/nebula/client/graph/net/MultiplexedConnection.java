@@ -0,0 +1,384 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.facebook.thrift.TApplicationException;
+import com.facebook.thrift.TBase;
+import com.facebook.thrift.TException;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.protocol.TMessage;
+import com.facebook.thrift.protocol.TMessageType;
+import com.facebook.thrift.protocol.TProtocol;
+import com.facebook.thrift.protocol.TProtocolUtil;
+import com.facebook.thrift.protocol.TType;
+import com.facebook.thrift.transport.TSocket;
+import com.facebook.thrift.transport.TTransport;
+import com.facebook.thrift.transport.TTransportException;
+import com.vesoft.nebula.Row;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.AuthFailedException;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.graph.AuthResponse;
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import com.vesoft.nebula.graph.GraphService;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The connection which can be shared by many sessions. The requests are written
+ * back to back on one socket, each of them carries an unique sequence id, and a
+ * reader thread matches the responses to the requests by the sequence id of the
+ * response message, so the requests don't wait for each other.
+ */
+public class MultiplexedConnection extends SyncConnection {
+    // The writers and the reader thread use the different transports on the socket,
+    // the compressed ones hold the zlib streams until they are closed
+    private TTransport outTransport = null;
+    private TTransport inTransport = null;
+    private TProtocol inProtocol = null;
+    private final Object writeLock = new Object();
+    private final AtomicInteger nextSeqId = new AtomicInteger(0);
+    private final Map<Integer, PendingCall> pendingCalls = new ConcurrentHashMap<>();
+    private volatile boolean broken = true;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private static class PendingCall {
+        private final TBase result;
+        private final CompletableFuture<TBase> future = new CompletableFuture<>();
+        private final long startTime = System.nanoTime();
+        private int requestBytes = 0;
+        // Set by the reader thread before the future is completed
+        private long decodeTime = 0;
+        private long responseBytes = 0;
+
+        PendingCall(TBase result) {
+            this.result = result;
+        }
+    }
+
+    @Override
+    public void open(HostAddress address, int timeout) throws IOErrorException {
+        this.serverAddr = address;
+        this.timeout = timeout;
+        try {
+            // The reader thread blocks on the socket all the time,
+            // so the timeout is only applied to connect and to each request
+            int connTimeout = timeout <= 0 ? Integer.MAX_VALUE : timeout;
+            this.socket = new TSocket(
+                    address.getHost(), address.getPort(), 0, connTimeout, bufferSize);
+            this.socket.open();
+            this.transport = socket;
+            this.outTransport = wrapSocket();
+            this.inTransport = wrapSocket();
+            this.inProtocol = new TCompactProtocol(inTransport);
+            this.broken = false;
+        } catch (TException e) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+        }
+        Thread reader = new Thread(this::readResponses,
+                String.format("MultiplexedConnection-reader-%s", address));
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public long authenticate(String user, String password)
+            throws AuthFailedException, IOErrorException {
+        GraphService.authenticate_args args = new GraphService.authenticate_args();
+        args.setUsername(user.getBytes());
+        args.setPassword(password.getBytes());
+        GraphService.authenticate_result result = new GraphService.authenticate_result();
+        AuthResponse resp;
+        try {
+            resp = this.<GraphService.authenticate_result>waitResult(
+                    call("authenticate", args, result), "authenticate").success;
+        } catch (IOErrorException e) {
+            if (e.getType() == IOErrorException.E_CONNECT_BROKEN) {
+                throw e;
+            }
+            throw new AuthFailedException(
+                    String.format("Authenticate failed: %s", e.getMessage()));
+        }
+        if (resp == null) {
+            throw new AuthFailedException("Authenticate failed: unknown result");
+        }
+        if (resp.error_code != ErrorCode.SUCCEEDED) {
+            throw new AuthFailedException(new String(resp.error_msg).intern());
+        }
+        return resp.session_id;
+    }
+
+    @Override
+    public ExecutionResponse execute(long sessionID, CharSequence stmt) throws IOErrorException {
+        return executeResult(waitResult(call(seqId -> encoder.encodeExecute(
+                seqId, sessionID, stmt), new GraphService.execute_result()), "execute"));
+    }
+
+    @Override
+    public ExecutionResponse execute(long sessionID, ByteBuffer stmt) throws IOErrorException {
+        return executeResult(waitResult(call(seqId -> encoder.encodeExecute(
+                seqId, sessionID, stmt), new GraphService.execute_result()), "execute"));
+    }
+
+    private ExecutionResponse executeResult(GraphService.execute_result result)
+            throws IOErrorException {
+        if (!result.isSetSuccess()) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN,
+                    "execute failed: unknown result");
+        }
+        return result.success;
+    }
+
+    /**
+     * The responses of the shared socket are read by the reader thread,
+     * so the rows are handed to the rowHandler after the whole response is read.
+     */
+    @Override
+    public ExecutionResponse executeStreaming(long sessionID,
+                                              String stmt,
+                                              BiConsumer<List<String>, Row> rowHandler)
+            throws IOErrorException {
+        ExecutionResponse resp = execute(sessionID, stmt);
+        if (resp.data != null && resp.data.rows != null) {
+            List<String> columnNames = new ArrayList<>(resp.data.column_names.size());
+            for (byte[] column : resp.data.column_names) {
+                columnNames.add(new String(column).intern());
+            }
+            for (Row row : resp.data.rows) {
+                rowHandler.accept(columnNames, row);
+            }
+            resp.data.rows = new ArrayList<>();
+        }
+        return resp;
+    }
+
+    /**
+     * Send the query sentence without waiting for the response.
+     *
+     * @param sessionID The session id from authenticate.
+     * @param stmt The query sentence.
+     * @return The future of the response, it is completed in the reader thread.
+     */
+    public CompletableFuture<ExecutionResponse> executeAsync(long sessionID, String stmt) {
+        return call(seqId -> encoder.encodeExecute(seqId, sessionID, stmt),
+                new GraphService.execute_result())
+                .thenApply(r -> {
+                    GraphService.execute_result result = (GraphService.execute_result) r;
+                    if (!result.isSetSuccess()) {
+                        throw new CompletionException(new IOErrorException(
+                                IOErrorException.E_UNKNOWN, "execute failed: unknown result"));
+                    }
+                    return result.success;
+                });
+    }
+
+    @Override
+    public void signout(long sessionId) {
+        GraphService.signout_args args = new GraphService.signout_args();
+        args.setSessionId(sessionId);
+        try {
+            // signout has no response
+            write(new TMessage("signout", TMessageType.CALL, nextSeqId.incrementAndGet()), args);
+        } catch (TException e) {
+            this.close();
+        }
+    }
+
+    @Override
+    public boolean ping() {
+        try {
+            execute(0, "YIELD 1;");
+            return true;
+        } catch (IOErrorException e) {
+            return e.getType() != IOErrorException.E_CONNECT_BROKEN;
+        }
+    }
+
+    public boolean isOpen() {
+        return !broken;
+    }
+
+    @Override
+    public void close() {
+        broken = true;
+        if (socket != null) {
+            socket.close();
+        }
+        // The in transport is closed by the reader thread when it stops reading
+        synchronized (writeLock) {
+            if (outTransport != null) {
+                outTransport.close();
+            }
+        }
+        failPendingCalls(new IOErrorException(IOErrorException.E_CONNECT_BROKEN,
+                "The connection is closed"));
+    }
+
+    // Encode the request with the sequence id into the encoder of the connection
+    private interface RequestWriter {
+        void encode(int seqId) throws TException;
+    }
+
+    private CompletableFuture<TBase> call(String method, TBase args, TBase result) {
+        return call(seqId -> encoder.encodeCall(
+                new TMessage(method, TMessageType.CALL, seqId), args), result);
+    }
+
+    private CompletableFuture<TBase> call(RequestWriter writer, TBase result) {
+        int seqId = nextSeqId.incrementAndGet();
+        PendingCall call = new PendingCall(result);
+        if (broken) {
+            call.future.completeExceptionally(new IOErrorException(
+                    IOErrorException.E_CONNECT_BROKEN, "The connection is broken"));
+            return call.future;
+        }
+        if (result instanceof GraphService.execute_result) {
+            call.future.whenComplete((r, e) -> recordExecute(call, e));
+        }
+        try {
+            synchronized (writeLock) {
+                checkOpen();
+                writer.encode(seqId);
+                call.requestBytes = encoder.size();
+                // The response may be read before writeTo returns
+                pendingCalls.put(seqId, call);
+                encoder.writeTo(outTransport);
+            }
+        } catch (TException e) {
+            pendingCalls.remove(seqId);
+            call.future.completeExceptionally(toIOError(e));
+            close();
+        }
+        return call.future;
+    }
+
+    private void recordExecute(PendingCall call, Throwable exception) {
+        long endTime = System.nanoTime();
+        GraphService.execute_result result = (GraphService.execute_result) call.result;
+        if (exception != null || !result.isSetSuccess()) {
+            metrics.requestFailed(serverAddr, (endTime - call.startTime) / 1000);
+            return;
+        }
+        metrics.requestSucceeded(serverAddr, (endTime - call.startTime) / 1000,
+                (endTime - call.decodeTime) / 1000, result.success.latency_in_us,
+                call.requestBytes, call.responseBytes);
+    }
+
+    private void write(TMessage message, TBase args) throws TException {
+        synchronized (writeLock) {
+            checkOpen();
+            encoder.encodeCall(message, args);
+            encoder.writeTo(outTransport);
+        }
+    }
+
+    // The out transport closed isn't written again, so its zlib stream isn't created again
+    private void checkOpen() throws TTransportException {
+        if (broken) {
+            throw new TTransportException(TTransportException.NOT_OPEN,
+                    "The connection is closed");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T waitResult(CompletableFuture<TBase> future, String method)
+            throws IOErrorException {
+        try {
+            TBase result = timeout > 0
+                    ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+            return (T) result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+        } catch (TimeoutException e) {
+            // The late response will be dropped by the reader thread
+            future.cancel(false);
+            pendingCalls.values().removeIf(call -> call.future == future);
+            throw new IOErrorException(IOErrorException.E_UNKNOWN,
+                    String.format("%s timed out after %d ms", method, timeout));
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOErrorException) {
+                throw (IOErrorException) e.getCause();
+            }
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getCause().getMessage());
+        }
+    }
+
+    private void readResponses() {
+        try {
+            while (!broken) {
+                final long startBytes = socket.getBytesRead() - socket.getBytesRemainingInBuffer();
+                TMessage msg = inProtocol.readMessageBegin();
+                final long decodeTime = System.nanoTime();
+                PendingCall call = pendingCalls.remove(msg.seqid);
+                if (msg.type == TMessageType.EXCEPTION) {
+                    TApplicationException x = TApplicationException.read(inProtocol);
+                    inProtocol.readMessageEnd();
+                    if (call != null) {
+                        call.future.completeExceptionally(
+                                new IOErrorException(IOErrorException.E_UNKNOWN, x.getMessage()));
+                    }
+                    continue;
+                }
+                if (call == null || call.future.isDone()) {
+                    // The caller has given up waiting for it
+                    TProtocolUtil.skip(inProtocol, TType.STRUCT);
+                    inProtocol.readMessageEnd();
+                    continue;
+                }
+                call.result.read(inProtocol);
+                inProtocol.readMessageEnd();
+                call.decodeTime = decodeTime;
+                call.responseBytes = socket.getBytesRead() - socket.getBytesRemainingInBuffer()
+                        - startBytes;
+                call.future.complete(call.result);
+            }
+        } catch (TException e) {
+            if (!broken) {
+                log.warn(String.format("Read from %s failed: %s", serverAddr, e.getMessage()));
+            }
+            broken = true;
+            socket.close();
+            failPendingCalls(toIOError(e));
+        } finally {
+            inTransport.close();
+        }
+    }
+
+    private void failPendingCalls(IOErrorException exception) {
+        List<PendingCall> calls = new ArrayList<>(pendingCalls.values());
+        pendingCalls.clear();
+        for (PendingCall call : calls) {
+            call.future.completeExceptionally(exception);
+        }
+    }
+
+    private IOErrorException toIOError(TException e) {
+        if (e instanceof TTransportException) {
+            TTransportException te = (TTransportException) e;
+            if (te.getType() == TTransportException.END_OF_FILE
+                    || te.getType() == TTransportException.NOT_OPEN
+                    || broken) {
+                return new IOErrorException(IOErrorException.E_CONNECT_BROKEN, te.getMessage());
+            }
+        }
+        return new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+    }
+}
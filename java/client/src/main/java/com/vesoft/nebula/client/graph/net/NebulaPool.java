@@ -6,73 +6,176 @@
 
 package com.vesoft.nebula.client.graph.net;
 
+import com.facebook.thrift.async.TAsyncClientManager;
 import com.vesoft.nebula.client.graph.NebulaPoolConfig;
 import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.data.ResultSet;
 import com.vesoft.nebula.client.graph.exception.AuthFailedException;
 import com.vesoft.nebula.client.graph.exception.IOErrorException;
 import com.vesoft.nebula.client.graph.exception.NotValidConnectionException;
+import java.io.IOException;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
-import org.apache.commons.pool2.impl.AbandonedConfig;
-import org.apache.commons.pool2.impl.GenericObjectPool;
-import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class NebulaPool {
-    private GenericObjectPool<SyncConnection> objectPool = null;
+    private HostConnectionPool objectPool = null;
     private LoadBalancer loadBalancer;
+    private int hostNum = 0;
+    // The selector thread shared by the async connections of all sessions
+    private TAsyncClientManager asyncManager = null;
+    // The connections shared by sessions when the pool is multiplexed
+    private final Map<HostAddress, MultiplexedConnection> sharedConns =
+            new ConcurrentHashMap<>();
+    private NebulaPoolConfig config = null;
     private final Logger log = LoggerFactory.getLogger(this.getClass());
-    // the wait time to get idle connection, unit ms
-    private final int waitTime = 60 * 1000;
+    // The sessions waiting for the connections, in the order of arrival
+    private final Deque<SessionWaiter> waiters = new ArrayDeque<>();
+    private final AtomicInteger dispatchRequests = new AtomicInteger(0);
+    // The time to get the sessions, unit: microsecond
+    private final LatencyHistogram waitTimes = new LatencyHistogram();
+    // Authenticate the sessions got asynchronously, and run the workers of executeAll
+    private ExecutorService acquirer = null;
+    private ScheduledThreadPoolExecutor timer = null;
+    // The results of the read statements shared by the sessions, null if it's disabled
+    private ResultCache resultCache = null;
+    // Coalesce the same read statements of the sessions, null if it's disabled
+    private ReadCoalescer readCoalescer = null;
+
+    private static class SessionWaiter {
+        private final String userName;
+        private final String password;
+        private final boolean reconnect;
+        private final CompletableFuture<Session> future;
+        private final long startTime = System.nanoTime();
+        private int retry = 1;
+
+        SessionWaiter(String userName,
+                      String password,
+                      boolean reconnect,
+                      CompletableFuture<Session> future) {
+            this.userName = userName;
+            this.password = password;
+            this.reconnect = reconnect;
+            this.future = future;
+        }
+    }
 
     public boolean init(List<HostAddress> addresses, NebulaPoolConfig config)
             throws UnknownHostException {
+        this.config = config;
         List<HostAddress> newAddrs = hostToIp(addresses);
-        this.loadBalancer = new RoundRobinLoadBalancer(newAddrs, config.getTimeout());
+        this.hostNum = newAddrs.size();
+        this.loadBalancer = newLoadBalancer(newAddrs, config);
         ConnObjectPool objectPool = new ConnObjectPool(this.loadBalancer, config);
-        this.objectPool = new GenericObjectPool<>(objectPool);
-        GenericObjectPoolConfig objConfig = new GenericObjectPoolConfig();
-        objConfig.setMinIdle(config.getMinConnSize());
-        objConfig.setMaxTotal(config.getMaxConnSize());
-        objConfig.setMinEvictableIdleTimeMillis(
-                config.getIdleTime() <= 0 ? Long.MAX_VALUE : config.getIdleTime());
-        this.objectPool.setConfig(objConfig);
-
-        AbandonedConfig abandonedConfig = new AbandonedConfig();
-        abandonedConfig.setRemoveAbandonedOnBorrow(true);
-        this.objectPool.setAbandonedConfig(abandonedConfig);
-        return objectPool.init();
+        // The min connections of all servers are split between them
+        int minIdlePerHost = config.getMinConnSizePerHost() > 0
+                ? config.getMinConnSizePerHost()
+                : (config.getMinConnSize() + newAddrs.size() - 1) / Math.max(1, newAddrs.size());
+        this.objectPool = new HostConnectionPool(objectPool, newAddrs, config.getMaxConnSize(),
+                config.getMaxConnSizePerHost(), minIdlePerHost, config.getIdleTime(),
+                config.getAbandonedTime());
+        this.objectPool.setReleaseListener(() -> {
+            if (getWaitersNum() > 0) {
+                requestDispatch();
+            }
+        });
+        this.acquirer = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "NebulaPool-acquirer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "NebulaPool-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        if (config.getResultCacheSize() > 0) {
+            this.resultCache = new ResultCache(config.getResultCacheSize(),
+                    config.getResultCacheTtl());
+        }
+        if (config.isCoalesceReads()) {
+            this.readCoalescer = new ReadCoalescer();
+        }
+        try {
+            this.asyncManager = new TAsyncClientManager();
+        } catch (IOException e) {
+            log.warn("Create async client manager failed, executeAsync is unavailable: "
+                    + e.getMessage());
+        }
+        return this.objectPool.init();
     }
 
     public void close() {
         this.loadBalancer.close();
         this.objectPool.close();
+        this.acquirer.shutdown();
+        this.timer.shutdownNow();
+        SessionWaiter waiter;
+        while ((waiter = pollWaiter()) != null) {
+            waiter.future.completeExceptionally(
+                    new NotValidConnectionException("The pool is closed."));
+        }
+        for (MultiplexedConnection conn : sharedConns.values()) {
+            conn.close();
+            config.getMetrics().connectionClosed(conn.getServerAddress());
+        }
+        sharedConns.clear();
+        if (this.asyncManager != null) {
+            try {
+                this.asyncManager.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
     }
 
     public Session getSession(String userName, String password, boolean reconnect)
             throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        if (config != null && config.isMultiplexed()) {
+            return getMultiplexedSession(userName, password);
+        }
+        long startTime = System.nanoTime();
         try {
-            // If no idle connection, try once
-            int retry = getIdleConnNum() == 0 ? 1 : getIdleConnNum();
-            SyncConnection connection = null;
-            while (retry-- > 0) {
-                connection = objectPool.borrowObject(waitTime);
-                if (connection == null || !connection.ping()) {
-                    continue;
+            // The idle connection is got in the caller thread if nobody is waiting,
+            // the connection used recently isn't pinged when it's borrowed, so the broken
+            // one is found by the authentication, and it's replaced by another once
+            int retry = 2;
+            while (getWaitersNum() == 0) {
+                SyncConnection connection = objectPool.tryBorrowObject();
+                if (connection == null) {
+                    break;
+                }
+                try {
+                    Session session = newSession(connection, userName, password, reconnect);
+                    recordWaitTime(startTime);
+                    return session;
+                } catch (IOErrorException e) {
+                    if (--retry > 0) {
+                        continue;
+                    }
+                    throw e;
                 }
-                break;
-            }
-            if (connection == null) {
-                throw new NotValidConnectionException("Get connection object failed.");
             }
-            log.info(String.format("Get connection to %s:%d",
-                     connection.getServerAddress().getHost(),
-                     connection.getServerAddress().getPort()));
-            long sessionID = connection.authenticate(userName, password);
-            return new Session(connection, sessionID, this.objectPool, reconnect);
         } catch (NotValidConnectionException | AuthFailedException | IOErrorException e) {
             throw e;
         } catch (IllegalStateException e) {
@@ -80,24 +183,496 @@ public class NebulaPool {
         } catch (Exception e) {
             throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
         }
+        return waitSession(getSessionAsync(userName, password, reconnect));
+    }
+
+    /**
+     * Get the session without blocking the caller. When all connections are in use,
+     * the caller waits in the queue for the connection returned, in the order of arrival.
+     * The future fails at once if there are maxWaiters waiting already, and it fails
+     * with NotValidConnectionException after waitTime.
+     *
+     * @return The future of the session, it's completed in the acquirer thread.
+     */
+    public CompletableFuture<Session> getSessionAsync(String userName,
+                                                      String password,
+                                                      boolean reconnect) {
+        CompletableFuture<Session> future = new CompletableFuture<>();
+        if (objectPool == null || objectPool.isClosed()) {
+            future.completeExceptionally(new NotValidConnectionException("The pool is closed."));
+            return future;
+        }
+        if (config.isMultiplexed()) {
+            try {
+                acquirer.execute(() -> {
+                    try {
+                        future.complete(getMultiplexedSession(userName, password));
+                    } catch (Exception e) {
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(
+                        new NotValidConnectionException("The pool is closed."));
+            }
+            return future;
+        }
+        SessionWaiter waiter = new SessionWaiter(userName, password, reconnect, future);
+        synchronized (waiters) {
+            if (config.getMaxWaiters() > 0 && waiters.size() >= config.getMaxWaiters()) {
+                future.completeExceptionally(new NotValidConnectionException(String.format(
+                        "Too many waiters, %d sessions are waiting.", waiters.size())));
+                return future;
+            }
+            waiters.addLast(waiter);
+        }
+        try {
+            ScheduledFuture<?> timeout = timer.schedule(() -> {
+                removeWaiter(waiter);
+                future.completeExceptionally(new NotValidConnectionException(
+                        "Timeout waiting for idle connection."));
+            }, Math.max(0, config.getWaitTime()), TimeUnit.MILLISECONDS);
+            future.whenComplete((session, e) -> timeout.cancel(false));
+        } catch (RejectedExecutionException e) {
+            removeWaiter(waiter);
+            future.completeExceptionally(new NotValidConnectionException("The pool is closed."));
+            return future;
+        }
+        requestDispatch();
+        return future;
+    }
+
+    /**
+     * Execute the independent statements by the sessions of the user in parallel,
+     * the sessions are spread over the servers by the load balancer, and the statements
+     * in flight on each server are bounded by parallelism / the number of the servers.
+     * It fails if any statement fails without the response, the other statements
+     * aren't executed then.
+     *
+     * @param userName The user name of the sessions.
+     * @param password The password of the user.
+     * @param space The space used by the sessions, null if the statements don't need it.
+     * @param stmts The statements.
+     * @param parallelism The max number of the statements in flight.
+     * @return The ResultSets in the order of the statements.
+     */
+    public List<ResultSet> executeAll(String userName,
+                                      String password,
+                                      String space,
+                                      List<String> stmts,
+                                      int parallelism)
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism should be > 0");
+        }
+        if (objectPool == null || objectPool.isClosed()) {
+            throw new NotValidConnectionException("The pool is closed.");
+        }
+        ResultSet[] results = new ResultSet[stmts.size()];
+        BatchExecution batch = new BatchExecution(stmts, results,
+                (parallelism + hostNum - 1) / Math.max(1, hostNum));
+        // Each session holds a connection unless the pool is multiplexed
+        int workers = Math.min(parallelism, stmts.size());
+        if (!config.isMultiplexed()) {
+            workers = Math.min(workers, config.getMaxConnSize());
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            futures[i] = future;
+            try {
+                acquirer.execute(() -> {
+                    try {
+                        executeBatch(userName, password, space, batch);
+                        future.complete(null);
+                    } catch (Exception e) {
+                        batch.stop();
+                        future.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                batch.stop();
+                future.completeExceptionally(
+                        new NotValidConnectionException("The pool is closed."));
+            }
+        }
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.stop();
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, "Execute all is interrupted.");
+        } catch (ExecutionException e) {
+            throw throwCause(e.getCause());
+        }
+        return Arrays.asList(results);
+    }
+
+    // The statements taken by the workers of executeAll in order
+    private static class BatchExecution {
+        private final List<String> stmts;
+        private final ResultSet[] results;
+        private final int maxInFlightPerHost;
+        private final AtomicInteger next = new AtomicInteger(0);
+        private final Map<HostAddress, Semaphore> inFlight = new ConcurrentHashMap<>();
+
+        BatchExecution(List<String> stmts, ResultSet[] results, int maxInFlightPerHost) {
+            this.stmts = stmts;
+            this.results = results;
+            this.maxInFlightPerHost = maxInFlightPerHost;
+        }
+
+        // The index of the next statement, -1 if all are taken
+        int take() {
+            int index = next.getAndIncrement();
+            return index < stmts.size() ? index : -1;
+        }
+
+        void stop() {
+            next.set(stmts.size());
+        }
+
+        boolean isDone() {
+            return next.get() >= stmts.size();
+        }
+
+        Semaphore permitsOf(HostAddress address) {
+            return inFlight.computeIfAbsent(address, a -> new Semaphore(maxInFlightPerHost));
+        }
+    }
+
+    /**
+     * The worker holds the permit of the server of its session as long as it holds the
+     * session, so the connection isn't held idle waiting for the server. When the server
+     * is full, the session is released and got again, it may be balanced to another server.
+     */
+    private void executeBatch(String userName, String password, String space,
+                              BatchExecution batch) throws Exception {
+        for (int retry = 0; retry < hostNum && !batch.isDone(); retry++) {
+            Session session = getSession(userName, password, true);
+            try {
+                if (executeBatch(session, space, batch)) {
+                    return;
+                }
+            } finally {
+                session.release();
+            }
+        }
+    }
+
+    // Return false if the server of the session is full
+    private boolean executeBatch(Session session, String space, BatchExecution batch)
+            throws Exception {
+        HostAddress address = session.getServerAddress();
+        Semaphore permits = address == null ? null : batch.permitsOf(address);
+        if (permits != null && !permits.tryAcquire()) {
+            return false;
+        }
+        try {
+            if (space != null) {
+                ResultSet resp = session.execute(
+                        String.format("USE `%s`", space.replace("`", "\\`")));
+                if (!resp.isSucceeded()) {
+                    throw new IOErrorException(IOErrorException.E_UNKNOWN,
+                            String.format("Use space %s failed: %s", space,
+                                    resp.getErrorMessage()));
+                }
+            }
+            for (int index = batch.take(); index >= 0; index = batch.take()) {
+                batch.results[index] = session.execute(batch.stmts.get(index));
+                // The session may reconnect to another server
+                HostAddress current = session.getServerAddress();
+                if (current != null && !current.equals(address)) {
+                    if (permits != null) {
+                        permits.release();
+                    }
+                    address = current;
+                    permits = batch.permitsOf(current);
+                    if (!permits.tryAcquire()) {
+                        permits = null;
+                        return false;
+                    }
+                }
+            }
+            return true;
+        } finally {
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private Session newSession(SyncConnection connection,
+                               String userName,
+                               String password,
+                               boolean reconnect) throws Exception {
+        log.info(String.format("Get connection to %s:%d",
+                 connection.getServerAddress().getHost(),
+                 connection.getServerAddress().getPort()));
+        long sessionID;
+        try {
+            sessionID = connection.authenticate(userName, password);
+        } catch (IOErrorException e) {
+            objectPool.invalidateObject(connection);
+            throw e;
+        } catch (AuthFailedException e) {
+            objectPool.returnObject(connection);
+            throw e;
+        }
+        Session session = new Session(connection, sessionID, this.objectPool, reconnect,
+                this.asyncManager, this.loadBalancer);
+        session.shareReads(userName, resultCache, readCoalescer);
+        return session;
+    }
+
+    private Session waitSession(CompletableFuture<Session> future)
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw new NotValidConnectionException("Get session is interrupted.");
+        } catch (ExecutionException e) {
+            throw throwCause(e.getCause());
+        }
+    }
+
+    // Rethrow the cause of the failed future by its type
+    private static IOErrorException throwCause(Throwable cause)
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        if (cause instanceof NotValidConnectionException) {
+            throw (NotValidConnectionException) cause;
+        }
+        if (cause instanceof IOErrorException) {
+            throw (IOErrorException) cause;
+        }
+        if (cause instanceof AuthFailedException) {
+            throw (AuthFailedException) cause;
+        }
+        if (cause instanceof IllegalStateException) {
+            throw new NotValidConnectionException(cause.getMessage());
+        }
+        throw new IOErrorException(IOErrorException.E_UNKNOWN, cause.getMessage());
+    }
+
+    // Run the dispatch once for all the requests made before it finishes
+    private void requestDispatch() {
+        if (dispatchRequests.getAndIncrement() == 0) {
+            try {
+                acquirer.execute(this::dispatch);
+            } catch (RejectedExecutionException e) {
+                // The pool is closed
+                dispatchRequests.set(0);
+            }
+        }
+    }
+
+    private void dispatch() {
+        int requests = dispatchRequests.get();
+        do {
+            serveWaiters();
+        } while ((requests = dispatchRequests.addAndGet(-requests)) != 0);
+    }
+
+    // Hand the idle connections to the waiters in order
+    private void serveWaiters() {
+        while (true) {
+            synchronized (waiters) {
+                while (!waiters.isEmpty() && waiters.peekFirst().future.isDone()) {
+                    waiters.pollFirst();
+                }
+                if (waiters.isEmpty()) {
+                    return;
+                }
+            }
+            SyncConnection connection;
+            try {
+                connection = objectPool.tryBorrowObject();
+            } catch (Exception e) {
+                SessionWaiter waiter = pollWaiter();
+                if (waiter != null) {
+                    waiter.future.completeExceptionally(e);
+                }
+                continue;
+            }
+            if (connection == null) {
+                return;
+            }
+            SessionWaiter waiter = pollWaiter();
+            if (waiter == null) {
+                objectPool.returnObject(connection);
+                return;
+            }
+            try {
+                acquirer.execute(() -> authenticate(waiter, connection));
+            } catch (RejectedExecutionException e) {
+                objectPool.returnObject(connection);
+                waiter.future.completeExceptionally(
+                        new NotValidConnectionException("The pool is closed."));
+            }
+        }
+    }
+
+    private void authenticate(SessionWaiter waiter, SyncConnection connection) {
+        if (waiter.future.isDone()) {
+            objectPool.returnObject(connection);
+            return;
+        }
+        try {
+            Session session = newSession(connection, waiter.userName, waiter.password,
+                    waiter.reconnect);
+            recordWaitTime(waiter.startTime);
+            if (!waiter.future.complete(session)) {
+                // The waiter has timed out
+                session.release();
+            }
+        } catch (IOErrorException e) {
+            // The broken connection is replaced by another once
+            if (waiter.retry-- > 0) {
+                synchronized (waiters) {
+                    waiters.addFirst(waiter);
+                }
+                requestDispatch();
+            } else {
+                waiter.future.completeExceptionally(e);
+            }
+        } catch (Exception e) {
+            waiter.future.completeExceptionally(e);
+        }
+    }
+
+    private SessionWaiter pollWaiter() {
+        synchronized (waiters) {
+            return waiters.pollFirst();
+        }
+    }
+
+    private void removeWaiter(SessionWaiter waiter) {
+        synchronized (waiters) {
+            waiters.remove(waiter);
+        }
+    }
+
+    /**
+     * The session of the multiplexed pool doesn't own its connection, so it can't
+     * reconnect, the caller should get a new session when the server is broken.
+     */
+    private Session getMultiplexedSession(String userName, String password)
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        if (objectPool.isClosed()) {
+            throw new NotValidConnectionException("The pool is closed.");
+        }
+        HostAddress address = loadBalancer.getAddress();
+        if (address == null) {
+            throw new IOErrorException(IOErrorException.E_ALL_BROKEN,
+                    "All servers are broken.");
+        }
+        MultiplexedConnection connection = getSharedConnection(address);
+        log.info(String.format("Get shared connection to %s:%d",
+                 address.getHost(), address.getPort()));
+        long sessionID = connection.authenticate(userName, password);
+        Session session = new Session(connection, sessionID, (HostConnectionPool) null, false,
+                this.asyncManager, this.loadBalancer);
+        session.shareReads(userName, resultCache, readCoalescer);
+        return session;
+    }
+
+    private void recordWaitTime(long startTime) {
+        long waitTime = (System.nanoTime() - startTime) / 1000;
+        waitTimes.record(waitTime);
+        config.getMetrics().sessionAcquired(waitTime);
+    }
+
+    private LoadBalancer newLoadBalancer(List<HostAddress> addresses, NebulaPoolConfig config) {
+        switch (config.getLoadBalancerType()) {
+            case LEAST_CONNECTIONS:
+                return new LeastConnectionsLoadBalancer(addresses, config.getTimeout(),
+                        config.getHealthCheckInterval());
+            case EWMA_LATENCY:
+                return new EwmaLatencyLoadBalancer(addresses, config.getTimeout(),
+                        EwmaLatencyLoadBalancer.DEFAULT_DECAY, config.getHealthCheckInterval());
+            default:
+                return new RoundRobinLoadBalancer(addresses, config.getTimeout(),
+                        config.getHealthCheckInterval());
+        }
+    }
+
+    private synchronized MultiplexedConnection getSharedConnection(HostAddress address)
+            throws IOErrorException {
+        MultiplexedConnection connection = sharedConns.get(address);
+        if (connection != null && connection.isOpen()) {
+            return connection;
+        }
+        if (connection != null) {
+            loadBalancer.connectionClosed(address);
+            config.getMetrics().connectionClosed(address);
+        }
+        connection = new MultiplexedConnection();
+        connection.setBufferSize(config.getBufferSize());
+        connection.setFramed(config.isFramed());
+        connection.setCompressed(config.isCompressed());
+        connection.setMetrics(config.getMetrics());
+        try {
+            connection.open(address, config.getTimeout());
+        } catch (IOErrorException e) {
+            sharedConns.remove(address);
+            loadBalancer.updateServersStatus();
+            throw e;
+        }
+        loadBalancer.connectionOpened(address);
+        config.getMetrics().connectionOpened(address);
+        sharedConns.put(address, connection);
+        return connection;
     }
 
     public int getActiveConnNum() {
         return objectPool.getNumActive();
     }
 
+    /**
+     * @return The number of the connections to the server in use.
+     */
+    public int getActiveConnNum(HostAddress address) {
+        return objectPool.getNumActive(address);
+    }
+
     public int getIdleConnNum() {
         return objectPool.getNumIdle();
     }
 
+    /**
+     * @return The number of the idle connections to the server.
+     */
+    public int getIdleConnNum(HostAddress address) {
+        return objectPool.getNumIdle(address);
+    }
+
+    /**
+     * @return The number of the sessions waiting for the connections.
+     */
     public int getWaitersNum() {
-        return objectPool.getNumWaiters();
+        synchronized (waiters) {
+            return waiters.size();
+        }
+    }
+
+    /**
+     * @return The histogram of the time to get the sessions, unit: microsecond.
+     */
+    public LatencyHistogram getWaitTimeHistogram() {
+        return waitTimes;
+    }
+
+    /**
+     * @return The cache of the results of the read statements, null if it's disabled.
+     */
+    public ResultCache getResultCache() {
+        return resultCache;
     }
 
     public void updateServerStatus() {
-        if (objectPool.getFactory() instanceof ConnObjectPool) {
-            ((ConnObjectPool)objectPool.getFactory()).updateServerStatus();
-        }
+        objectPool.getFactory().updateServerStatus();
     }
 
     private List<HostAddress> hostToIp(List<HostAddress> addresses)
@@ -0,0 +1,337 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.ResultSet;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The query sentence with the parameters, such as
+ * <pre>
+ *     FETCH PROP ON player ? YIELD player.name
+ * </pre>
+ * Each '?' out of the strings, the quoted names and the comments is a parameter.
+ * The template is parsed once, and the constant parts of it are kept in UTF-8,
+ * each execution splices them and the parameters into the buffer of the statement,
+ * so the String of the query sentence isn't built.
+ * The statement isn't thread safe, it's used by the thread of the session.
+ */
+public class PreparedStatement {
+    // The max number of the parsed templates kept
+    private static final int maxCachedTemplates = 1024;
+    private static final Map<String, Template> templates = new TemplateCache();
+    private static final byte[] nullBytes = "NULL".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] trueBytes = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] falseBytes = "false".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] minLongBytes =
+            Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.UTF_8);
+
+    private static final int unset = 0;
+    private static final int typeNull = 1;
+    private static final int typeLong = 2;
+    private static final int typeDouble = 3;
+    private static final int typeBoolean = 4;
+    private static final int typeString = 5;
+
+    private final Session session;
+    private final Template template;
+    private final int[] types;
+    private final long[] longs;
+    private final double[] doubles;
+    private final CharSequence[] strings;
+    private byte[] buffer = new byte[256];
+    private ByteBuffer byteBuffer = ByteBuffer.wrap(buffer);
+
+    private static class Template {
+        // The constant parts, there is a parameter between each two of them
+        private final byte[][] fragments;
+
+        Template(byte[][] fragments) {
+            this.fragments = fragments;
+        }
+    }
+
+    // The least recently used template is dropped
+    private static class TemplateCache extends LinkedHashMap<String, Template> {
+        TemplateCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+            return size() > maxCachedTemplates;
+        }
+    }
+
+    PreparedStatement(Session session, String template) {
+        this.session = session;
+        this.template = getTemplate(template);
+        int count = this.template.fragments.length - 1;
+        this.types = new int[count];
+        this.longs = new long[count];
+        this.doubles = new double[count];
+        this.strings = new CharSequence[count];
+    }
+
+    public int getParameterCount() {
+        return types.length;
+    }
+
+    /**
+     * @param index The index of the parameter, the first one is 1.
+     * @param value The integer value.
+     * @return This statement.
+     */
+    public PreparedStatement setLong(int index, long value) {
+        int i = checkIndex(index);
+        types[i] = typeLong;
+        longs[i] = value;
+        strings[i] = null;
+        return this;
+    }
+
+    /**
+     * @param index The index of the parameter, the first one is 1.
+     * @param value The double value, it should be finite.
+     * @return This statement.
+     */
+    public PreparedStatement setDouble(int index, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new IllegalArgumentException("The double parameter should be finite");
+        }
+        int i = checkIndex(index);
+        types[i] = typeDouble;
+        doubles[i] = value;
+        strings[i] = null;
+        return this;
+    }
+
+    public PreparedStatement setBoolean(int index, boolean value) {
+        int i = checkIndex(index);
+        types[i] = typeBoolean;
+        longs[i] = value ? 1 : 0;
+        strings[i] = null;
+        return this;
+    }
+
+    /**
+     * @param index The index of the parameter, the first one is 1.
+     * @param value The string, it's quoted and escaped, null is NULL.
+     *              The value isn't copied, so it shouldn't be changed before the execution.
+     * @return This statement.
+     */
+    public PreparedStatement setString(int index, CharSequence value) {
+        if (value == null) {
+            return setNull(index);
+        }
+        int i = checkIndex(index);
+        types[i] = typeString;
+        strings[i] = value;
+        return this;
+    }
+
+    public PreparedStatement setNull(int index) {
+        int i = checkIndex(index);
+        types[i] = typeNull;
+        strings[i] = null;
+        return this;
+    }
+
+    public PreparedStatement clearParameters() {
+        Arrays.fill(types, unset);
+        Arrays.fill(strings, null);
+        return this;
+    }
+
+    /**
+     * Execute the query sentence with the parameters, the parameters are kept
+     * for the next execution.
+     *
+     * @return The ResultSet.
+     */
+    public ResultSet execute() throws IOErrorException {
+        return session.execute(encode());
+    }
+
+    /**
+     * The query sentence with the parameters, it's used for logging.
+     */
+    @Override
+    public String toString() {
+        ByteBuffer bytes = encode();
+        return new String(bytes.array(), 0, bytes.limit(), StandardCharsets.UTF_8);
+    }
+
+    ByteBuffer encode() {
+        byte[][] fragments = template.fragments;
+        int size = 0;
+        size = append(size, fragments[0]);
+        for (int i = 0; i < types.length; i++) {
+            switch (types[i]) {
+                case typeNull:
+                    size = append(size, nullBytes);
+                    break;
+                case typeLong:
+                    size = appendLong(size, longs[i]);
+                    break;
+                case typeDouble:
+                    // It's rare in the lookups, so the String of the double is accepted
+                    String value = Double.toString(doubles[i]);
+                    ensureCapacity(size, value.length());
+                    size = RequestEncoder.encodeUtf8(value, 0, value.length(), buffer, size);
+                    break;
+                case typeBoolean:
+                    size = append(size, longs[i] != 0 ? trueBytes : falseBytes);
+                    break;
+                case typeString:
+                    size = appendString(size, strings[i]);
+                    break;
+                default:
+                    throw new IllegalStateException(
+                            String.format("The parameter %d isn't set", i + 1));
+            }
+            size = append(size, fragments[i + 1]);
+        }
+        byteBuffer.clear();
+        byteBuffer.limit(size);
+        return byteBuffer;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 1 || index > types.length) {
+            throw new IndexOutOfBoundsException(String.format(
+                    "The parameter index %d is out of [1, %d]", index, types.length));
+        }
+        return index - 1;
+    }
+
+    private int append(int size, byte[] bytes) {
+        ensureCapacity(size, bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        return size + bytes.length;
+    }
+
+    private int appendLong(int size, long value) {
+        if (value == Long.MIN_VALUE) {
+            return append(size, minLongBytes);
+        }
+        ensureCapacity(size, 20);
+        int pos = size;
+        if (value < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    // Quote the string, and escape the quote, the backslash and the line breaks
+    private int appendString(int size, CharSequence value) {
+        int length = value.length();
+        ensureCapacity(size, length * 3 + 2);
+        byte[] buf = buffer;
+        int pos = size;
+        buf[pos++] = '"';
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            char escaped;
+            switch (c) {
+                case '"':
+                    escaped = '"';
+                    break;
+                case '\\':
+                    escaped = '\\';
+                    break;
+                case '\n':
+                    escaped = 'n';
+                    break;
+                case '\r':
+                    escaped = 'r';
+                    break;
+                case '\t':
+                    escaped = 't';
+                    break;
+                default:
+                    continue;
+            }
+            pos = RequestEncoder.encodeUtf8(value, start, i, buf, pos);
+            buf[pos++] = '\\';
+            buf[pos++] = (byte) escaped;
+            start = i + 1;
+        }
+        pos = RequestEncoder.encodeUtf8(value, start, length, buf, pos);
+        buf[pos++] = '"';
+        return pos;
+    }
+
+    private void ensureCapacity(int size, int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+            byteBuffer = ByteBuffer.wrap(buffer);
+        }
+    }
+
+    private static Template getTemplate(String template) {
+        synchronized (templates) {
+            Template parsed = templates.get(template);
+            if (parsed == null) {
+                parsed = parse(template);
+                templates.put(template, parsed);
+            }
+            return parsed;
+        }
+    }
+
+    // Split the template by the parameters out of the quotes and the comments
+    private static Template parse(String template) {
+        List<byte[]> fragments = new ArrayList<>();
+        int length = template.length();
+        int start = 0;
+        int i = 0;
+        while (i < length) {
+            char c = template.charAt(i);
+            if (c == '"' || c == '\'' || c == '`') {
+                i++;
+                while (i < length && template.charAt(i) != c) {
+                    i += template.charAt(i) == '\\' ? 2 : 1;
+                }
+                i++;
+            } else if (c == '#' || template.startsWith("//", i)
+                    || template.startsWith("--", i)) {
+                while (i < length && template.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && template.startsWith("/*", i)) {
+                int end = template.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '?') {
+                fragments.add(template.substring(start, i).getBytes(StandardCharsets.UTF_8));
+                start = ++i;
+            } else {
+                i++;
+            }
+        }
+        fragments.add(template.substring(start).getBytes(StandardCharsets.UTF_8));
+        return new Template(fragments.toArray(new byte[0][]));
+    }
+}
@@ -0,0 +1,76 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesce the concurrent identical read statements of the sessions of one pool,
+ * the first one is executed, and the others wait for its response instead of
+ * sending the same request. Each of them builds its own ResultSet over the shared
+ * response, so the rows of it shouldn't be changed.
+ * The waiter executes the statement itself if the shared one fails,
+ * so the error of one session, such as the invalid session, isn't shared.
+ */
+class ReadCoalescer {
+    private final Map<ResultCache.Key, CompletableFuture<ExecutionResponse>> inFlight =
+            new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    ExecutionResponse execute(ResultCache.Key key, ResultCache.Loader loader)
+            throws IOErrorException {
+        if (key.getKind() != ResultCache.Kind.READ) {
+            return loader.load();
+        }
+        CompletableFuture<ExecutionResponse> future = new CompletableFuture<>();
+        CompletableFuture<ExecutionResponse> shared = inFlight.putIfAbsent(key, future);
+        if (shared != null) {
+            ExecutionResponse resp = await(shared);
+            if (resp != null && resp.error_code == ErrorCode.SUCCEEDED) {
+                coalesced.increment();
+                return resp;
+            }
+            return loader.load();
+        }
+        ExecutionResponse resp = null;
+        try {
+            resp = loader.load();
+            return resp;
+        } finally {
+            inFlight.remove(key, future);
+            future.complete(resp);
+        }
+    }
+
+    /**
+     * @return The number of the statements answered by the response of another one.
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    // Null if the shared request failed without the response
+    private static ExecutionResponse await(CompletableFuture<ExecutionResponse> shared)
+            throws IOErrorException {
+        try {
+            return shared.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOErrorException(IOErrorException.E_UNKNOWN,
+                    "Interrupted while waiting for the same statement");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+}
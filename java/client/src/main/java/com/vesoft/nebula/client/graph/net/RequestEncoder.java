@@ -0,0 +1,216 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.facebook.thrift.TBase;
+import com.facebook.thrift.TException;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.protocol.TField;
+import com.facebook.thrift.protocol.TMessage;
+import com.facebook.thrift.protocol.TMessageType;
+import com.facebook.thrift.protocol.TProtocol;
+import com.facebook.thrift.protocol.TStruct;
+import com.facebook.thrift.protocol.TType;
+import com.facebook.thrift.transport.TTransport;
+import com.facebook.thrift.transport.TTransportException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encode the execute request in the compact protocol into a buffer reused by
+ * the requests of one connection. The statement is encoded in UTF-8 into
+ * the buffer directly, and the whole request is written to the socket at once.
+ * It isn't thread safe.
+ */
+class RequestEncoder extends TTransport {
+    private static final int initialSize = 4096;
+    // The buffer larger than it is dropped after the request
+    private static final int maxRetainedSize = 1024 * 1024;
+    private static final TStruct executeArgs = new TStruct("execute_args");
+    private static final TField sessionIdField = new TField("sessionId", TType.I64, (short) 1);
+    private static final TField stmtField = new TField("stmt", TType.STRING, (short) 2);
+    private final TProtocol protocol = new TCompactProtocol(this);
+    private byte[] buffer = new byte[initialSize];
+    private int size = 0;
+
+    /**
+     * Encode the statement in UTF-8, the unpaired surrogate is encoded as '?'
+     * like String.getBytes.
+     */
+    void encodeExecute(int seqId, long sessionID, CharSequence stmt) throws TException {
+        writeExecuteBegin(seqId, sessionID);
+        int length = utf8Length(stmt);
+        writeVarint32(length);
+        ensureCapacity(length);
+        size = encodeUtf8(stmt, 0, stmt.length(), buffer, size);
+        writeExecuteEnd();
+    }
+
+    /**
+     * @param stmt The statement encoded in UTF-8, its position isn't changed.
+     */
+    void encodeExecute(int seqId, long sessionID, ByteBuffer stmt) throws TException {
+        writeExecuteBegin(seqId, sessionID);
+        int length = stmt.remaining();
+        writeVarint32(length);
+        ensureCapacity(length);
+        stmt.duplicate().get(buffer, size, length);
+        size += length;
+        writeExecuteEnd();
+    }
+
+    /**
+     * Encode the request of the other methods.
+     */
+    void encodeCall(TMessage message, TBase args) throws TException {
+        size = 0;
+        protocol.writeMessageBegin(message);
+        args.write(protocol);
+        protocol.writeMessageEnd();
+    }
+
+    /**
+     * @return The size of the encoded request.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Write the encoded request to the transport and flush it.
+     *
+     * @return The size of the request.
+     */
+    int writeTo(TTransport transport) throws TTransportException {
+        try {
+            transport.write(buffer, 0, size);
+            transport.flush();
+            return size;
+        } finally {
+            size = 0;
+            if (buffer.length > maxRetainedSize) {
+                buffer = new byte[initialSize];
+            }
+        }
+    }
+
+    private void writeExecuteBegin(int seqId, long sessionID) throws TException {
+        size = 0;
+        protocol.writeMessageBegin(new TMessage("execute", TMessageType.CALL, seqId));
+        protocol.writeStructBegin(executeArgs);
+        protocol.writeFieldBegin(sessionIdField);
+        protocol.writeI64(sessionID);
+        protocol.writeFieldEnd();
+        protocol.writeFieldBegin(stmtField);
+    }
+
+    private void writeExecuteEnd() throws TException {
+        protocol.writeFieldEnd();
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+        protocol.writeMessageEnd();
+    }
+
+    // The same as the length prefix of the binary in the compact protocol
+    private void writeVarint32(int n) {
+        ensureCapacity(5);
+        while ((n & ~0x7F) != 0) {
+            buffer[size++] = (byte) ((n & 0x7F) | 0x80);
+            n >>>= 7;
+        }
+        buffer[size++] = (byte) n;
+    }
+
+    static int utf8Length(CharSequence s) {
+        int length = s.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                bytes += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                // 4 bytes for 2 chars
+                bytes += 2;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // '?'
+                continue;
+            } else {
+                bytes += 2;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Encode the chars in [start, end) into buf from pos, buf should have 3 bytes for each char.
+     *
+     * @return The position after the encoded bytes.
+     */
+    static int encodeUtf8(CharSequence s, int start, int end, byte[] buf, int pos) {
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xC0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[pos++] = (byte) (0xF0 | (cp >> 18));
+                buf[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[pos++] = (byte) '?';
+            } else {
+                buf[pos++] = (byte) (0xE0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return pos;
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + length)];
+            System.arraycopy(buffer, 0, newBuffer, 0, size);
+            buffer = newBuffer;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public void open() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws TTransportException {
+        throw new TTransportException(TTransportException.UNKNOWN,
+                "The request encoder can't be read");
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(buf, off, buffer, size, len);
+        size += len;
+    }
+}
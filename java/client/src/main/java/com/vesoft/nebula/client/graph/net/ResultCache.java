@@ -0,0 +1,591 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.facebook.thrift.TException;
+import com.facebook.thrift.TSerializer;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.transport.TMemoryInputTransport;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The cache of the results of the read statements GO, FETCH and LOOKUP,
+ * shared by the sessions of one pool. The statements calling the functions whose
+ * results change by each call, such as now() and rand(), aren't cached.
+ * The result is keyed by the space and the statement in UTF-8, and kept in
+ * the compact protocol, so each hit decodes a new response.
+ * The results of a space are dropped when a session writes the space, and all results
+ * are dropped when a session executes the schema or the other statements,
+ * the writes of the other clients are seen after the TTL of the results.
+ * The size of the results is bounded by W-TinyLFU: the new results go into a small
+ * LRU window, and the result leaving the window replaces the least recently used one
+ * of the main LRU only if it's used more often than all the entries it replaces,
+ * which is counted by a frequency sketch.
+ */
+public class ResultCache {
+    // The share of the window in the size of the cache, unit: percent
+    private static final int windowPercent = 1;
+    // The memory of one entry besides the statement and the result, unit: byte
+    private static final int entryOverhead = 64;
+    private static final TCompactProtocol.Factory protocolFactory =
+            new TCompactProtocol.Factory();
+    private static final ThreadLocal<Decoder> decoders = ThreadLocal.withInitial(Decoder::new);
+    private static final Map<String, Kind> keywords = new HashMap<>();
+    // The sentences after a pipe which only change the results of the read before it
+    private static final Set<String> pipeKeywords = new HashSet<>(
+            Arrays.asList("YIELD", "ORDER", "LIMIT", "GROUP"));
+    // The functions whose results change by each call, in lower case
+    private static final Set<String> volatileFunctions = new HashSet<>(Arrays.asList(
+            "now", "rand", "rand32", "rand64", "uuid", "timestamp", "date", "time",
+            "datetime"));
+
+    private final long maxBytes;
+    private final long windowMaxBytes;
+    private final long ttl;
+    private final Map<Key, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Key, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long windowBytes = 0;
+    private long mainBytes = 0;
+    // The versions are bumped by the writes, the results of the older versions are stale
+    private final AtomicLong globalVersion = new AtomicLong(0);
+    private final Map<String, AtomicLong> spaceVersions = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    static {
+        addKeywords(Kind.READ, "GO", "FETCH", "LOOKUP");
+        // MATCH and RETURN may compute anything, such as rand(), so they aren't cached
+        addKeywords(Kind.OTHER, "USE", "SHOW", "DESCRIBE", "DESC", "EXPLAIN",
+                "MATCH", "FIND", "GET", "YIELD", "ORDER", "LIMIT", "GROUP", "RETURN");
+        addKeywords(Kind.SPACE_WRITE, "INSERT", "UPDATE", "UPSERT", "DELETE");
+    }
+
+    // The kinds of the statements, the later one wins in a statement of many sentences
+    enum Kind {
+        // The result is cached
+        READ,
+        // The result isn't cached, and the cache isn't changed
+        OTHER,
+        // The results of the space are dropped
+        SPACE_WRITE,
+        // All results are dropped
+        WRITE
+    }
+
+    /**
+     * The user, the space and the statement in UTF-8, the sessions of the different users
+     * don't share the results.
+     */
+    static class Key {
+        private final String user;
+        private final String space;
+        private final byte[] stmt;
+        private final int hash;
+        private final Kind kind;
+
+        Key(String user, String space, byte[] stmt) {
+            this.user = user == null ? "" : user;
+            this.space = space == null ? "" : space;
+            this.stmt = stmt;
+            this.hash = 31 * (31 * this.user.hashCode() + this.space.hashCode())
+                    + Arrays.hashCode(stmt);
+            this.kind = classify(stmt);
+        }
+
+        /**
+         * Only one of stmt and bytes is set, the position of bytes isn't changed.
+         */
+        static Key of(String user, String space, CharSequence stmt, ByteBuffer bytes) {
+            byte[] encoded;
+            if (bytes != null) {
+                encoded = new byte[bytes.remaining()];
+                bytes.duplicate().get(encoded);
+            } else {
+                encoded = new byte[RequestEncoder.utf8Length(stmt)];
+                RequestEncoder.encodeUtf8(stmt, 0, stmt.length(), encoded, 0);
+            }
+            return new Key(user, space, encoded);
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hash == that.hash && user.equals(that.user) && space.equals(that.space)
+                    && Arrays.equals(stmt, that.stmt);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Execute the statement on a miss of the cache.
+     */
+    interface Loader {
+        ExecutionResponse load() throws IOErrorException;
+    }
+
+    private static class Entry {
+        private final Key key;
+        private final byte[] value;
+        private final long version;
+        private final long expireTime;
+        private final int size;
+
+        Entry(Key key, byte[] value, long version, long expireTime) {
+            this.key = key;
+            this.value = value;
+            this.version = version;
+            this.expireTime = expireTime;
+            this.size = key.stmt.length + value.length + entryOverhead;
+        }
+    }
+
+    private static class Decoder {
+        private final TMemoryInputTransport transport = new TMemoryInputTransport();
+        private final TCompactProtocol protocol = new TCompactProtocol(transport);
+    }
+
+    /**
+     * @param maxBytes The max size of the statements and the results kept, unit: byte.
+     * @param ttl The time to keep the results, unit: millisecond.
+     */
+    public ResultCache(long maxBytes, long ttl) {
+        if (maxBytes <= 0 || ttl <= 0) {
+            throw new IllegalArgumentException("The size and the ttl of the cache should be > 0");
+        }
+        this.maxBytes = maxBytes;
+        this.windowMaxBytes = maxBytes * windowPercent / 100;
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.sketch = new FrequencySketch(maxBytes);
+    }
+
+    /**
+     * Return the cached result of the read statement, or load it and cache it
+     * if it succeeds. The other statements are loaded and drop the results they change.
+     */
+    ExecutionResponse execute(Key key, Loader loader) throws IOErrorException {
+        Kind kind = key.kind;
+        if (kind == Kind.OTHER) {
+            return loader.load();
+        }
+        if (kind != Kind.READ) {
+            try {
+                return loader.load();
+            } finally {
+                if (kind == Kind.SPACE_WRITE) {
+                    invalidate(key.space);
+                } else {
+                    invalidateAll();
+                }
+            }
+        }
+        // The version is got before the execution, so the result read before
+        // a concurrent write is stale once the write finishes
+        long version = versionOf(key.space);
+        ExecutionResponse resp = get(key, version);
+        if (resp != null) {
+            hits.increment();
+            return resp;
+        }
+        misses.increment();
+        resp = loader.load();
+        if (resp.error_code == ErrorCode.SUCCEEDED) {
+            put(key, resp, version);
+        }
+        return resp;
+    }
+
+    /**
+     * Drop the results of the space.
+     */
+    public void invalidate(String space) {
+        spaceVersions.computeIfAbsent(space == null ? "" : space, s -> new AtomicLong(0))
+                .incrementAndGet();
+    }
+
+    /**
+     * Drop all results.
+     */
+    public void invalidateAll() {
+        globalVersion.incrementAndGet();
+        synchronized (this) {
+            window.clear();
+            main.clear();
+            windowBytes = 0;
+            mainBytes = 0;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of the results kept, including the stale ones not dropped yet.
+     */
+    public synchronized int getEntryCount() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * @return The size of the statements and the results kept, unit: byte.
+     */
+    public synchronized long getSize() {
+        return windowBytes + mainBytes;
+    }
+
+    private long versionOf(String space) {
+        AtomicLong spaceVersion = spaceVersions.get(space);
+        // Both versions only grow, so the sum changes when either of them changes
+        return globalVersion.get() + (spaceVersion == null ? 0 : spaceVersion.get());
+    }
+
+    private ExecutionResponse get(Key key, long version) {
+        Entry entry;
+        synchronized (this) {
+            sketch.increment(key.hash);
+            entry = window.get(key);
+            if (entry == null) {
+                entry = main.get(key);
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (!isValid(entry, version, System.nanoTime())) {
+                remove(entry);
+                return null;
+            }
+        }
+        return decode(entry.value);
+    }
+
+    private void put(Key key, ExecutionResponse resp, long version) {
+        byte[] value;
+        try {
+            value = new TSerializer(protocolFactory).serialize(resp);
+        } catch (TException e) {
+            return;
+        }
+        Entry entry = new Entry(key, value, version, System.nanoTime() + ttl);
+        if (entry.size > maxBytes - windowMaxBytes) {
+            return;
+        }
+        synchronized (this) {
+            Entry old = window.remove(key);
+            if (old == null) {
+                old = main.remove(key);
+                if (old != null) {
+                    mainBytes -= old.size;
+                }
+            } else {
+                windowBytes -= old.size;
+            }
+            window.put(key, entry);
+            windowBytes += entry.size;
+            Iterator<Entry> it = window.values().iterator();
+            while (windowBytes > windowMaxBytes && it.hasNext()) {
+                Entry candidate = it.next();
+                it.remove();
+                windowBytes -= candidate.size;
+                admit(candidate);
+            }
+        }
+    }
+
+    // Move the entry leaving the window into the main LRU if it's used more often
+    // than all the entries it replaces, they are removed only if it's admitted.
+    // The stale entries are removed at once.
+    private void admit(Entry candidate) {
+        long mainMaxBytes = maxBytes - windowMaxBytes;
+        long now = System.nanoTime();
+        if (!isValid(candidate, versionOf(candidate.key.space), now)) {
+            return;
+        }
+        int frequency = sketch.frequency(candidate.key.hash);
+        List<Entry> victims = new ArrayList<>();
+        long freedBytes = 0;
+        Iterator<Entry> it = main.values().iterator();
+        while (mainBytes - freedBytes + candidate.size > mainMaxBytes && it.hasNext()) {
+            Entry victim = it.next();
+            if (!isValid(victim, versionOf(victim.key.space), now)) {
+                it.remove();
+                mainBytes -= victim.size;
+                continue;
+            }
+            if (sketch.frequency(victim.key.hash) >= frequency) {
+                return;
+            }
+            victims.add(victim);
+            freedBytes += victim.size;
+        }
+        for (Entry victim : victims) {
+            main.remove(victim.key);
+            mainBytes -= victim.size;
+        }
+        main.put(candidate.key, candidate);
+        mainBytes += candidate.size;
+    }
+
+    private void remove(Entry entry) {
+        if (window.remove(entry.key) != null) {
+            windowBytes -= entry.size;
+        } else if (main.remove(entry.key) != null) {
+            mainBytes -= entry.size;
+        }
+    }
+
+    private static boolean isValid(Entry entry, long version, long now) {
+        return entry.version == version && now - entry.expireTime < 0;
+    }
+
+    private static ExecutionResponse decode(byte[] value) {
+        Decoder decoder = decoders.get();
+        decoder.transport.reset(value);
+        decoder.protocol.reset();
+        ExecutionResponse resp = new ExecutionResponse();
+        try {
+            resp.read(decoder.protocol);
+            return resp;
+        } catch (TException e) {
+            // The cache only keeps the responses it encoded, so it should not happen
+            throw new IllegalStateException("Decode the cached result failed", e);
+        }
+    }
+
+    /**
+     * Classify the statement by the first keyword of each sentence split by ';' and '|'.
+     * The statement isn't cached if any sentence isn't a read or it calls a volatile
+     * function, it drops all results if any sentence is unknown, or it writes after
+     * switching the space.
+     */
+    static Kind classify(byte[] stmt) {
+        Kind kind = Kind.READ;
+        boolean useSpace = false;
+        int length = stmt.length;
+        int i = 0;
+        while (i <= length) {
+            boolean piped = i > 0 && stmt[i - 1] == '|';
+            // The start of a sentence
+            while (i < length && (isSpace(stmt[i]) || stmt[i] == '(')) {
+                i++;
+            }
+            if (i < length && stmt[i] == '$') {
+                // The assignment to a variable
+                while (i < length && stmt[i] != '=') {
+                    i++;
+                }
+                i++;
+                while (i < length && (isSpace(stmt[i]) || stmt[i] == '(')) {
+                    i++;
+                }
+            }
+            int start = i;
+            while (i < length && isLetter(stmt[i])) {
+                i++;
+            }
+            if (i > start) {
+                String word = new String(stmt, start, i - start, StandardCharsets.US_ASCII)
+                        .toUpperCase();
+                Kind sentence = piped && pipeKeywords.contains(word)
+                        ? Kind.READ : keywords.getOrDefault(word, Kind.WRITE);
+                useSpace |= word.equals("USE");
+                if (sentence == Kind.SPACE_WRITE && useSpace) {
+                    sentence = Kind.WRITE;
+                }
+                if (sentence.compareTo(kind) > 0) {
+                    kind = sentence;
+                }
+            } else if (i < length && stmt[i] != ';' && stmt[i] != '|') {
+                return Kind.WRITE;
+            }
+            i = nextSentence(stmt, i);
+        }
+        if (kind == Kind.READ && callsVolatileFunction(stmt)) {
+            return Kind.OTHER;
+        }
+        return kind;
+    }
+
+    // Skip to the start of the next sentence, out of the quotes and the comments
+    private static int nextSentence(byte[] stmt, int i) {
+        int length = stmt.length;
+        while (i < length) {
+            int skipped = skipQuoteOrComment(stmt, i);
+            if (skipped > i) {
+                i = skipped;
+            } else if (stmt[i] == ';' || stmt[i] == '|') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return length + 1;
+    }
+
+    // Whether a name out of the quotes and the comments is a volatile function called
+    private static boolean callsVolatileFunction(byte[] stmt) {
+        int length = stmt.length;
+        int i = 0;
+        while (i < length) {
+            int skipped = skipQuoteOrComment(stmt, i);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            if (!isLetter(stmt[i])) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && (isLetter(stmt[i]) || (stmt[i] >= '0' && stmt[i] <= '9'))) {
+                i++;
+            }
+            int end = i;
+            while (i < length && isSpace(stmt[i])) {
+                i++;
+            }
+            if (i < length && stmt[i] == '(' && volatileFunctions.contains(
+                    new String(stmt, start, end - start, StandardCharsets.US_ASCII)
+                            .toLowerCase())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The position after the quote or the comment at i, or i if there is neither
+    private static int skipQuoteOrComment(byte[] stmt, int i) {
+        int length = stmt.length;
+        byte c = stmt[i];
+        if (c == '"' || c == '\'' || c == '`') {
+            i++;
+            while (i < length && stmt[i] != c) {
+                i += stmt[i] == '\\' ? 2 : 1;
+            }
+            return i + 1;
+        }
+        if (c == '#' || ((c == '/' || c == '-') && i + 1 < length && stmt[i + 1] == c)) {
+            while (i < length && stmt[i] != '\n') {
+                i++;
+            }
+            return i;
+        }
+        if (c == '/' && i + 1 < length && stmt[i + 1] == '*') {
+            i += 2;
+            while (i < length && !(stmt[i] == '*' && i + 1 < length && stmt[i + 1] == '/')) {
+                i++;
+            }
+            return i + 2;
+        }
+        return i;
+    }
+
+    private static void addKeywords(Kind kind, String... words) {
+        for (String word : words) {
+            keywords.put(word, kind);
+        }
+    }
+
+    private static boolean isSpace(byte c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private static boolean isLetter(byte c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    /**
+     * The count-min sketch of the frequencies of the keys with 4-bit counters,
+     * the counters are halved after a number of increments, so the old frequencies fade.
+     * It's guarded by the lock of the cache.
+     */
+    static class FrequencySketch {
+        private static final int maxCount = 15;
+        private static final int minSize = 256;
+        private static final int maxSize = 1 << 24;
+        // The estimated size of one entry to size the sketch, unit: byte
+        private static final int estimatedEntrySize = 1024;
+        private static final int[] seeds = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+        private final byte[] counters;
+        private final int mask;
+        private final int sampleSize;
+        private int additions = 0;
+
+        FrequencySketch(long maxBytes) {
+            long entries = Math.min(maxSize, Math.max(minSize, maxBytes / estimatedEntrySize));
+            int size = Integer.highestOneBit((int) entries - 1) << 1;
+            this.counters = new byte[size];
+            this.mask = size - 1;
+            this.sampleSize = size * 10;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int seed : seeds) {
+                int index = indexOf(hash, seed);
+                if (counters[index] < maxCount) {
+                    counters[index]++;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < counters.length; i++) {
+                    counters[i] >>= 1;
+                }
+                additions /= 2;
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = maxCount;
+            for (int seed : seeds) {
+                frequency = Math.min(frequency, counters[indexOf(hash, seed)]);
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int seed) {
+            int h = (hash + seed) * seed;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -1,87 +1,171 @@
 package com.vesoft.nebula.client.graph.net;
 
 import com.vesoft.nebula.client.graph.data.HostAddress;
-import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
-
+/**
+ * Pick the healthy servers in turn. The healthy servers are kept in an array
+ * which is never changed, each health check builds a new array and replaces
+ * the old one, so getAddress reads it without any lock.
+ * The servers are probed in parallel, and each probe is bounded by the timeout.
+ * They are checked every checkInterval, and at once when a request fails without
+ * the response, so the broken server is skipped without waiting for the next check.
+ */
 public class RoundRobinLoadBalancer implements LoadBalancer {
-    private static final int S_OK = 0;
-    private static final int S_BAD = 1;
+    // The interval of the health check, unit: millisecond
+    public static final int DEFAULT_CHECK_INTERVAL = 5000;
+    // The bound of the probe when the timeout is 0, unit: millisecond
+    private static final int DEFAULT_PROBE_TIMEOUT = 3000;
     private final List<HostAddress> addresses = new ArrayList<>();
-    private final Map<HostAddress, Integer> serversStatus = new HashMap<>();
-    private final int timeout;
+    private volatile HostAddress[] healthyAddresses = new HostAddress[0];
+    private final int probeTimeout;
     private final AtomicInteger pos = new AtomicInteger(0);
-    private final int delayTime = 60;  // unit seconds
-    private final ScheduledExecutorService schedule = Executors.newScheduledThreadPool(1);
+    private final ScheduledExecutorService schedule;
+    private final ExecutorService probeExecutor;
+    // Whether the check requested by the failed request hasn't run yet
+    private final AtomicBoolean checkPending = new AtomicBoolean(false);
 
     public RoundRobinLoadBalancer(List<HostAddress> addresses, int timeout) {
-        this.timeout = timeout;
-        for (HostAddress addr : addresses) {
-            this.addresses.add(addr);
-            this.serversStatus.put(addr, S_BAD);
+        this(addresses, timeout, DEFAULT_CHECK_INTERVAL);
+    }
+
+    /**
+     * @param addresses The graph servers.
+     * @param timeout The timeout of the health check, unit: millisecond.
+     * @param checkInterval The interval of the health check, unit: millisecond.
+     */
+    public RoundRobinLoadBalancer(List<HostAddress> addresses, int timeout, int checkInterval) {
+        if (checkInterval <= 0) {
+            throw new IllegalArgumentException("The check interval should be > 0");
         }
-        schedule.scheduleAtFixedRate(this::scheduleTask, 0, delayTime, TimeUnit.SECONDS);
+        this.probeTimeout = timeout > 0 ? timeout : DEFAULT_PROBE_TIMEOUT;
+        this.addresses.addAll(addresses);
+        this.schedule = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "RoundRobinLoadBalancer-schedule");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.probeExecutor = Executors.newFixedThreadPool(Math.max(1, addresses.size()), r -> {
+            Thread thread = new Thread(r, "RoundRobinLoadBalancer-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schedule.scheduleWithFixedDelay(this::scheduleTask, 0, checkInterval,
+                TimeUnit.MILLISECONDS);
     }
 
     public void close() {
         schedule.shutdownNow();
+        probeExecutor.shutdownNow();
     }
 
     @Override
     public HostAddress getAddress() {
-        // TODO: update the server connection num into load balancer
-        int tryCount = 0;
-        int newPos;
-        while (++tryCount <= addresses.size()) {
-            newPos = (pos.getAndIncrement()) % addresses.size();
-            HostAddress addr = addresses.get(newPos);
-            if (serversStatus.get(addr) == S_OK) {
-                return addr;
-            }
+        HostAddress[] healthy = healthyAddresses;
+        if (healthy.length == 0) {
+            return null;
+        }
+        return healthy[nextIndex(healthy.length)];
+    }
+
+    /**
+     * @return The snapshot of the healthy servers, it must not be changed.
+     */
+    protected HostAddress[] getHealthyAddresses() {
+        return healthyAddresses;
+    }
+
+    /**
+     * @return The next position of the round robin.
+     */
+    protected int nextIndex(int size) {
+        return Math.floorMod(pos.getAndIncrement(), size);
+    }
+
+    /**
+     * The request failed without the response, the servers are checked at once.
+     */
+    @Override
+    public void requestFinished(HostAddress address, long latencyInUs) {
+        if (latencyInUs < 0) {
+            requestCheck();
         }
-        return null;
     }
 
-    public void updateServersStatus() {
+    public synchronized void updateServersStatus() {
+        List<Future<Boolean>> probes = new ArrayList<>(addresses.size());
         for (HostAddress addr : addresses) {
-            if (ping(addr)) {
-                serversStatus.put(addr, S_OK);
-            } else {
-                serversStatus.put(addr, S_BAD);
+            probes.add(probeExecutor.submit(() -> ping(addr)));
+        }
+        List<HostAddress> healthy = new ArrayList<>(addresses.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(probeTimeout);
+        for (int i = 0; i < addresses.size(); i++) {
+            if (isProbeOK(probes.get(i), deadline)) {
+                healthy.add(addresses.get(i));
             }
         }
+        healthyAddresses = healthy.toArray(new HostAddress[0]);
     }
 
     public boolean ping(HostAddress addr) {
-        try {
-            Connection connection = new SyncConnection();
-            connection.open(addr, this.timeout);
-            connection.close();
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(addr.getHost(), addr.getPort()), probeTimeout);
             return true;
-        } catch (IOErrorException e) {
+        } catch (IOException e) {
             return false;
         }
     }
 
     public boolean isServersOK() {
         this.updateServersStatus();
-        for (HostAddress addr : addresses) {
-            if (serversStatus.get(addr) == S_BAD) {
-                return false;
-            }
+        return healthyAddresses.length == addresses.size();
+    }
+
+    private boolean isProbeOK(Future<Boolean> probe, long deadline) {
+        try {
+            long waitTime = Math.max(0, deadline - System.nanoTime());
+            return probe.get(waitTime, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            probe.cancel(true);
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            probe.cancel(true);
+            return false;
         }
-        return true;
     }
 
     private void scheduleTask() {
         updateServersStatus();
     }
+
+    // The checks requested before it runs are done by it once
+    private void requestCheck() {
+        if (!checkPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            schedule.execute(() -> {
+                checkPending.set(false);
+                updateServersStatus();
+            });
+        } catch (RejectedExecutionException e) {
+            // The load balancer is closed
+            checkPending.set(false);
+        }
+    }
 }
@@ -6,9 +6,17 @@
 
 package com.vesoft.nebula.client.graph.net;
 
+import com.facebook.thrift.async.TAsyncClientManager;
+import com.vesoft.nebula.client.graph.data.HostAddress;
 import com.vesoft.nebula.client.graph.data.ResultSet;
 import com.vesoft.nebula.client.graph.exception.IOErrorException;
 import com.vesoft.nebula.graph.ExecutionResponse;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,18 +24,106 @@ import org.slf4j.LoggerFactory;
 public class Session {
     private final long sessionID;
     private SyncConnection connection;
-    private final GenericObjectPool<SyncConnection> pool;
+    private final HostConnectionPool pool;
+    // The unkeyed pool of the deprecated constructors, at most one of the pools is set
+    private final GenericObjectPool<SyncConnection> legacyPool;
     private final Boolean retryConnect;
+    private final TAsyncClientManager asyncManager;
+    private final LoadBalancer loadBalancer;
+    private AsyncConnection asyncConnection = null;
+    // the wait time to get the connection when reconnecting, unit ms
+    private final int reconnectWaitTime = 60 * 1000;
+    // The space used by the last request
+    private volatile String spaceName = null;
+    // Whether the last request failed without the response
+    private volatile boolean broken = false;
+    // The user of the session, the results of the reads are shared by the sessions of it
+    private String userName = null;
+    // The cache of the results of the read statements shared by the sessions of the pool
+    private ResultCache resultCache = null;
+    // Coalesce the same read statements of the sessions of the pool in flight
+    private ReadCoalescer readCoalescer = null;
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    public Session(SyncConnection connection,
+                   long sessionID,
+                   HostConnectionPool connPool,
+                   Boolean retryConnect) {
+        this(connection, sessionID, connPool, retryConnect, null);
+    }
+
+    public Session(SyncConnection connection,
+                   long sessionID,
+                   HostConnectionPool connPool,
+                   Boolean retryConnect,
+                   TAsyncClientManager asyncManager) {
+        this(connection, sessionID, connPool, retryConnect, asyncManager, null);
+    }
+
+    public Session(SyncConnection connection,
+                   long sessionID,
+                   HostConnectionPool connPool,
+                   Boolean retryConnect,
+                   TAsyncClientManager asyncManager,
+                   LoadBalancer loadBalancer) {
+        this(connection, sessionID, connPool, null, retryConnect, asyncManager, loadBalancer);
+    }
+
+    /**
+     * @deprecated The connections are pooled by server, use
+     *     {@link #Session(SyncConnection, long, HostConnectionPool, Boolean)}.
+     */
+    @Deprecated
     public Session(SyncConnection connection,
                    long sessionID,
                    GenericObjectPool<SyncConnection> connPool,
                    Boolean retryConnect) {
+        this(connection, sessionID, connPool, retryConnect, null);
+    }
+
+    /**
+     * @deprecated The connections are pooled by server, use
+     *     {@link #Session(SyncConnection, long, HostConnectionPool, Boolean,
+     *     TAsyncClientManager)}.
+     */
+    @Deprecated
+    public Session(SyncConnection connection,
+                   long sessionID,
+                   GenericObjectPool<SyncConnection> connPool,
+                   Boolean retryConnect,
+                   TAsyncClientManager asyncManager) {
+        this(connection, sessionID, connPool, retryConnect, asyncManager, null);
+    }
+
+    /**
+     * @deprecated The connections are pooled by server, use
+     *     {@link #Session(SyncConnection, long, HostConnectionPool, Boolean,
+     *     TAsyncClientManager, LoadBalancer)}.
+     */
+    @Deprecated
+    public Session(SyncConnection connection,
+                   long sessionID,
+                   GenericObjectPool<SyncConnection> connPool,
+                   Boolean retryConnect,
+                   TAsyncClientManager asyncManager,
+                   LoadBalancer loadBalancer) {
+        this(connection, sessionID, null, connPool, retryConnect, asyncManager, loadBalancer);
+    }
+
+    private Session(SyncConnection connection,
+                    long sessionID,
+                    HostConnectionPool connPool,
+                    GenericObjectPool<SyncConnection> legacyPool,
+                    Boolean retryConnect,
+                    TAsyncClientManager asyncManager,
+                    LoadBalancer loadBalancer) {
         this.connection = connection;
         this.sessionID = sessionID;
         this.pool = connPool;
+        this.legacyPool = legacyPool;
         this.retryConnect = retryConnect;
+        this.asyncManager = asyncManager;
+        this.loadBalancer = loadBalancer;
     }
 
     /**
@@ -37,23 +133,69 @@ public class Session {
      * @return The ResultSet.
      */
     public ResultSet execute(String stmt) throws IOErrorException {
+        return execute((CharSequence) stmt);
+    }
+
+    /**
+     * Execute the query sentence, it's encoded in UTF-8 into the buffer of the connection
+     * directly, so the statement built in a StringBuilder isn't copied to a String.
+     *
+     * @param stmt The query sentence.
+     * @return The ResultSet.
+     */
+    public ResultSet execute(CharSequence stmt) throws IOErrorException {
+        return execute(stmt, null);
+    }
+
+    /**
+     * Execute the query sentence encoded in UTF-8.
+     *
+     * @param stmt The query sentence, the position of it isn't changed.
+     * @return The ResultSet.
+     */
+    public ResultSet execute(ByteBuffer stmt) throws IOErrorException {
+        return execute(null, stmt);
+    }
+
+    // Only one of stmt and bytes is set
+    private ResultSet execute(CharSequence stmt, ByteBuffer bytes) throws IOErrorException {
+        if (resultCache == null && readCoalescer == null) {
+            return new ResultSet(executeWithRetry(stmt, bytes));
+        }
+        ResultCache.Key key = ResultCache.Key.of(userName, spaceName, stmt, bytes);
+        ResultCache.Loader loader = () -> executeWithRetry(stmt, bytes);
+        if (readCoalescer != null) {
+            ResultCache.Loader execution = loader;
+            loader = () -> readCoalescer.execute(key, execution);
+        }
+        ExecutionResponse resp = resultCache == null
+                ? loader.load() : resultCache.execute(key, loader);
+        return new ResultSet(resp);
+    }
+
+    /**
+     * Execute the query sentence on the server always, the result cache and the coalescer
+     * of the pool are bypassed, such as the statement keeping the session alive.
+     */
+    ResultSet executeWithoutCache(String stmt) throws IOErrorException {
+        return new ResultSet(executeWithRetry(stmt, null));
+    }
+
+    private ExecutionResponse executeWithRetry(CharSequence stmt, ByteBuffer bytes)
+            throws IOErrorException {
         try {
             if (connection == null) {
                 throw new IOErrorException(IOErrorException.E_CONNECT_BROKEN,
                         "Connection is null");
             }
-            ExecutionResponse resp = connection.execute(sessionID, stmt);
-            return new ResultSet(resp);
+            return executeOnConnection(stmt, bytes);
         } catch (IOErrorException ie) {
             if (ie.getType() == IOErrorException.E_CONNECT_BROKEN) {
-                if (pool.getFactory() instanceof ConnObjectPool) {
-                    ((ConnObjectPool) pool.getFactory()).updateServerStatus();
-                }
+                updateServerStatus();
 
                 if (retryConnect) {
                     if (retryConnect()) {
-                        ExecutionResponse resp = connection.execute(sessionID, stmt);
-                        return new ResultSet(resp);
+                        return executeOnConnection(stmt, bytes);
                     } else {
                         throw new IOErrorException(IOErrorException.E_ALL_BROKEN,
                                 "All servers are broken.");
@@ -64,14 +206,162 @@ public class Session {
         }
     }
 
+    /**
+     * Prepare the query sentence with the parameters, the statement is executed
+     * by this session.
+     *
+     * @param template The query sentence, each '?' in it is a parameter.
+     * @return The PreparedStatement.
+     */
+    public PreparedStatement prepare(String template) {
+        return new PreparedStatement(this, template);
+    }
+
+    /**
+     * Execute the query sentence, and hand each record to the consumer as soon as it is
+     * decoded, so the memory holds one row instead of the whole result.
+     * The session doesn't retry when the connection is broken, because some records
+     * may have been consumed.
+     *
+     * @param stmt The query sentence.
+     * @param consumer The consumer of the records.
+     * @return The ResultSet with the error code, the error message and the column names,
+     *     the records of it are empty.
+     */
+    public ResultSet executeStreaming(String stmt, Consumer<ResultSet.Record> consumer)
+            throws IOErrorException {
+        if (connection == null) {
+            throw new IOErrorException(IOErrorException.E_CONNECT_BROKEN,
+                    "Connection is null");
+        }
+        try {
+            Map<List<String>, Map<String, Integer>> columnIndexes = new IdentityHashMap<>();
+            HostAddress address = connection.getServerAddress();
+            requestStarted(address);
+            ExecutionResponse resp = null;
+            try {
+                resp = connection.executeStreaming(sessionID, stmt,
+                    (columnNames, row) -> consumer.accept(new ResultSet.Record(columnNames,
+                        columnIndexes.computeIfAbsent(columnNames, ResultSet::indexColumns),
+                        row)));
+            } finally {
+                requestFinished(address, resp);
+            }
+            return new ResultSet(resp);
+        } catch (IOErrorException ie) {
+            if (ie.getType() == IOErrorException.E_CONNECT_BROKEN) {
+                updateServerStatus();
+            }
+            throw ie;
+        }
+    }
+
+    /**
+     * Execute the query sentence asynchronously, the request is sent by a non-blocking
+     * connection to the same graph server of the session, which is opened at the first call.
+     * The requests of one session are sent in order, one at a time.
+     *
+     * @param stmt The query sentence.
+     * @return The future of the ResultSet, the callbacks of it run in the selector thread.
+     */
+    public CompletableFuture<ResultSet> executeAsync(String stmt) {
+        if (connection instanceof MultiplexedConnection) {
+            HostAddress address = connection.getServerAddress();
+            requestStarted(address);
+            return ((MultiplexedConnection) connection).executeAsync(sessionID, stmt)
+                    .whenComplete((resp, e) -> requestFinished(address, resp))
+                    .thenApply(ResultSet::new);
+        }
+        AsyncConnection conn;
+        try {
+            conn = getAsyncConnection();
+        } catch (IOErrorException e) {
+            CompletableFuture<ResultSet> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        HostAddress address = conn.getServerAddress();
+        requestStarted(address);
+        return conn.execute(sessionID, stmt)
+                .whenComplete((resp, e) -> requestFinished(address, resp))
+                .thenApply(ResultSet::new);
+    }
+
+    private ExecutionResponse executeOnConnection(CharSequence stmt, ByteBuffer bytes)
+            throws IOErrorException {
+        HostAddress address = connection.getServerAddress();
+        requestStarted(address);
+        ExecutionResponse resp = null;
+        try {
+            resp = bytes != null
+                    ? connection.execute(sessionID, bytes) : connection.execute(sessionID, stmt);
+            return resp;
+        } finally {
+            requestFinished(address, resp);
+        }
+    }
+
+    // Report the load of the server to the load balancer
+    private void requestStarted(HostAddress address) {
+        if (loadBalancer != null) {
+            loadBalancer.requestStarted(address);
+        }
+    }
+
+    private void requestFinished(HostAddress address, ExecutionResponse resp) {
+        broken = resp == null;
+        if (resp != null && resp.space_name != null && resp.space_name.length > 0) {
+            spaceName = new String(resp.space_name);
+        }
+        if (loadBalancer != null) {
+            loadBalancer.requestFinished(address, resp == null ? -1 : resp.latency_in_us);
+        }
+    }
+
+    private synchronized AsyncConnection getAsyncConnection() throws IOErrorException {
+        if (asyncManager == null) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN,
+                    "The session doesn't support async execute");
+        }
+        if (connection == null) {
+            throw new IOErrorException(IOErrorException.E_CONNECT_BROKEN,
+                    "Connection is null");
+        }
+        if (asyncConnection != null && asyncConnection.isOpen()
+                && asyncConnection.getServerAddress() == connection.getServerAddress()) {
+            return asyncConnection;
+        }
+        closeAsyncConnection();
+        AsyncConnection newConn = new AsyncConnection(asyncManager);
+        newConn.open(connection.getServerAddress(), connection.getTimeout());
+        asyncConnection = newConn;
+        return asyncConnection;
+    }
+
+    private synchronized void closeAsyncConnection() {
+        if (asyncConnection != null) {
+            asyncConnection.close();
+            asyncConnection = null;
+        }
+    }
+
     private boolean retryConnect() {
+        if (pool == null && legacyPool == null) {
+            return false;
+        }
         try {
             try {
-                pool.invalidateObject(connection);
+                if (pool != null) {
+                    pool.invalidateObject(connection);
+                } else {
+                    legacyPool.invalidateObject(connection);
+                }
             } catch (Exception e) {
                 log.error("Return object failed");
             }
-            SyncConnection newConn = pool.borrowObject();
+            SyncConnection newConn = pool != null
+                    ? pool.borrowObject(reconnectWaitTime)
+                    : legacyPool.borrowObject(reconnectWaitTime);
             if (newConn == null) {
                 log.error("Get connection object failed.");
             }
@@ -82,6 +372,45 @@ public class Session {
         }
     }
 
+    private void updateServerStatus() {
+        if (pool != null) {
+            pool.getFactory().updateServerStatus();
+        } else if (legacyPool != null && loadBalancer != null) {
+            loadBalancer.updateServersStatus();
+        }
+    }
+
+    /**
+     * Share the results of the read statements with the other sessions of the user,
+     * by the cache or the coalescer, either of them may be null.
+     */
+    void shareReads(String userName, ResultCache resultCache, ReadCoalescer readCoalescer) {
+        this.userName = userName;
+        this.resultCache = resultCache;
+        this.readCoalescer = readCoalescer;
+    }
+
+    // The server of the connection, null if the connection is lost
+    HostAddress getServerAddress() {
+        SyncConnection conn = connection;
+        return conn == null ? null : conn.getServerAddress();
+    }
+
+    /**
+     * @return The current space of the session, null if no space is used.
+     */
+    public String getSpaceName() {
+        return spaceName;
+    }
+
+    /**
+     * @return Whether the last request failed without the response from the server,
+     *     the session may be unusable.
+     */
+    public boolean isBroken() {
+        return broken;
+    }
+
     // Need server supported, v1.0 nebula-graph doesn't supported
     public boolean ping() {
         if (connection == null) {
@@ -94,9 +423,19 @@ public class Session {
         if (connection == null) {
             return;
         }
+        closeAsyncConnection();
         connection.signout(sessionID);
+        if (pool == null && legacyPool == null) {
+            // The shared connection is owned by the pool
+            connection = null;
+            return;
+        }
         try {
-            pool.returnObject(connection);
+            if (pool != null) {
+                pool.returnObject(connection);
+            } else {
+                legacyPool.returnObject(connection);
+            }
         } catch (Exception e) {
             log.warn("Return object to pool failed.");
         }
@@ -0,0 +1,251 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.SessionPoolConfig;
+import com.vesoft.nebula.client.graph.data.ResultSet;
+import com.vesoft.nebula.client.graph.exception.AuthFailedException;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.graph.exception.NotValidConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The authenticated sessions of one user, they are borrowed and returned instead of
+ * being authenticated and signed out for each request. The session which is used
+ * most recently is borrowed first, the idle sessions are kept alive by a light
+ * statement, and the sessions are signed out after maxLifetime.
+ * The borrower shouldn't change the space of the session if the space is configured,
+ * or the space is changed back when the session is borrowed next time.
+ */
+public class SessionPool {
+    private static final String keepAliveStmt = "YIELD 1;";
+    private final NebulaPool pool;
+    private final String userName;
+    private final String password;
+    private final SessionPoolConfig config;
+    private final LinkedBlockingDeque<PooledSession> idleSessions = new LinkedBlockingDeque<>();
+    private final Map<Session, PooledSession> activeSessions = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final ScheduledExecutorService keeper;
+    private volatile boolean closed = false;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private static class PooledSession {
+        private final Session session;
+        private final long createTime;
+        private volatile long lastUsedTime;
+
+        PooledSession(Session session) {
+            this.session = session;
+            this.createTime = System.currentTimeMillis();
+            this.lastUsedTime = createTime;
+        }
+    }
+
+    /**
+     * @param pool The pool which creates the sessions.
+     * @param userName The user name.
+     * @param password The password.
+     * @param config The size, space and lifetime of the sessions.
+     */
+    public SessionPool(NebulaPool pool,
+                       String userName,
+                       String password,
+                       SessionPoolConfig config) {
+        this.pool = pool;
+        this.userName = userName;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(Math.max(1, config.getMaxSessionSize()), true);
+        this.keeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "SessionPool-keeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getKeepAliveTime() > 0
+                ? config.getKeepAliveTime() : config.getMaxLifetime();
+        if (interval > 0) {
+            keeper.scheduleWithFixedDelay(this::keepAlive, interval, interval,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Borrow the session, it waits at most waitTime when all sessions are in use.
+     * The session should be returned by returnSession, and it must not be released.
+     */
+    public Session borrowSession()
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        if (closed) {
+            throw new NotValidConnectionException("The session pool is closed.");
+        }
+        try {
+            if (!permits.tryAcquire(config.getWaitTime(), TimeUnit.MILLISECONDS)) {
+                throw new NotValidConnectionException("Timeout waiting for idle session.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NotValidConnectionException("Borrow session is interrupted.");
+        }
+        boolean borrowed = false;
+        try {
+            PooledSession pooled;
+            while ((pooled = idleSessions.pollFirst()) != null) {
+                if (!isExpired(pooled) && useSpace(pooled.session)) {
+                    break;
+                }
+                pooled.session.release();
+            }
+            if (pooled == null) {
+                pooled = new PooledSession(
+                        pool.getSession(userName, password, config.isReconnect()));
+                if (!useSpace(pooled.session)) {
+                    pooled.session.release();
+                    throw new IOErrorException(IOErrorException.E_UNKNOWN,
+                            String.format("Use space %s failed.", config.getSpaceName()));
+                }
+            }
+            activeSessions.put(pooled.session, pooled);
+            borrowed = true;
+            return pooled.session;
+        } finally {
+            if (!borrowed) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Return the borrowed session, the broken or expired session is signed out.
+     */
+    public void returnSession(Session session) {
+        PooledSession pooled = activeSessions.remove(session);
+        if (pooled == null) {
+            log.warn("Return session not borrowed from the pool.");
+            return;
+        }
+        pooled.lastUsedTime = System.currentTimeMillis();
+        if (closed || session.isBroken() || isExpired(pooled)) {
+            session.release();
+        } else {
+            idleSessions.offerFirst(pooled);
+        }
+        permits.release();
+    }
+
+    /**
+     * Execute the statement by a borrowed session.
+     *
+     * @param stmt The query sentence.
+     * @return The ResultSet.
+     */
+    public ResultSet execute(String stmt)
+            throws NotValidConnectionException, IOErrorException, AuthFailedException {
+        Session session = borrowSession();
+        try {
+            return session.execute(stmt);
+        } finally {
+            returnSession(session);
+        }
+    }
+
+    /**
+     * Sign out the idle sessions, the sessions in use are signed out when they are returned.
+     */
+    public void close() {
+        closed = true;
+        keeper.shutdownNow();
+        PooledSession pooled;
+        while ((pooled = idleSessions.pollFirst()) != null) {
+            pooled.session.release();
+        }
+    }
+
+    public int getIdleSessionNum() {
+        return idleSessions.size();
+    }
+
+    public int getActiveSessionNum() {
+        return activeSessions.size();
+    }
+
+    private boolean isExpired(PooledSession pooled) {
+        return config.getMaxLifetime() > 0
+                && System.currentTimeMillis() - pooled.createTime >= config.getMaxLifetime();
+    }
+
+    // Change the space back if the borrower has changed it
+    private boolean useSpace(Session session) {
+        String spaceName = config.getSpaceName();
+        if (spaceName == null || spaceName.equals(session.getSpaceName())) {
+            return true;
+        }
+        try {
+            return session.execute(String.format("USE `%s`", spaceName)).isSucceeded();
+        } catch (IOErrorException e) {
+            log.warn(String.format("Use space %s failed: %s", spaceName, e.getMessage()));
+            return false;
+        }
+    }
+
+    private void keepAlive() {
+        long now = System.currentTimeMillis();
+        List<PooledSession> sessions = new ArrayList<>(idleSessions);
+        for (PooledSession pooled : sessions) {
+            boolean idle = config.getKeepAliveTime() > 0
+                    && now - pooled.lastUsedTime >= config.getKeepAliveTime();
+            if (closed || (!idle && !isExpired(pooled))) {
+                continue;
+            }
+            // The session being pinged counts as one in use, so the borrowers don't
+            // create more than maxSessionSize sessions meanwhile, and it's skipped
+            // if all sessions are in use
+            if (!permits.tryAcquire()) {
+                continue;
+            }
+            try {
+                // The session borrowed in the meantime is skipped
+                if (idleSessions.remove(pooled)) {
+                    keepAlive(pooled);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void keepAlive(PooledSession pooled) {
+        if (isExpired(pooled)) {
+            pooled.session.release();
+            return;
+        }
+        try {
+            if (!closed && pooled.session.executeWithoutCache(keepAliveStmt).isSucceeded()) {
+                pooled.lastUsedTime = System.currentTimeMillis();
+                idleSessions.offerLast(pooled);
+                // The pool closed during the ping doesn't sign out the session put back
+                if (closed && idleSessions.remove(pooled)) {
+                    pooled.session.release();
+                }
+                return;
+            }
+        } catch (IOErrorException e) {
+            log.warn("Keep alive session failed: " + e.getMessage());
+        }
+        pooled.session.release();
+    }
+}
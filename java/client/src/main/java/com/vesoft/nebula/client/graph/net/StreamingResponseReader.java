@@ -0,0 +1,188 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.facebook.thrift.TApplicationException;
+import com.facebook.thrift.TException;
+import com.facebook.thrift.protocol.TField;
+import com.facebook.thrift.protocol.TList;
+import com.facebook.thrift.protocol.TMessage;
+import com.facebook.thrift.protocol.TMessageType;
+import com.facebook.thrift.protocol.TProtocol;
+import com.facebook.thrift.protocol.TProtocolUtil;
+import com.facebook.thrift.protocol.TType;
+import com.vesoft.nebula.DataSet;
+import com.vesoft.nebula.Row;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import com.vesoft.nebula.graph.GraphService;
+import com.vesoft.nebula.graph.PlanDescription;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Read the response of GraphService.execute from the protocol like the generated
+ * code, but hand each row of the DataSet to the handler as soon as it is decoded,
+ * so the rows are never held in memory together.
+ * The returned response has the column names and no rows.
+ */
+class StreamingResponseReader {
+    private final TProtocol iprot;
+    private final BiConsumer<List<String>, Row> rowHandler;
+
+    StreamingResponseReader(TProtocol iprot, BiConsumer<List<String>, Row> rowHandler) {
+        this.iprot = iprot;
+        this.rowHandler = rowHandler;
+    }
+
+    ExecutionResponse recvExecute() throws TException {
+        return recvExecute(iprot.readMessageBegin());
+    }
+
+    /**
+     * @param msg The message header read already.
+     */
+    ExecutionResponse recvExecute(TMessage msg) throws TException {
+        if (msg.type == TMessageType.EXCEPTION) {
+            TApplicationException x = TApplicationException.read(iprot);
+            iprot.readMessageEnd();
+            throw x;
+        }
+        ExecutionResponse resp = null;
+        iprot.readStructBegin();
+        while (true) {
+            TField field = iprot.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            if (field.id == GraphService.execute_result.SUCCESS && field.type == TType.STRUCT) {
+                resp = readResponse();
+            } else {
+                TProtocolUtil.skip(iprot, field.type);
+            }
+            iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+        iprot.readMessageEnd();
+        if (resp == null) {
+            throw new TApplicationException(TApplicationException.MISSING_RESULT,
+                    "execute failed: unknown result");
+        }
+        return resp;
+    }
+
+    private ExecutionResponse readResponse() throws TException {
+        ExecutionResponse resp = new ExecutionResponse();
+        iprot.readStructBegin();
+        while (true) {
+            TField field = iprot.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case ExecutionResponse.ERROR_CODE:
+                    if (field.type == TType.I32) {
+                        resp.setError_code(iprot.readI32());
+                    } else {
+                        TProtocolUtil.skip(iprot, field.type);
+                    }
+                    break;
+                case ExecutionResponse.LATENCY_IN_US:
+                    if (field.type == TType.I32) {
+                        resp.setLatency_in_us(iprot.readI32());
+                    } else {
+                        TProtocolUtil.skip(iprot, field.type);
+                    }
+                    break;
+                case ExecutionResponse.DATA:
+                    if (field.type == TType.STRUCT) {
+                        resp.setData(readDataSet());
+                    } else {
+                        TProtocolUtil.skip(iprot, field.type);
+                    }
+                    break;
+                case ExecutionResponse.SPACE_NAME:
+                    if (field.type == TType.STRING) {
+                        resp.setSpace_name(iprot.readBinary());
+                    } else {
+                        TProtocolUtil.skip(iprot, field.type);
+                    }
+                    break;
+                case ExecutionResponse.ERROR_MSG:
+                    if (field.type == TType.STRING) {
+                        resp.setError_msg(iprot.readBinary());
+                    } else {
+                        TProtocolUtil.skip(iprot, field.type);
+                    }
+                    break;
+                case ExecutionResponse.PLAN_DESC:
+                    if (field.type == TType.STRUCT) {
+                        PlanDescription planDesc = new PlanDescription();
+                        planDesc.read(iprot);
+                        resp.setPlan_desc(planDesc);
+                    } else {
+                        TProtocolUtil.skip(iprot, field.type);
+                    }
+                    break;
+                case ExecutionResponse.COMMENT:
+                    if (field.type == TType.STRING) {
+                        resp.setComment(iprot.readBinary());
+                    } else {
+                        TProtocolUtil.skip(iprot, field.type);
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(iprot, field.type);
+                    break;
+            }
+            iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+        return resp;
+    }
+
+    private DataSet readDataSet() throws TException {
+        DataSet dataSet = new DataSet();
+        dataSet.setColumn_names(new ArrayList<>());
+        dataSet.setRows(new ArrayList<>());
+        List<String> columnNames = Collections.emptyList();
+        iprot.readStructBegin();
+        while (true) {
+            TField field = iprot.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            if (field.id == DataSet.COLUMN_NAMES && field.type == TType.LIST) {
+                TList list = iprot.readListBegin();
+                List<byte[]> names = new ArrayList<>(Math.max(0, list.size));
+                for (int i = 0; (list.size < 0) ? iprot.peekList() : (i < list.size); ++i) {
+                    names.add(iprot.readBinary());
+                }
+                iprot.readListEnd();
+                dataSet.setColumn_names(names);
+                columnNames = new ArrayList<>(names.size());
+                for (byte[] name : names) {
+                    columnNames.add(new String(name).intern());
+                }
+            } else if (field.id == DataSet.ROWS && field.type == TType.LIST) {
+                TList list = iprot.readListBegin();
+                for (int i = 0; (list.size < 0) ? iprot.peekList() : (i < list.size); ++i) {
+                    Row row = new Row();
+                    row.read(iprot);
+                    rowHandler.accept(columnNames, row);
+                }
+                iprot.readListEnd();
+            } else {
+                TProtocolUtil.skip(iprot, field.type);
+            }
+            iprot.readFieldEnd();
+        }
+        iprot.readStructEnd();
+        return dataSet;
+    }
+}
@@ -7,12 +7,18 @@
 package com.vesoft.nebula.client.graph.net;
 
 
+import com.facebook.thrift.TApplicationException;
 import com.facebook.thrift.TException;
 import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.protocol.TMessage;
+import com.facebook.thrift.protocol.TMessageType;
 import com.facebook.thrift.protocol.TProtocol;
+import com.facebook.thrift.transport.TFramedTransport;
+import com.facebook.thrift.transport.THeaderTransport;
 import com.facebook.thrift.transport.TSocket;
 import com.facebook.thrift.transport.TTransport;
 import com.facebook.thrift.transport.TTransportException;
+import com.vesoft.nebula.Row;
 import com.vesoft.nebula.client.graph.data.HostAddress;
 import com.vesoft.nebula.client.graph.exception.AuthFailedException;
 import com.vesoft.nebula.client.graph.exception.IOErrorException;
@@ -20,20 +26,36 @@ import com.vesoft.nebula.graph.AuthResponse;
 import com.vesoft.nebula.graph.ErrorCode;
 import com.vesoft.nebula.graph.ExecutionResponse;
 import com.vesoft.nebula.graph.GraphService;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.BiConsumer;
 
 public class SyncConnection extends Connection {
+    private static final int[] zlibTransforms = {THeaderTransport.ZLIB_TRANSFORM};
+    protected TSocket socket = null;
     protected TTransport transport = null;
     protected TProtocol protocol = null;
+    // The size of the socket buffers, 0 means the default size
+    protected int bufferSize = 0;
+    // Whether the messages are framed with the size prefixed
+    protected boolean framed = false;
+    // Whether the messages are compressed by zlib in the header frames
+    protected boolean compressed = false;
+    protected ClientMetrics metrics = ClientMetrics.NOOP;
     private GraphService.Client client = null;
+    // The requests are encoded into it, it's guarded by the lock of the subclass
+    final RequestEncoder encoder = new RequestEncoder();
 
     @Override
     public void open(HostAddress address, int timeout) throws IOErrorException {
         this.serverAddr = address;
+        this.timeout = timeout;
         try {
             int newTimeout = timeout <= 0 ? Integer.MAX_VALUE : timeout;
-            this.transport = new TSocket(
-                    address.getHost(), address.getPort(), newTimeout, newTimeout);
-            this.transport.open();
+            this.socket = new TSocket(
+                    address.getHost(), address.getPort(), newTimeout, newTimeout, bufferSize);
+            this.socket.open();
+            this.transport = wrapSocket();
             this.protocol = new TCompactProtocol(transport);
             client = new GraphService.Client(protocol);
         } catch (TException e) {
@@ -41,6 +63,44 @@ public class SyncConnection extends Connection {
         }
     }
 
+    /**
+     * Set the size of the read buffer and the write buffer, it's applied when it's opened.
+     */
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Use the framed transport, it's applied when it's opened.
+     */
+    public void setFramed(boolean framed) {
+        this.framed = framed;
+    }
+
+    /**
+     * Compress the requests and the responses by zlib, the messages are sent in
+     * the header frames of fbthrift with the zlib transform, and the server compresses
+     * the responses by the transforms of the requests. It's applied when it's opened.
+     */
+    public void setCompressed(boolean compressed) {
+        this.compressed = compressed;
+    }
+
+    // The transport of the messages on the socket
+    protected TTransport wrapSocket() {
+        if (compressed) {
+            return new THeaderTransport(socket, zlibTransforms);
+        }
+        return framed ? new TFramedTransport(socket) : socket;
+    }
+
+    /**
+     * Set the metrics of the requests.
+     */
+    public void setMetrics(ClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public long authenticate(String user, String password)
             throws AuthFailedException, IOErrorException {
         try {
@@ -51,10 +111,8 @@ public class SyncConnection extends Connection {
             return resp.session_id;
         } catch (TException e) {
             if (e instanceof TTransportException) {
-                TTransportException te = (TTransportException)e;
-                if (te.getType() == TTransportException.END_OF_FILE) {
-                    throw new IOErrorException(IOErrorException.E_CONNECT_BROKEN, te.getMessage());
-                }
+                // The connection is broken, it isn't the failure of the authentication
+                throw toIOError(e);
             }
             throw new AuthFailedException(String.format("Authenticate failed: %s", e.getMessage()));
         }
@@ -62,17 +120,118 @@ public class SyncConnection extends Connection {
 
     public ExecutionResponse execute(long sessionID, String stmt)
             throws IOErrorException {
+        return execute(sessionID, (CharSequence) stmt);
+    }
+
+    /**
+     * Execute the query sentence, it's encoded in UTF-8 into the buffer of the connection
+     * directly, and the request is written to the socket at once.
+     *
+     * @param sessionID The session id from authenticate.
+     * @param stmt The query sentence.
+     * @return The response.
+     */
+    public ExecutionResponse execute(long sessionID, CharSequence stmt)
+            throws IOErrorException {
+        long startTime = System.nanoTime();
         try {
-            return client.execute(sessionID, stmt.getBytes());
+            encoder.encodeExecute(0, sessionID, stmt);
+            return sendExecute(startTime, null);
         } catch (TException e) {
-            if (e instanceof TTransportException) {
-                TTransportException te = (TTransportException) e;
-                if (te.getType() == TTransportException.END_OF_FILE) {
-                    throw new IOErrorException(IOErrorException.E_CONNECT_BROKEN, te.getMessage());
-                }
+            metrics.requestFailed(serverAddr, (System.nanoTime() - startTime) / 1000);
+            throw toIOError(e);
+        }
+    }
+
+    /**
+     * Execute the query sentence encoded in UTF-8.
+     *
+     * @param sessionID The session id from authenticate.
+     * @param stmt The query sentence, the position of it isn't changed.
+     * @return The response.
+     */
+    public ExecutionResponse execute(long sessionID, ByteBuffer stmt)
+            throws IOErrorException {
+        long startTime = System.nanoTime();
+        try {
+            encoder.encodeExecute(0, sessionID, stmt);
+            return sendExecute(startTime, null);
+        } catch (TException e) {
+            metrics.requestFailed(serverAddr, (System.nanoTime() - startTime) / 1000);
+            throw toIOError(e);
+        }
+    }
+
+    /**
+     * Execute the query sentence, and hand each row to the rowHandler as soon as
+     * it is read from the socket.
+     *
+     * @param sessionID The session id from authenticate.
+     * @param stmt The query sentence.
+     * @param rowHandler The handler accepts the column names and the row.
+     * @return The response without rows.
+     */
+    public ExecutionResponse executeStreaming(long sessionID,
+                                              String stmt,
+                                              BiConsumer<List<String>, Row> rowHandler)
+            throws IOErrorException {
+        long startTime = System.nanoTime();
+        try {
+            encoder.encodeExecute(0, sessionID, stmt);
+            return sendExecute(startTime, rowHandler);
+        } catch (TException e) {
+            metrics.requestFailed(serverAddr, (System.nanoTime() - startTime) / 1000);
+            throw toIOError(e);
+        } catch (RuntimeException e) {
+            // The rest of the response is left in the socket, the connection can't be reused
+            this.close();
+            throw e;
+        }
+    }
+
+    // Send the encoded request, and decode the response like the generated code,
+    // the time from the response header to the end of the response is the decode time
+    private ExecutionResponse sendExecute(long startTime,
+                                          BiConsumer<List<String>, Row> rowHandler)
+            throws TException {
+        int requestBytes = encoder.writeTo(transport);
+        long startBytes = socket.getBytesRead() - socket.getBytesRemainingInBuffer();
+        TMessage msg = protocol.readMessageBegin();
+        long decodeTime = System.nanoTime();
+        ExecutionResponse resp;
+        if (rowHandler != null) {
+            resp = new StreamingResponseReader(protocol, rowHandler).recvExecute(msg);
+        } else {
+            if (msg.type == TMessageType.EXCEPTION) {
+                TApplicationException x = TApplicationException.read(protocol);
+                protocol.readMessageEnd();
+                throw x;
+            }
+            GraphService.execute_result result = new GraphService.execute_result();
+            result.read(protocol);
+            protocol.readMessageEnd();
+            if (!result.isSetSuccess()) {
+                throw new TApplicationException(TApplicationException.MISSING_RESULT,
+                        "execute failed: unknown result");
+            }
+            resp = result.success;
+        }
+        long endTime = System.nanoTime();
+        long responseBytes = socket.getBytesRead() - socket.getBytesRemainingInBuffer()
+                - startBytes;
+        metrics.requestSucceeded(serverAddr, (endTime - startTime) / 1000,
+                (endTime - decodeTime) / 1000, resp.latency_in_us, requestBytes, responseBytes);
+        return resp;
+    }
+
+    private IOErrorException toIOError(TException e) {
+        if (e instanceof TTransportException) {
+            TTransportException te = (TTransportException) e;
+            if (te.getType() == TTransportException.END_OF_FILE) {
+                return new IOErrorException(IOErrorException.E_CONNECT_BROKEN, te.getMessage());
             }
-            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
         }
+        return new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
     }
 
     public void signout(long sessionId) {
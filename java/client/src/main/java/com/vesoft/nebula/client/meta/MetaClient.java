@@ -0,0 +1,313 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.meta;
+
+import com.facebook.thrift.TException;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.transport.TSocket;
+import com.facebook.thrift.transport.TTransport;
+import com.vesoft.nebula.HostAddr;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.meta.EdgeItem;
+import com.vesoft.nebula.meta.ErrorCode;
+import com.vesoft.nebula.meta.GetEdgeReq;
+import com.vesoft.nebula.meta.GetEdgeResp;
+import com.vesoft.nebula.meta.GetPartsAllocReq;
+import com.vesoft.nebula.meta.GetPartsAllocResp;
+import com.vesoft.nebula.meta.GetSpaceReq;
+import com.vesoft.nebula.meta.GetSpaceResp;
+import com.vesoft.nebula.meta.GetTagReq;
+import com.vesoft.nebula.meta.GetTagResp;
+import com.vesoft.nebula.meta.IndexItem;
+import com.vesoft.nebula.meta.ListEdgeIndexesReq;
+import com.vesoft.nebula.meta.ListEdgeIndexesResp;
+import com.vesoft.nebula.meta.ListEdgesReq;
+import com.vesoft.nebula.meta.ListEdgesResp;
+import com.vesoft.nebula.meta.ListPartsReq;
+import com.vesoft.nebula.meta.ListPartsResp;
+import com.vesoft.nebula.meta.ListTagIndexesReq;
+import com.vesoft.nebula.meta.ListTagIndexesResp;
+import com.vesoft.nebula.meta.ListTagsReq;
+import com.vesoft.nebula.meta.ListTagsResp;
+import com.vesoft.nebula.meta.MetaService;
+import com.vesoft.nebula.meta.PartItem;
+import com.vesoft.nebula.meta.Schema;
+import com.vesoft.nebula.meta.TagItem;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The client of the meta server, it connects to one of the meta servers,
+ * and follows the leader when the server replies E_LEADER_CHANGED.
+ */
+public class MetaClient {
+    private static final int retryTime = 3;
+    private final List<HostAddress> addresses;
+    private final int timeout;
+    private TTransport transport = null;
+    private MetaService.Client client = null;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private interface MetaCall<R> {
+        R call(MetaService.Client client) throws TException;
+    }
+
+    public MetaClient(List<HostAddress> addresses, int timeout) {
+        this.addresses = addresses;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Connect to the first available meta server.
+     */
+    public synchronized void connect() throws IOErrorException {
+        IOErrorException lastError = null;
+        for (HostAddress address : addresses) {
+            try {
+                open(address);
+                return;
+            } catch (IOErrorException e) {
+                log.warn(String.format("Connect to meta server %s failed: %s",
+                        address, e.getMessage()));
+                lastError = e;
+            }
+        }
+        throw lastError != null ? lastError : new IOErrorException(
+                IOErrorException.E_ALL_BROKEN, "No meta server address");
+    }
+
+    public synchronized void close() {
+        if (transport != null) {
+            transport.close();
+            transport = null;
+        }
+    }
+
+    public synchronized int getSpaceId(String spaceName)
+            throws ExecuteFailedException, IOErrorException {
+        GetSpaceReq req = new GetSpaceReq(spaceName.getBytes());
+        GetSpaceResp resp = call(client -> client.getSpace(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("get space %s", spaceName));
+        return resp.item.space_id;
+    }
+
+    /**
+     * Get the peers of each partition of the space, the leader isn't known
+     * from the allocation, so the caller should follow the leader returned
+     * by the storage server.
+     *
+     * @param spaceName The space name.
+     * @return The map from the partition id to its peers.
+     */
+    public synchronized Map<Integer, List<HostAddress>> getPartsAlloc(String spaceName)
+            throws ExecuteFailedException, IOErrorException {
+        return getPartsAlloc(getSpaceId(spaceName));
+    }
+
+    public synchronized Map<Integer, List<HostAddress>> getPartsAlloc(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        GetPartsAllocReq req = new GetPartsAllocReq(spaceId);
+        GetPartsAllocResp resp = call(client -> client.getPartsAlloc(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("get parts alloc of space %d", spaceId));
+        Map<Integer, List<HostAddress>> parts = new HashMap<>();
+        for (Map.Entry<Integer, List<HostAddr>> entry : resp.parts.entrySet()) {
+            List<HostAddress> peers = new ArrayList<>(entry.getValue().size());
+            for (HostAddr addr : entry.getValue()) {
+                peers.add(toHostAddress(addr));
+            }
+            parts.put(entry.getKey(), peers);
+        }
+        return parts;
+    }
+
+    /**
+     * Get the partitions with their current leaders, the leader is unset
+     * if the partition has no leader now.
+     *
+     * @param spaceId The space id.
+     * @param partIds The partitions, all partitions of the space if it's empty.
+     * @return The partitions.
+     */
+    public synchronized List<PartItem> listParts(int spaceId, List<Integer> partIds)
+            throws ExecuteFailedException, IOErrorException {
+        ListPartsReq req = new ListPartsReq(spaceId, partIds);
+        ListPartsResp resp = call(client -> client.listParts(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("list parts of space %d", spaceId));
+        return resp.parts;
+    }
+
+    public synchronized List<TagItem> listTags(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        ListTagsReq req = new ListTagsReq(spaceId);
+        ListTagsResp resp = call(client -> client.listTags(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("list tags of space %d", spaceId));
+        return resp.tags;
+    }
+
+    public synchronized List<EdgeItem> listEdges(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        ListEdgesReq req = new ListEdgesReq(spaceId);
+        ListEdgesResp resp = call(client -> client.listEdges(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("list edges of space %d", spaceId));
+        return resp.edges;
+    }
+
+    /**
+     * @param spaceId The space id.
+     * @param tagName The tag name.
+     * @param version The schema version, -1 means the latest version.
+     * @return The schema of the tag.
+     */
+    public synchronized Schema getTag(int spaceId, String tagName, long version)
+            throws ExecuteFailedException, IOErrorException {
+        GetTagReq req = new GetTagReq(spaceId, tagName.getBytes(), version);
+        GetTagResp resp = call(client -> client.getTag(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("get tag %s of space %d", tagName, spaceId));
+        return resp.schema;
+    }
+
+    /**
+     * @param spaceId The space id.
+     * @param edgeName The edge name.
+     * @param version The schema version, -1 means the latest version.
+     * @return The schema of the edge.
+     */
+    public synchronized Schema getEdge(int spaceId, String edgeName, long version)
+            throws ExecuteFailedException, IOErrorException {
+        GetEdgeReq req = new GetEdgeReq(spaceId, edgeName.getBytes(), version);
+        GetEdgeResp resp = call(client -> client.getEdge(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("get edge %s of space %d", edgeName, spaceId));
+        return resp.schema;
+    }
+
+    public synchronized List<IndexItem> listTagIndexes(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        ListTagIndexesReq req = new ListTagIndexesReq(spaceId);
+        ListTagIndexesResp resp = call(client -> client.listTagIndexes(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("list tag indexes of space %d", spaceId));
+        return resp.items;
+    }
+
+    public synchronized List<IndexItem> listEdgeIndexes(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        ListEdgeIndexesReq req = new ListEdgeIndexesReq(spaceId);
+        ListEdgeIndexesResp resp = call(client -> client.listEdgeIndexes(req),
+            r -> r.code, r -> r.leader,
+            () -> String.format("list edge indexes of space %d", spaceId));
+        return resp.items;
+    }
+
+    public int getTagId(String spaceName, String tagName)
+            throws ExecuteFailedException, IOErrorException {
+        for (TagItem tag : listTags(getSpaceId(spaceName))) {
+            if (tagName.equals(new String(tag.tag_name))) {
+                return tag.tag_id;
+            }
+        }
+        throw new ExecuteFailedException(ErrorCode.E_NOT_FOUND,
+                String.format("tag %s not found in space %s", tagName, spaceName));
+    }
+
+    public int getEdgeType(String spaceName, String edgeName)
+            throws ExecuteFailedException, IOErrorException {
+        for (EdgeItem edge : listEdges(getSpaceId(spaceName))) {
+            if (edgeName.equals(new String(edge.edge_name))) {
+                return edge.edge_type;
+            }
+        }
+        throw new ExecuteFailedException(ErrorCode.E_NOT_FOUND,
+                String.format("edge %s not found in space %s", edgeName, spaceName));
+    }
+
+    public static HostAddress toHostAddress(HostAddr addr) {
+        return new HostAddress(addr.host, addr.port);
+    }
+
+    private void open(HostAddress address) throws IOErrorException {
+        close();
+        try {
+            int newTimeout = timeout <= 0 ? Integer.MAX_VALUE : timeout;
+            TTransport newTransport = new TSocket(
+                    address.getHost(), address.getPort(), newTimeout, newTimeout);
+            newTransport.open();
+            this.transport = newTransport;
+            this.client = new MetaService.Client(new TCompactProtocol(newTransport));
+        } catch (TException e) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+        }
+    }
+
+    private MetaService.Client getClient() throws IOErrorException {
+        if (transport == null) {
+            connect();
+        }
+        return client;
+    }
+
+    /**
+     * Send the request to the meta server, and follow the leader it returns.
+     *
+     * @param rpc The request.
+     * @param code The error code of the response.
+     * @param leader The leader of the response.
+     * @param description The description of the request in the error.
+     * @return The succeeded response.
+     */
+    private <R> R call(MetaCall<R> rpc,
+                       ToIntFunction<R> code,
+                       Function<R, HostAddr> leader,
+                       Supplier<String> description)
+            throws ExecuteFailedException, IOErrorException {
+        for (int retry = retryTime; ; retry--) {
+            R resp;
+            try {
+                resp = rpc.call(getClient());
+            } catch (TException e) {
+                throw handleError(e);
+            }
+            int errorCode = code.applyAsInt(resp);
+            if (errorCode == ErrorCode.SUCCEEDED) {
+                return resp;
+            }
+            if (!followLeader(errorCode, leader.apply(resp), retry)) {
+                throw new ExecuteFailedException(errorCode, description.get());
+            }
+        }
+    }
+
+    private boolean followLeader(int code, HostAddr leader, int retry)
+            throws IOErrorException {
+        if (code != ErrorCode.E_LEADER_CHANGED || leader == null || retry <= 0) {
+            return false;
+        }
+        open(toHostAddress(leader));
+        return true;
+    }
+
+    private IOErrorException handleError(TException e) {
+        // Reconnect at the next request
+        close();
+        return new IOErrorException(IOErrorException.E_CONNECT_BROKEN, e.getMessage());
+    }
+}
@@ -0,0 +1,394 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.meta;
+
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.meta.EdgeItem;
+import com.vesoft.nebula.meta.ErrorCode;
+import com.vesoft.nebula.meta.IndexItem;
+import com.vesoft.nebula.meta.Schema;
+import com.vesoft.nebula.meta.TagItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The schemas of the tags, edges and indexes got from the meta server.
+ * The schemas of a space are loaded together by listTags, listEdges,
+ * listTagIndexes and listEdgeIndexes, and they are replaced as a whole
+ * when the space is refreshed, so the readers never wait for the meta server
+ * once the space is loaded. The unknown tag or edge reloads the space at most
+ * once every minReloadInterval, so a wrong name doesn't flood the meta server.
+ * The latest version is the one of the loaded space, the schemas of the other
+ * versions are kept by the space, the tag or edge id and the version, and the
+ * least recently used ones are dropped beyond maxVersionedSchemas.
+ */
+public class SchemaCache {
+    private final MetaClient metaClient;
+    private final Map<String, Integer> spaceIds = new ConcurrentHashMap<>();
+    private final Map<Integer, SpaceSchema> spaces = new ConcurrentHashMap<>();
+    private final VersionedSchemas versionedSchemas = new VersionedSchemas();
+    private final Object reloadLock = new Object();
+    // The min interval between two reloads of a space, unit: millisecond
+    private volatile long minReloadInterval = 1000;
+    private ScheduledExecutorService refresher = null;
+    private final Logger log = LoggerFactory.getLogger(this.getClass());
+
+    private static class SpaceSchema {
+        private final Map<String, TagItem> tagsByName = new HashMap<>();
+        private final Map<Integer, TagItem> tagsById = new HashMap<>();
+        private final Map<String, EdgeItem> edgesByName = new HashMap<>();
+        private final Map<Integer, EdgeItem> edgesByType = new HashMap<>();
+        private List<IndexItem> tagIndexes = Collections.emptyList();
+        private List<IndexItem> edgeIndexes = Collections.emptyList();
+        private final long loadTime = System.nanoTime();
+    }
+
+    private static class SchemaKey {
+        private final int spaceId;
+        private final boolean isEdge;
+        private final int id;
+        private final long version;
+
+        SchemaKey(int spaceId, boolean isEdge, int id, long version) {
+            this.spaceId = spaceId;
+            this.isEdge = isEdge;
+            this.id = id;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SchemaKey that = (SchemaKey) o;
+            return spaceId == that.spaceId
+                    && isEdge == that.isEdge
+                    && id == that.id
+                    && version == that.version;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(spaceId, isEdge, id, version);
+        }
+    }
+
+    /**
+     * The schemas by the version in the access order, the access is guarded by itself.
+     */
+    private static class VersionedSchemas extends LinkedHashMap<SchemaKey, Schema> {
+        private int maxSize = 1024;
+
+        VersionedSchemas() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<SchemaKey, Schema> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    public SchemaCache(MetaClient metaClient) {
+        this.metaClient = metaClient;
+    }
+
+    /**
+     * Refresh the loaded spaces in the background.
+     *
+     * @param intervalMs The interval between two refreshes in ms.
+     */
+    public synchronized void startRefresh(long intervalMs) {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "SchemaCache-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refresh, intervalMs, intervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    /**
+     * Set the min interval between two reloads of a space by the unknown tags or edges.
+     *
+     * @param intervalMs The interval in ms.
+     */
+    public void setMinReloadInterval(long intervalMs) {
+        this.minReloadInterval = intervalMs;
+    }
+
+    /**
+     * Set the max number of the schemas kept by the version.
+     */
+    public void setMaxVersionedSchemas(int maxVersionedSchemas) {
+        synchronized (versionedSchemas) {
+            versionedSchemas.maxSize = maxVersionedSchemas;
+        }
+    }
+
+    /**
+     * Drop the space id and the schemas of the space, such as after the space is dropped.
+     */
+    public void invalidate(String spaceName) {
+        Integer spaceId = spaceIds.remove(spaceName);
+        if (spaceId != null) {
+            invalidate(spaceId);
+        }
+    }
+
+    /**
+     * Drop the schemas of the space, they are loaded again at the next use.
+     */
+    public void invalidate(int spaceId) {
+        spaces.remove(spaceId);
+        synchronized (versionedSchemas) {
+            versionedSchemas.keySet().removeIf(key -> key.spaceId == spaceId);
+        }
+    }
+
+    /**
+     * Load all the schemas of the space at once.
+     */
+    public void warmUp(String spaceName) throws ExecuteFailedException, IOErrorException {
+        load(getSpaceId(spaceName));
+    }
+
+    /**
+     * Reload all the loaded spaces, the failed space keeps its old schemas,
+     * and the space not found is dropped.
+     */
+    public void refresh() {
+        for (int spaceId : new ArrayList<>(spaces.keySet())) {
+            try {
+                load(spaceId);
+            } catch (ExecuteFailedException e) {
+                if (e.getErrorCode() == ErrorCode.E_NOT_FOUND) {
+                    invalidate(spaceId);
+                }
+                log.warn(String.format("Refresh schemas of space %d failed: %s",
+                        spaceId, e.getMessage()));
+            } catch (IOErrorException e) {
+                log.warn(String.format("Refresh schemas of space %d failed: %s",
+                        spaceId, e.getMessage()));
+            }
+        }
+    }
+
+    public int getSpaceId(String spaceName) throws ExecuteFailedException, IOErrorException {
+        Integer spaceId = spaceIds.get(spaceName);
+        if (spaceId == null) {
+            spaceId = metaClient.getSpaceId(spaceName);
+            spaceIds.put(spaceName, spaceId);
+        }
+        return spaceId;
+    }
+
+    /**
+     * @return The latest version of the tag.
+     */
+    public TagItem getTag(int spaceId, String tagName)
+            throws ExecuteFailedException, IOErrorException {
+        TagItem tag = getSpace(spaceId).tagsByName.get(tagName);
+        if (tag == null) {
+            // The tag may be created after the space is loaded
+            tag = reload(spaceId).tagsByName.get(tagName);
+        }
+        if (tag == null) {
+            throw new ExecuteFailedException(ErrorCode.E_NOT_FOUND,
+                    String.format("tag %s not found in space %d", tagName, spaceId));
+        }
+        return tag;
+    }
+
+    /**
+     * @return The latest version of the tag.
+     */
+    public TagItem getTag(int spaceId, int tagId)
+            throws ExecuteFailedException, IOErrorException {
+        TagItem tag = getSpace(spaceId).tagsById.get(tagId);
+        if (tag == null) {
+            tag = reload(spaceId).tagsById.get(tagId);
+        }
+        if (tag == null) {
+            throw new ExecuteFailedException(ErrorCode.E_NOT_FOUND,
+                    String.format("tag %d not found in space %d", tagId, spaceId));
+        }
+        return tag;
+    }
+
+    /**
+     * @param version The schema version, -1 means the latest version of the loaded space.
+     * @return The schema of the tag.
+     */
+    public Schema getTagSchema(int spaceId, int tagId, long version)
+            throws ExecuteFailedException, IOErrorException {
+        TagItem tag = getTag(spaceId, tagId);
+        if (version < 0 || version == tag.version) {
+            return tag.schema;
+        }
+        SchemaKey key = new SchemaKey(spaceId, false, tagId, version);
+        Schema schema = getVersionedSchema(key);
+        if (schema == null) {
+            schema = metaClient.getTag(spaceId, new String(tag.tag_name), version);
+            putVersionedSchema(key, schema);
+        }
+        return schema;
+    }
+
+    /**
+     * @return The latest version of the edge.
+     */
+    public EdgeItem getEdge(int spaceId, String edgeName)
+            throws ExecuteFailedException, IOErrorException {
+        EdgeItem edge = getSpace(spaceId).edgesByName.get(edgeName);
+        if (edge == null) {
+            edge = reload(spaceId).edgesByName.get(edgeName);
+        }
+        if (edge == null) {
+            throw new ExecuteFailedException(ErrorCode.E_NOT_FOUND,
+                    String.format("edge %s not found in space %d", edgeName, spaceId));
+        }
+        return edge;
+    }
+
+    /**
+     * @return The latest version of the edge.
+     */
+    public EdgeItem getEdge(int spaceId, int edgeType)
+            throws ExecuteFailedException, IOErrorException {
+        EdgeItem edge = getSpace(spaceId).edgesByType.get(edgeType);
+        if (edge == null) {
+            edge = reload(spaceId).edgesByType.get(edgeType);
+        }
+        if (edge == null) {
+            throw new ExecuteFailedException(ErrorCode.E_NOT_FOUND,
+                    String.format("edge %d not found in space %d", edgeType, spaceId));
+        }
+        return edge;
+    }
+
+    /**
+     * @param version The schema version, -1 means the latest version of the loaded space.
+     * @return The schema of the edge.
+     */
+    public Schema getEdgeSchema(int spaceId, int edgeType, long version)
+            throws ExecuteFailedException, IOErrorException {
+        EdgeItem edge = getEdge(spaceId, edgeType);
+        if (version < 0 || version == edge.version) {
+            return edge.schema;
+        }
+        SchemaKey key = new SchemaKey(spaceId, true, edgeType, version);
+        Schema schema = getVersionedSchema(key);
+        if (schema == null) {
+            schema = metaClient.getEdge(spaceId, new String(edge.edge_name), version);
+            putVersionedSchema(key, schema);
+        }
+        return schema;
+    }
+
+    public List<IndexItem> getTagIndexes(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        return getSpace(spaceId).tagIndexes;
+    }
+
+    public List<IndexItem> getEdgeIndexes(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        return getSpace(spaceId).edgeIndexes;
+    }
+
+    private SpaceSchema getSpace(int spaceId) throws ExecuteFailedException, IOErrorException {
+        SpaceSchema space = spaces.get(spaceId);
+        if (space == null) {
+            space = reload(spaceId);
+        }
+        return space;
+    }
+
+    /**
+     * Load the space again unless it's loaded within minReloadInterval.
+     */
+    private SpaceSchema reload(int spaceId) throws ExecuteFailedException, IOErrorException {
+        synchronized (reloadLock) {
+            SpaceSchema space = spaces.get(spaceId);
+            if (space != null && System.nanoTime() - space.loadTime
+                    < TimeUnit.MILLISECONDS.toNanos(minReloadInterval)) {
+                return space;
+            }
+            return load(spaceId);
+        }
+    }
+
+    private SpaceSchema load(int spaceId) throws ExecuteFailedException, IOErrorException {
+        SpaceSchema space = new SpaceSchema();
+        for (TagItem tag : unmodifiable(metaClient.listTags(spaceId))) {
+            String name = new String(tag.tag_name);
+            TagItem old = space.tagsByName.get(name);
+            if (old == null || old.version < tag.version) {
+                space.tagsByName.put(name, tag);
+                space.tagsById.put(tag.tag_id, tag);
+            }
+            putVersionedSchema(new SchemaKey(spaceId, false, tag.tag_id, tag.version),
+                    tag.schema);
+        }
+        for (EdgeItem edge : unmodifiable(metaClient.listEdges(spaceId))) {
+            String name = new String(edge.edge_name);
+            EdgeItem old = space.edgesByName.get(name);
+            if (old == null || old.version < edge.version) {
+                space.edgesByName.put(name, edge);
+                space.edgesByType.put(edge.edge_type, edge);
+            }
+            putVersionedSchema(new SchemaKey(spaceId, true, edge.edge_type, edge.version),
+                    edge.schema);
+        }
+        space.tagIndexes = unmodifiable(metaClient.listTagIndexes(spaceId));
+        space.edgeIndexes = unmodifiable(metaClient.listEdgeIndexes(spaceId));
+        spaces.put(spaceId, space);
+        return space;
+    }
+
+    private Schema getVersionedSchema(SchemaKey key) {
+        synchronized (versionedSchemas) {
+            return versionedSchemas.get(key);
+        }
+    }
+
+    private void putVersionedSchema(SchemaKey key, Schema schema) {
+        synchronized (versionedSchemas) {
+            versionedSchemas.put(key, schema);
+        }
+    }
+
+    private <T> List<T> unmodifiable(List<T> items) {
+        return items == null ? Collections.emptyList() : Collections.unmodifiableList(items);
+    }
+}
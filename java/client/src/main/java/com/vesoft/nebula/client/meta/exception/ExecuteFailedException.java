@@ -0,0 +1,25 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.meta.exception;
+
+/**
+ * The request to the meta server returns an error code of
+ * {@link com.vesoft.nebula.meta.ErrorCode}, the errors of the storage server are
+ * thrown as {@link com.vesoft.nebula.client.storage.exception.StorageExecuteFailedException}.
+ */
+public class ExecuteFailedException extends Exception {
+    private final int errorCode;
+
+    public ExecuteFailedException(int errorCode, String message) {
+        super(String.format("Execute failed: %s, error code: %d", message, errorCode));
+        this.errorCode = errorCode;
+    }
+
+    public int getErrorCode() {
+        return errorCode;
+    }
+}
@@ -0,0 +1,288 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.client.storage.exception.StorageExecuteFailedException;
+import com.vesoft.nebula.storage.ExecResponse;
+import com.vesoft.nebula.storage.PartitionResult;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write the rows to the leaders of their partitions directly. The rows are
+ * buffered by partition, and the buffer is sent when it has batchSize rows
+ * or every flushInterval ms, one request to each leader with all the partitions
+ * it leads. At most maxInFlightBatches requests are sent at the same time,
+ * adding rows waits when they are all in flight.
+ * The writer fails once a request fails, the error is thrown from the next
+ * add, flush or close. The rows can't be added after it's closed.
+ *
+ * @param <T> The row type, NewVertex or NewEdge.
+ */
+public abstract class BulkWriter<T> {
+    private static final int retryTime = 3;
+    protected final int spaceId;
+    protected final BulkWriterConfig config;
+    private final int partNum;
+    private final PartLeaderCache leaderCache;
+    private final int timeout;
+    private Map<Integer, List<T>> buffer = new HashMap<>();
+    private int bufferedRows = 0;
+    private final Semaphore inFlight;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService flusher;
+    private final Map<HostAddress, Queue<StorageConnection>> idleConns =
+            new ConcurrentHashMap<>();
+    private volatile Exception error = null;
+    private volatile boolean closed = false;
+
+    protected BulkWriter(int spaceId,
+                         PartLeaderCache leaderCache,
+                         int timeout,
+                         BulkWriterConfig config)
+            throws ExecuteFailedException, IOErrorException {
+        this.spaceId = spaceId;
+        this.leaderCache = leaderCache;
+        this.timeout = timeout;
+        this.config = config;
+        this.partNum = leaderCache.getPartNum(spaceId);
+        int maxInFlight = Math.max(1, config.getMaxInFlightBatches());
+        this.inFlight = new Semaphore(maxInFlight);
+        this.senders = Executors.newFixedThreadPool(maxInFlight, r -> {
+            Thread thread = new Thread(r, "BulkWriter-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BulkWriter-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (config.getFlushInterval() > 0) {
+            flusher.scheduleWithFixedDelay(this::flushBuffered, config.getFlushInterval(),
+                    config.getFlushInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return The vertex id which decides the partition of the row.
+     */
+    protected abstract Value getVid(T row);
+
+    /**
+     * Send the rows of the partitions to their leader.
+     */
+    protected abstract ExecResponse send(StorageConnection connection,
+                                         Map<Integer, List<T>> parts)
+            throws IOErrorException;
+
+    protected void add(T row) throws ExecuteFailedException, IOErrorException {
+        checkError();
+        int part = PartitionHash.getPartId(getVid(row), partNum);
+        synchronized (this) {
+            checkOpen();
+            buffer.computeIfAbsent(part, k -> new ArrayList<>()).add(row);
+            if (++bufferedRows >= config.getBatchSize()) {
+                sendBuffered();
+            }
+        }
+    }
+
+    /**
+     * Send the buffered rows and wait for all the requests in flight.
+     */
+    public void flush() throws ExecuteFailedException, IOErrorException {
+        synchronized (this) {
+            sendBuffered();
+        }
+        int permits = Math.max(1, config.getMaxInFlightBatches());
+        try {
+            inFlight.acquire(permits);
+            inFlight.release(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, "flush is interrupted");
+        }
+        checkError();
+    }
+
+    /**
+     * Flush the rows and release the connections.
+     */
+    public void close() throws ExecuteFailedException, IOErrorException {
+        // The timed flush in progress isn't interrupted, or its rows would be lost
+        flusher.shutdown();
+        try {
+            awaitFlusher();
+            flush();
+        } finally {
+            synchronized (this) {
+                closed = true;
+            }
+            senders.shutdownNow();
+            for (Queue<StorageConnection> conns : idleConns.values()) {
+                for (StorageConnection conn : conns) {
+                    conn.close();
+                }
+            }
+            idleConns.clear();
+        }
+    }
+
+    private void awaitFlusher() throws IOErrorException {
+        try {
+            flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, "close is interrupted");
+        }
+    }
+
+    private void flushBuffered() {
+        synchronized (this) {
+            try {
+                sendBuffered();
+            } catch (ExecuteFailedException | IOErrorException e) {
+                // It's thrown from the next call of the user
+                setError(e);
+            }
+        }
+    }
+
+    // It is called with the lock held. The rows of each leader are taken out of
+    // the buffer only after their request is submitted, so the rows not sent are
+    // kept in the buffer when it fails or it's interrupted.
+    private void sendBuffered() throws ExecuteFailedException, IOErrorException {
+        if (bufferedRows == 0) {
+            return;
+        }
+        for (Map.Entry<HostAddress, Map<Integer, List<T>>> entry
+                : groupByLeader(buffer).entrySet()) {
+            checkOpen();
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOErrorException(IOErrorException.E_UNKNOWN, "write is interrupted");
+            }
+            try {
+                senders.submit(() -> {
+                    try {
+                        sendBatch(entry.getKey(), entry.getValue(), retryTime);
+                    } catch (Exception e) {
+                        setError(e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The task never runs, so the permit isn't released by it
+                inFlight.release();
+                throw new IOErrorException(IOErrorException.E_UNKNOWN, "The writer is closed");
+            }
+            for (Map.Entry<Integer, List<T>> part : entry.getValue().entrySet()) {
+                buffer.remove(part.getKey());
+                bufferedRows -= part.getValue().size();
+            }
+        }
+    }
+
+    private void sendBatch(HostAddress leader, Map<Integer, List<T>> parts, int retry)
+            throws ExecuteFailedException, IOErrorException {
+        StorageConnection connection = borrowConnection(leader);
+        ExecResponse resp;
+        try {
+            resp = send(connection, parts);
+        } catch (IOErrorException e) {
+            connection.close();
+            throw e;
+        }
+        returnConnection(leader, connection);
+        if (resp.result == null || resp.result.failed_parts == null
+                || resp.result.failed_parts.isEmpty()) {
+            return;
+        }
+        Map<Integer, List<T>> retryParts = new HashMap<>();
+        for (PartitionResult failed : resp.result.failed_parts) {
+            if (!leaderCache.handleFailedPart(spaceId, failed) || retry <= 0) {
+                throw new StorageExecuteFailedException(failed.code, failed.part_id,
+                        String.format("write part %d to %s", failed.part_id, leader));
+            }
+            retryParts.put(failed.part_id, parts.get(failed.part_id));
+        }
+        for (Map.Entry<HostAddress, Map<Integer, List<T>>> entry
+                : groupByLeader(retryParts).entrySet()) {
+            sendBatch(entry.getKey(), entry.getValue(), retry - 1);
+        }
+    }
+
+    private Map<HostAddress, Map<Integer, List<T>>> groupByLeader(Map<Integer, List<T>> parts)
+            throws ExecuteFailedException, IOErrorException {
+        Map<HostAddress, Map<Integer, List<T>>> groups = new HashMap<>();
+        for (Map.Entry<Integer, List<T>> entry : parts.entrySet()) {
+            HostAddress leader = leaderCache.getLeader(spaceId, entry.getKey());
+            groups.computeIfAbsent(leader, k -> new HashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+        return groups;
+    }
+
+    private StorageConnection borrowConnection(HostAddress address) throws IOErrorException {
+        Queue<StorageConnection> conns = idleConns.get(address);
+        StorageConnection connection = conns == null ? null : conns.poll();
+        if (connection == null) {
+            connection = new StorageConnection();
+            connection.open(address, timeout);
+        }
+        return connection;
+    }
+
+    private void returnConnection(HostAddress address, StorageConnection connection) {
+        idleConns.computeIfAbsent(address, k -> new ConcurrentLinkedQueue<>()).offer(connection);
+    }
+
+    private void setError(Exception e) {
+        if (error == null) {
+            error = e;
+        }
+    }
+
+    // It is called with the lock held
+    private void checkOpen() throws IOErrorException {
+        if (closed) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, "The writer is closed");
+        }
+    }
+
+    private void checkError() throws ExecuteFailedException, IOErrorException {
+        Exception e = error;
+        if (e instanceof ExecuteFailedException) {
+            throw (ExecuteFailedException) e;
+        }
+        if (e instanceof IOErrorException) {
+            throw (IOErrorException) e;
+        }
+        if (e != null) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+        }
+    }
+}
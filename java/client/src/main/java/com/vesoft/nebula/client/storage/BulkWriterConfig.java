@@ -0,0 +1,55 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+public class BulkWriterConfig {
+    // The buffered rows are sent when the number of them reaches batchSize
+    private int batchSize = 1024;
+
+    // The buffered rows are sent when they are buffered more than flushInterval,
+    // unit: millisecond, 0 means only flush by batchSize
+    private int flushInterval = 1000;
+
+    // The max number of batches being sent at the same time, adding rows
+    // waits when it's reached
+    private int maxInFlightBatches = 4;
+
+    // Overwrite the existing vertices and edges
+    private boolean overwritable = true;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(int flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getMaxInFlightBatches() {
+        return maxInFlightBatches;
+    }
+
+    public void setMaxInFlightBatches(int maxInFlightBatches) {
+        this.maxInFlightBatches = maxInFlightBatches;
+    }
+
+    public boolean isOverwritable() {
+        return overwritable;
+    }
+
+    public void setOverwritable(boolean overwritable) {
+        this.overwritable = overwritable;
+    }
+}
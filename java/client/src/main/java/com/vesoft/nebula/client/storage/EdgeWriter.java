@@ -0,0 +1,65 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.storage.AddEdgesRequest;
+import com.vesoft.nebula.storage.EdgeKey;
+import com.vesoft.nebula.storage.ExecResponse;
+import com.vesoft.nebula.storage.NewEdge;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the edges of one edge type with the same properties. Like INSERT EDGE
+ * of the graph server, each edge is written twice: the out-edge to the partition
+ * of its source vertex, and the in-edge with the negative edge type to the
+ * partition of its destination vertex, so it's found by the reverse traversal.
+ */
+public class EdgeWriter extends BulkWriter<NewEdge> {
+    private final int edgeType;
+    private final List<byte[]> propNames;
+
+    EdgeWriter(int spaceId,
+               int edgeType,
+               List<byte[]> propNames,
+               PartLeaderCache leaderCache,
+               int timeout,
+               BulkWriterConfig config)
+            throws ExecuteFailedException, IOErrorException {
+        super(spaceId, leaderCache, timeout, config);
+        this.edgeType = edgeType;
+        this.propNames = propNames;
+    }
+
+    /**
+     * @param src The source vertex id.
+     * @param dst The destination vertex id.
+     * @param ranking The ranking of the edge.
+     * @param props The values of the properties, in the order of the property names.
+     */
+    public void addEdge(Value src, Value dst, long ranking, List<Value> props)
+            throws ExecuteFailedException, IOErrorException {
+        add(new NewEdge(new EdgeKey(src, edgeType, ranking, dst), props));
+        add(new NewEdge(new EdgeKey(dst, -edgeType, ranking, src), props));
+    }
+
+    // The in-edge is keyed by the destination vertex as its source
+    @Override
+    protected Value getVid(NewEdge row) {
+        return row.key.src;
+    }
+
+    @Override
+    protected ExecResponse send(StorageConnection connection, Map<Integer, List<NewEdge>> parts)
+            throws IOErrorException {
+        return connection.addEdges(
+                new AddEdgesRequest(spaceId, parts, propNames, config.isOverwritable()));
+    }
+}
@@ -0,0 +1,195 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.HostAddr;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.MetaClient;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.client.storage.exception.StorageExecuteFailedException;
+import com.vesoft.nebula.meta.PartItem;
+import com.vesoft.nebula.storage.ErrorCode;
+import com.vesoft.nebula.storage.PartitionResult;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The leader of each partition, so the requests go to the leader directly.
+ * The partitions of a space and their leaders are loaded from the meta server
+ * at the first use. The partitions are fixed once the space is created, only
+ * their leaders are updated one by one from the leader returned with
+ * E_LEADER_CHANGED by the storage servers. The leader of a partition is marked
+ * unknown when the new leader isn't returned, and it's loaded again at the next use.
+ */
+public class PartLeaderCache {
+    private final MetaClient metaClient;
+    private final Map<Integer, SpaceParts> spaces = new ConcurrentHashMap<>();
+
+    private static class SpaceParts {
+        private final Map<Integer, List<HostAddress>> peers;
+        private final List<Integer> partIds;
+        // The leader of each partition, null means the leader is unknown
+        private final Map<Integer, AtomicReference<HostAddress>> leaders = new HashMap<>();
+
+        SpaceParts(Map<Integer, List<HostAddress>> peers) {
+            this.peers = peers;
+            List<Integer> ids = new ArrayList<>(peers.keySet());
+            Collections.sort(ids);
+            this.partIds = Collections.unmodifiableList(ids);
+            for (int partId : ids) {
+                leaders.put(partId, new AtomicReference<>());
+            }
+        }
+    }
+
+    public PartLeaderCache(MetaClient metaClient) {
+        this.metaClient = metaClient;
+    }
+
+    /**
+     * @param spaceId The space id.
+     * @return The ids of all the partitions of the space in order.
+     */
+    public List<Integer> getPartIds(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        return getSpace(spaceId).partIds;
+    }
+
+    /**
+     * @param spaceId The space id.
+     * @return The number of the partitions of the space.
+     */
+    public int getPartNum(int spaceId) throws ExecuteFailedException, IOErrorException {
+        return getSpace(spaceId).partIds.size();
+    }
+
+    /**
+     * @param spaceId The space id.
+     * @return The map from the partition id to its leader, the unknown leaders
+     *     are loaded again before it returns.
+     */
+    public Map<Integer, HostAddress> getLeaders(int spaceId)
+            throws ExecuteFailedException, IOErrorException {
+        SpaceParts space = getSpace(spaceId);
+        Map<Integer, HostAddress> spaceLeaders = new HashMap<>();
+        for (int partId : space.partIds) {
+            spaceLeaders.put(partId, resolveLeader(spaceId, space, partId));
+        }
+        return Collections.unmodifiableMap(spaceLeaders);
+    }
+
+    public HostAddress getLeader(int spaceId, int partId)
+            throws ExecuteFailedException, IOErrorException {
+        return resolveLeader(spaceId, getSpace(spaceId), partId);
+    }
+
+    /**
+     * Set the leader of the partition, it's ignored if the space isn't loaded yet.
+     */
+    public void updateLeader(int spaceId, int partId, HostAddress leader) {
+        AtomicReference<HostAddress> ref = getLeaderRef(spaceId, partId);
+        if (ref != null) {
+            ref.set(leader);
+        }
+    }
+
+    /**
+     * Mark the leader of the partition unknown, it's loaded again at the next use.
+     */
+    public void invalidate(int spaceId, int partId) {
+        AtomicReference<HostAddress> ref = getLeaderRef(spaceId, partId);
+        if (ref != null) {
+            ref.set(null);
+        }
+    }
+
+    public void invalidate(int spaceId) {
+        spaces.remove(spaceId);
+    }
+
+    /**
+     * Update the cache by the failed partition from the storage server.
+     *
+     * @param spaceId The space id.
+     * @param result The failed partition.
+     * @return true if the leader has changed, and the request should be sent
+     *     to the new leader.
+     */
+    public boolean handleFailedPart(int spaceId, PartitionResult result) {
+        if (result.code != ErrorCode.E_LEADER_CHANGED) {
+            return false;
+        }
+        HostAddr leader = result.leader;
+        if (leader == null || leader.host == null || leader.host.isEmpty()) {
+            invalidate(spaceId, result.part_id);
+        } else {
+            updateLeader(spaceId, result.part_id, MetaClient.toHostAddress(leader));
+        }
+        return true;
+    }
+
+    private HostAddress resolveLeader(int spaceId, SpaceParts space, int partId)
+            throws ExecuteFailedException, IOErrorException {
+        AtomicReference<HostAddress> ref = space.leaders.get(partId);
+        if (ref == null) {
+            throw new StorageExecuteFailedException(ErrorCode.E_PART_NOT_FOUND, partId,
+                    String.format("part %d not found in space %d", partId, spaceId));
+        }
+        HostAddress leader = ref.get();
+        if (leader == null) {
+            loadLeaders(spaceId, space);
+            leader = ref.get();
+        }
+        if (leader == null) {
+            throw new StorageExecuteFailedException(ErrorCode.E_LEADER_CHANGED, partId,
+                    String.format("leader of part %d not found in space %d", partId, spaceId));
+        }
+        return leader;
+    }
+
+    private AtomicReference<HostAddress> getLeaderRef(int spaceId, int partId) {
+        SpaceParts space = spaces.get(spaceId);
+        return space == null ? null : space.leaders.get(partId);
+    }
+
+    private SpaceParts getSpace(int spaceId) throws ExecuteFailedException, IOErrorException {
+        SpaceParts space = spaces.get(spaceId);
+        if (space == null) {
+            space = new SpaceParts(metaClient.getPartsAlloc(spaceId));
+            loadLeaders(spaceId, space);
+            spaces.put(spaceId, space);
+        }
+        return space;
+    }
+
+    private void loadLeaders(int spaceId, SpaceParts space)
+            throws ExecuteFailedException, IOErrorException {
+        Map<Integer, HostAddress> loaded = new HashMap<>();
+        for (PartItem item : metaClient.listParts(spaceId, space.partIds)) {
+            if (item.leader != null) {
+                loaded.put(item.part_id, MetaClient.toHostAddress(item.leader));
+            }
+        }
+        for (Map.Entry<Integer, AtomicReference<HostAddress>> entry : space.leaders.entrySet()) {
+            HostAddress leader = loaded.get(entry.getKey());
+            List<HostAddress> peers = space.peers.get(entry.getKey());
+            // The partition without leader now is tried on its first peer
+            if (leader == null && !peers.isEmpty()) {
+                leader = peers.get(0);
+            }
+            if (leader != null) {
+                entry.getValue().set(leader);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.Value;
+
+/**
+ * The partition of the vertex id, the same as the servers: an id of 8 bytes
+ * is taken as a little endian integer, the other ids are hashed by MurmurHash2.
+ */
+public final class PartitionHash {
+    private static final long SEED = 0xc70f6907L;
+    private static final long M = 0xc6a4a7935bd1e995L;
+    private static final int R = 47;
+
+    private PartitionHash() {
+    }
+
+    /**
+     * @param vid The vertex id, an int or a string.
+     * @param partNum The number of partitions of the space.
+     * @return The partition id, starts from 1.
+     */
+    public static int getPartId(Value vid, int partNum) {
+        long hash;
+        if (vid.getSetField() == Value.IVAL) {
+            hash = vid.getIVal();
+        } else if (vid.getSetField() == Value.SVAL) {
+            hash = hash(vid.getSVal());
+        } else {
+            throw new IllegalArgumentException("The vertex id should be an int or a string");
+        }
+        return (int) Long.remainderUnsigned(hash, partNum) + 1;
+    }
+
+    static long hash(byte[] id) {
+        if (id.length == 8) {
+            return toLong(id, 0);
+        }
+        return murmurHash64(id);
+    }
+
+    private static long murmurHash64(byte[] data) {
+        int length = data.length;
+        long h = SEED ^ (length * M);
+        int blocks = length / 8;
+        for (int i = 0; i < blocks; i++) {
+            long k = toLong(data, i * 8);
+            k *= M;
+            k ^= k >>> R;
+            k *= M;
+            h ^= k;
+            h *= M;
+        }
+        int tail = blocks * 8;
+        switch (length & 7) {
+            case 7:
+                h ^= (long) (data[tail + 6] & 0xff) << 48;
+                // fall through
+            case 6:
+                h ^= (long) (data[tail + 5] & 0xff) << 40;
+                // fall through
+            case 5:
+                h ^= (long) (data[tail + 4] & 0xff) << 32;
+                // fall through
+            case 4:
+                h ^= (long) (data[tail + 3] & 0xff) << 24;
+                // fall through
+            case 3:
+                h ^= (long) (data[tail + 2] & 0xff) << 16;
+                // fall through
+            case 2:
+                h ^= (long) (data[tail + 1] & 0xff) << 8;
+                // fall through
+            case 1:
+                h ^= data[tail] & 0xff;
+                h *= M;
+                break;
+            default:
+                break;
+        }
+        h ^= h >>> R;
+        h *= M;
+        h ^= h >>> R;
+        return h;
+    }
+
+    private static long toLong(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xff);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,231 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.DataSet;
+import com.vesoft.nebula.Row;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.data.ResultSet;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.client.storage.exception.StorageExecuteFailedException;
+import com.vesoft.nebula.storage.PartitionResult;
+import com.vesoft.nebula.storage.ResponseCommon;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The rows of a full scan. The partitions are scanned page by page by at most
+ * parallelism threads, each of them scans one partition at a time from its leader
+ * in the PartLeaderCache.
+ * The rows are handed over by a bounded queue, so the scan threads wait when the
+ * reader is slower than them. The iterator should be closed if the reader stops
+ * before the end, or the scan threads keep waiting for it, so use it with
+ * try-with-resources.
+ * The error of any partition is thrown from hasNext as an IllegalStateException.
+ */
+public class ScanResultIterator implements Iterator<ResultSet.Record>, AutoCloseable {
+    private static final int retryTime = 3;
+    private static final long waitIntervalMs = 100;
+    private final BlockingQueue<ResultSet.Record> records;
+    private final AtomicInteger remainingParts;
+    private final ExecutorService executor;
+    private final PartScanner scanner;
+    private final PartLeaderCache leaderCache;
+    private final int spaceId;
+    private final int timeout;
+    private volatile Exception error = null;
+    private volatile boolean closed = false;
+    private ResultSet.Record next = null;
+
+    /**
+     * Scan one page of the partition.
+     */
+    interface PartScanner {
+        ScanPage scan(StorageConnection connection, int part, byte[] cursor)
+                throws IOErrorException;
+    }
+
+    static class ScanPage {
+        private final ResponseCommon result;
+        private final DataSet data;
+        private final boolean hasNext;
+        private final byte[] nextCursor;
+
+        ScanPage(ResponseCommon result, DataSet data, boolean hasNext, byte[] nextCursor) {
+            this.result = result;
+            this.data = data;
+            this.hasNext = hasNext;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    ScanResultIterator(int spaceId,
+                       Collection<Integer> parts,
+                       PartLeaderCache leaderCache,
+                       int parallelism,
+                       int queueSize,
+                       int timeout,
+                       PartScanner scanner) {
+        this.records = new LinkedBlockingQueue<>(queueSize);
+        this.remainingParts = new AtomicInteger(parts.size());
+        this.scanner = scanner;
+        this.leaderCache = leaderCache;
+        this.spaceId = spaceId;
+        this.timeout = timeout;
+        this.executor = Executors.newFixedThreadPool(Math.max(1, parallelism), r -> {
+            Thread thread = new Thread(r, "ScanResultIterator-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int part : parts) {
+            executor.submit(() -> {
+                try {
+                    scanPart(part);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    if (error == null) {
+                        error = e;
+                    }
+                } finally {
+                    remainingParts.decrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (next == null) {
+                if (closed) {
+                    return false;
+                }
+                if (error != null) {
+                    close();
+                    throw new IllegalStateException("Scan failed: " + error.getMessage(), error);
+                }
+                next = records.poll(waitIntervalMs, TimeUnit.MILLISECONDS);
+                // The rows are put into the queue before the partition is counted down
+                if (next == null && remainingParts.get() == 0 && records.isEmpty()) {
+                    if (error != null) {
+                        continue;
+                    }
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException("Scan is interrupted", e);
+        }
+    }
+
+    @Override
+    public ResultSet.Record next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ResultSet.Record record = next;
+        next = null;
+        return record;
+    }
+
+    /**
+     * Stop the scan threads and drop the buffered rows, it's needed when the caller
+     * stops reading before the end. hasNext returns false after it's closed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        records.clear();
+    }
+
+    private void scanPart(int part)
+            throws IOErrorException, ExecuteFailedException, InterruptedException {
+        HostAddress leader = leaderCache.getLeader(spaceId, part);
+        StorageConnection connection = new StorageConnection();
+        connection.open(leader, timeout);
+        try {
+            byte[] cursor = null;
+            int retry = retryTime;
+            while (true) {
+                ScanPage page = scanner.scan(connection, part, cursor);
+                PartitionResult failed = getFailedPart(page.result);
+                if (failed != null) {
+                    if (!leaderCache.handleFailedPart(spaceId, failed) || retry-- <= 0) {
+                        throw new StorageExecuteFailedException(failed.code, part,
+                                String.format("scan part %d from %s", part, leader));
+                    }
+                    HostAddress newLeader = leaderCache.getLeader(spaceId, part);
+                    if (!newLeader.equals(leader)) {
+                        leader = newLeader;
+                        connection.close();
+                        connection = new StorageConnection();
+                        connection.open(leader, timeout);
+                    }
+                    continue;
+                }
+                retry = retryTime;
+                if (!putRows(page.data)) {
+                    return;
+                }
+                if (!page.hasNext) {
+                    return;
+                }
+                cursor = page.nextCursor;
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private PartitionResult getFailedPart(ResponseCommon result) {
+        if (result == null || result.failed_parts == null || result.failed_parts.isEmpty()) {
+            return null;
+        }
+        return result.failed_parts.get(0);
+    }
+
+    /**
+     * @return false if the iterator is closed.
+     */
+    private boolean putRows(DataSet data) throws InterruptedException {
+        if (data == null || data.rows == null || data.rows.isEmpty()) {
+            return !closed;
+        }
+        List<String> columnNames = new ArrayList<>(data.column_names.size());
+        for (byte[] column : data.column_names) {
+            columnNames.add(new String(column).intern());
+        }
+        Map<String, Integer> columnIndexes = ResultSet.indexColumns(columnNames);
+        for (Row row : data.rows) {
+            ResultSet.Record record = new ResultSet.Record(columnNames, columnIndexes, row);
+            // Wait in short steps, so the thread stops soon after it's closed
+            while (!records.offer(record, waitIntervalMs, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return false;
+                }
+            }
+        }
+        return !closed;
+    }
+}
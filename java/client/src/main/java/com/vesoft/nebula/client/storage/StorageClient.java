@@ -0,0 +1,192 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.MetaClient;
+import com.vesoft.nebula.client.meta.SchemaCache;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.storage.EdgeProp;
+import com.vesoft.nebula.storage.ScanEdgeRequest;
+import com.vesoft.nebula.storage.ScanEdgeResponse;
+import com.vesoft.nebula.storage.ScanVertexRequest;
+import com.vesoft.nebula.storage.ScanVertexResponse;
+import com.vesoft.nebula.storage.VertexProp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The client reads and writes the vertices and edges on the storage servers directly.
+ * The partitions of the space are got from the meta server, and all of them
+ * are scanned in parallel, each one from its leader.
+ */
+public class StorageClient {
+    private final MetaClient metaClient;
+    private final SchemaCache schemaCache;
+    private final PartLeaderCache leaderCache;
+    private final int timeout;
+    private int queueSize = 1024;
+
+    /**
+     * @param metaAddresses The addresses of the meta servers.
+     * @param timeout The timeout of each request in ms, 0 means no timeout.
+     */
+    public StorageClient(List<HostAddress> metaAddresses, int timeout) {
+        this.metaClient = new MetaClient(metaAddresses, timeout);
+        this.schemaCache = new SchemaCache(metaClient);
+        this.leaderCache = new PartLeaderCache(metaClient);
+        this.timeout = timeout;
+    }
+
+    public void connect() throws IOErrorException {
+        metaClient.connect();
+    }
+
+    public void close() {
+        schemaCache.close();
+        metaClient.close();
+    }
+
+    public MetaClient getMetaClient() {
+        return metaClient;
+    }
+
+    public SchemaCache getSchemaCache() {
+        return schemaCache;
+    }
+
+    public PartLeaderCache getLeaderCache() {
+        return leaderCache;
+    }
+
+    /**
+     * Set the number of rows buffered for the reader, the scan threads wait when it's full.
+     */
+    public void setQueueSize(int queueSize) {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * Scan the vertices of the tag in all the partitions of the space.
+     *
+     * @param spaceName The space name.
+     * @param tagName The tag name.
+     * @param props The properties to return, all properties are returned if it's empty.
+     * @param limit The max number of rows of each page.
+     * @param parallelism The max number of partitions scanned at the same time.
+     * @return The iterator of the rows, the order between partitions isn't kept.
+     */
+    public ScanResultIterator scanVertex(String spaceName,
+                                         String tagName,
+                                         List<String> props,
+                                         int limit,
+                                         int parallelism)
+            throws ExecuteFailedException, IOErrorException {
+        int spaceId = schemaCache.getSpaceId(spaceName);
+        int tagId = schemaCache.getTag(spaceId, tagName).tag_id;
+        List<Integer> parts = leaderCache.getPartIds(spaceId);
+        List<VertexProp> columns = Collections.singletonList(
+                new VertexProp(tagId, toBytesList(props)));
+        return new ScanResultIterator(
+                spaceId, parts, leaderCache, parallelism, queueSize, timeout,
+            (connection, part, cursor) -> {
+                ScanVertexRequest request = new ScanVertexRequest(
+                        spaceId, part, columns, false, limit);
+                if (cursor != null) {
+                    request.setCursor(cursor);
+                }
+                ScanVertexResponse resp = connection.scanVertex(request);
+                return new ScanResultIterator.ScanPage(
+                        resp.result, resp.vertex_data, resp.has_next, resp.next_cursor);
+            });
+    }
+
+    /**
+     * Scan the edges of the edge type in all the partitions of the space.
+     *
+     * @param spaceName The space name.
+     * @param edgeName The edge name.
+     * @param props The properties to return, all properties are returned if it's empty.
+     * @param limit The max number of rows of each page.
+     * @param parallelism The max number of partitions scanned at the same time.
+     * @return The iterator of the rows, the order between partitions isn't kept.
+     */
+    public ScanResultIterator scanEdge(String spaceName,
+                                       String edgeName,
+                                       List<String> props,
+                                       int limit,
+                                       int parallelism)
+            throws ExecuteFailedException, IOErrorException {
+        int spaceId = schemaCache.getSpaceId(spaceName);
+        int edgeType = schemaCache.getEdge(spaceId, edgeName).edge_type;
+        List<Integer> parts = leaderCache.getPartIds(spaceId);
+        List<EdgeProp> columns = Collections.singletonList(
+                new EdgeProp(edgeType, toBytesList(props)));
+        return new ScanResultIterator(
+                spaceId, parts, leaderCache, parallelism, queueSize, timeout,
+            (connection, part, cursor) -> {
+                ScanEdgeRequest request = new ScanEdgeRequest(
+                        spaceId, part, columns, false, limit);
+                if (cursor != null) {
+                    request.setCursor(cursor);
+                }
+                ScanEdgeResponse resp = connection.scanEdge(request);
+                return new ScanResultIterator.ScanPage(
+                        resp.result, resp.edge_data, resp.has_next, resp.next_cursor);
+            });
+    }
+
+    /**
+     * Create the writer of the vertices of the tag.
+     *
+     * @param spaceName The space name.
+     * @param tagName The tag name.
+     * @param props The property names, the values of each vertex are in the same order.
+     * @param config The batch and flush config.
+     * @return The writer, it should be closed to flush the last rows.
+     */
+    public VertexWriter newVertexWriter(String spaceName,
+                                        String tagName,
+                                        List<String> props,
+                                        BulkWriterConfig config)
+            throws ExecuteFailedException, IOErrorException {
+        int spaceId = schemaCache.getSpaceId(spaceName);
+        int tagId = schemaCache.getTag(spaceId, tagName).tag_id;
+        return new VertexWriter(spaceId, tagId, toBytesList(props), leaderCache, timeout, config);
+    }
+
+    /**
+     * Create the writer of the edges of the edge type.
+     *
+     * @param spaceName The space name.
+     * @param edgeName The edge name.
+     * @param props The property names, the values of each edge are in the same order.
+     * @param config The batch and flush config.
+     * @return The writer, it should be closed to flush the last rows.
+     */
+    public EdgeWriter newEdgeWriter(String spaceName,
+                                    String edgeName,
+                                    List<String> props,
+                                    BulkWriterConfig config)
+            throws ExecuteFailedException, IOErrorException {
+        int spaceId = schemaCache.getSpaceId(spaceName);
+        int edgeType = schemaCache.getEdge(spaceId, edgeName).edge_type;
+        return new EdgeWriter(spaceId, edgeType, toBytesList(props), leaderCache, timeout, config);
+    }
+
+    private List<byte[]> toBytesList(List<String> props) {
+        List<byte[]> bytes = new ArrayList<>();
+        if (props != null) {
+            for (String prop : props) {
+                bytes.add(prop.getBytes());
+            }
+        }
+        return bytes;
+    }
+}
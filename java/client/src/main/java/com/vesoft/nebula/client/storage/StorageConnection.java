@@ -0,0 +1,97 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.facebook.thrift.TException;
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.transport.TSocket;
+import com.facebook.thrift.transport.TTransport;
+import com.facebook.thrift.transport.TTransportException;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.storage.AddEdgesRequest;
+import com.vesoft.nebula.storage.AddVerticesRequest;
+import com.vesoft.nebula.storage.ExecResponse;
+import com.vesoft.nebula.storage.GraphStorageService;
+import com.vesoft.nebula.storage.ScanEdgeRequest;
+import com.vesoft.nebula.storage.ScanEdgeResponse;
+import com.vesoft.nebula.storage.ScanVertexRequest;
+import com.vesoft.nebula.storage.ScanVertexResponse;
+
+/**
+ * The blocking connection to one storage server, it's not thread safe.
+ */
+public class StorageConnection {
+    private HostAddress serverAddr = null;
+    private TTransport transport = null;
+    private GraphStorageService.Client client = null;
+
+    public void open(HostAddress address, int timeout) throws IOErrorException {
+        this.serverAddr = address;
+        try {
+            int newTimeout = timeout <= 0 ? Integer.MAX_VALUE : timeout;
+            this.transport = new TSocket(
+                    address.getHost(), address.getPort(), newTimeout, newTimeout);
+            this.transport.open();
+            this.client = new GraphStorageService.Client(new TCompactProtocol(transport));
+        } catch (TException e) {
+            throw new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+        }
+    }
+
+    public HostAddress getServerAddress() {
+        return this.serverAddr;
+    }
+
+    public ScanVertexResponse scanVertex(ScanVertexRequest request) throws IOErrorException {
+        try {
+            return client.scanVertex(request);
+        } catch (TException e) {
+            throw toIOError(e);
+        }
+    }
+
+    public ScanEdgeResponse scanEdge(ScanEdgeRequest request) throws IOErrorException {
+        try {
+            return client.scanEdge(request);
+        } catch (TException e) {
+            throw toIOError(e);
+        }
+    }
+
+    public ExecResponse addVertices(AddVerticesRequest request) throws IOErrorException {
+        try {
+            return client.addVertices(request);
+        } catch (TException e) {
+            throw toIOError(e);
+        }
+    }
+
+    public ExecResponse addEdges(AddEdgesRequest request) throws IOErrorException {
+        try {
+            return client.addEdges(request);
+        } catch (TException e) {
+            throw toIOError(e);
+        }
+    }
+
+    public void close() {
+        if (transport != null) {
+            transport.close();
+        }
+    }
+
+    private IOErrorException toIOError(TException e) {
+        if (e instanceof TTransportException) {
+            TTransportException te = (TTransportException) e;
+            if (te.getType() == TTransportException.END_OF_FILE) {
+                return new IOErrorException(IOErrorException.E_CONNECT_BROKEN, te.getMessage());
+            }
+        }
+        return new IOErrorException(IOErrorException.E_UNKNOWN, e.getMessage());
+    }
+}
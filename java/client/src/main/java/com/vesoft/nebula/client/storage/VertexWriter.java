@@ -0,0 +1,59 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.storage.AddVerticesRequest;
+import com.vesoft.nebula.storage.ExecResponse;
+import com.vesoft.nebula.storage.NewTag;
+import com.vesoft.nebula.storage.NewVertex;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write the vertices of one tag with the same properties.
+ */
+public class VertexWriter extends BulkWriter<NewVertex> {
+    private final int tagId;
+    private final Map<Integer, List<byte[]>> propNames;
+
+    VertexWriter(int spaceId,
+                 int tagId,
+                 List<byte[]> propNames,
+                 PartLeaderCache leaderCache,
+                 int timeout,
+                 BulkWriterConfig config)
+            throws ExecuteFailedException, IOErrorException {
+        super(spaceId, leaderCache, timeout, config);
+        this.tagId = tagId;
+        this.propNames = Collections.singletonMap(tagId, propNames);
+    }
+
+    /**
+     * @param vid The vertex id.
+     * @param props The values of the properties, in the order of the property names.
+     */
+    public void addVertex(Value vid, List<Value> props)
+            throws ExecuteFailedException, IOErrorException {
+        add(new NewVertex(vid, Collections.singletonList(new NewTag(tagId, props))));
+    }
+
+    @Override
+    protected Value getVid(NewVertex row) {
+        return row.id;
+    }
+
+    @Override
+    protected ExecResponse send(StorageConnection connection, Map<Integer, List<NewVertex>> parts)
+            throws IOErrorException {
+        return connection.addVertices(
+                new AddVerticesRequest(spaceId, parts, propNames, config.isOverwritable()));
+    }
+}
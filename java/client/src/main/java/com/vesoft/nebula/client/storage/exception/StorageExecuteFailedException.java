@@ -0,0 +1,26 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage.exception;
+
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+
+/**
+ * The request to the storage server fails with a partition error, the error code
+ * is one of {@link com.vesoft.nebula.storage.ErrorCode}, not of the meta server.
+ */
+public class StorageExecuteFailedException extends ExecuteFailedException {
+    private final int partId;
+
+    public StorageExecuteFailedException(int errorCode, int partId, String message) {
+        super(errorCode, message);
+        this.partId = partId;
+    }
+
+    public int getPartId() {
+        return partId;
+    }
+}
@@ -0,0 +1,154 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.facebook.thrift.protocol;
+
+import com.facebook.thrift.TException;
+import com.facebook.thrift.transport.TMemoryBuffer;
+import com.facebook.thrift.transport.TMemoryInputTransport;
+import com.facebook.thrift.transport.TSocket;
+import com.facebook.thrift.transport.TTransport;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTCompactProtocol {
+    private static final int fieldNum = 20;
+
+    private static short fieldId(int i) {
+        return (short) (i * 3 + 1);
+    }
+
+    private static byte fieldType(int i) {
+        switch (i % 3) {
+            case 0:
+                return TType.DOUBLE;
+            case 1:
+                return TType.FLOAT;
+            default:
+                return TType.STRING;
+        }
+    }
+
+    private static byte[] binaryOf(int i) {
+        byte[] bytes = new byte[i * 2];
+        for (int j = 0; j < bytes.length; j++) {
+            bytes[j] = (byte) (i + j);
+        }
+        return bytes;
+    }
+
+    /**
+     * The struct of doubles, floats and binaries after shift bytes, so the values
+     * are split at the different positions by the buffer of the transport.
+     */
+    private static byte[] encode(int shift) throws TException {
+        TMemoryBuffer buffer = new TMemoryBuffer(1024);
+        TCompactProtocol protocol = new TCompactProtocol(buffer);
+        for (int i = 0; i < shift; i++) {
+            protocol.writeByte((byte) i);
+        }
+        protocol.writeStructBegin(new TStruct("s"));
+        for (int i = 0; i < fieldNum; i++) {
+            protocol.writeFieldBegin(new TField("f", fieldType(i), fieldId(i)));
+            if (fieldType(i) == TType.DOUBLE) {
+                protocol.writeDouble(Math.PI * i);
+            } else if (fieldType(i) == TType.FLOAT) {
+                protocol.writeFloat(i / 3f);
+            } else {
+                protocol.writeBinary(binaryOf(i));
+            }
+            protocol.writeFieldEnd();
+        }
+        // The field ids not written by the delta
+        protocol.writeFieldBegin(new TField("f", TType.I64, (short) 1000));
+        protocol.writeI64(Long.MIN_VALUE);
+        protocol.writeFieldEnd();
+        protocol.writeFieldBegin(new TField("f", TType.STRING, (short) 2));
+        protocol.writeBinary(new byte[0]);
+        protocol.writeFieldEnd();
+        protocol.writeFieldStop();
+        protocol.writeStructEnd();
+        return Arrays.copyOf(buffer.getArray(), buffer.length());
+    }
+
+    private static void decode(TTransport transport, int shift) throws TException {
+        TCompactProtocol protocol = new TCompactProtocol(transport);
+        for (int i = 0; i < shift; i++) {
+            Assert.assertEquals((byte) i, protocol.readByte());
+        }
+        protocol.readStructBegin();
+        for (int i = 0; i < fieldNum; i++) {
+            TField field = protocol.readFieldBegin();
+            Assert.assertEquals(fieldId(i), field.id);
+            Assert.assertEquals(fieldType(i), field.type);
+            if (field.type == TType.DOUBLE) {
+                Assert.assertEquals(Math.PI * i, protocol.readDouble(), 0);
+            } else if (field.type == TType.FLOAT) {
+                Assert.assertEquals(i / 3f, protocol.readFloat(), 0);
+            } else {
+                Assert.assertArrayEquals(binaryOf(i), protocol.readBinary());
+            }
+            protocol.readFieldEnd();
+        }
+        TField field = protocol.readFieldBegin();
+        Assert.assertEquals(1000, field.id);
+        Assert.assertEquals(TType.I64, field.type);
+        Assert.assertEquals(Long.MIN_VALUE, protocol.readI64());
+        field = protocol.readFieldBegin();
+        Assert.assertEquals(2, field.id);
+        Assert.assertEquals(0, protocol.readBinary().length);
+        Assert.assertEquals(TType.STOP, protocol.readFieldBegin().type);
+        protocol.readStructEnd();
+    }
+
+    // Serve the bytes to one client, and close the connection after them
+    private static TSocket connect(ServerSocket server, byte[] data, int bufferSize)
+            throws Exception {
+        CompletableFuture.runAsync(() -> {
+            try (Socket socket = server.accept();
+                 OutputStream out = socket.getOutputStream()) {
+                out.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        TSocket transport = new TSocket("127.0.0.1", server.getLocalPort(), 5000, 5000,
+                bufferSize);
+        transport.open();
+        return transport;
+    }
+
+    @Test()
+    public void testMemoryTransport() throws Exception {
+        // All the values are decoded from the buffer of the transport
+        for (int shift = 0; shift < 8; shift++) {
+            decode(new TMemoryInputTransport(encode(shift)), shift);
+        }
+    }
+
+    @Test()
+    public void testAcrossSocketBuffer() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            for (int bufferSize : new int[] {1, 3, 5, 8, 13, 64}) {
+                for (int shift = 0; shift < 8; shift++) {
+                    TSocket transport = connect(server, encode(shift), bufferSize);
+                    try {
+                        decode(transport, shift);
+                    } finally {
+                        transport.close();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.facebook.thrift.transport;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTFramedTransport {
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private static void writeFrame(TTransport transport, byte[] data) throws Exception {
+        transport.write(data, 0, data.length);
+        transport.flush();
+    }
+
+    private static byte[] readFrame(TTransport transport, int size) throws Exception {
+        byte[] data = new byte[size];
+        transport.readAll(data, 0, size);
+        return data;
+    }
+
+    @Test()
+    public void testRoundTrip() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        TFramedTransport writer = new TFramedTransport(pipe);
+        TFramedTransport reader = new TFramedTransport(pipe);
+        int[] sizes = {1, 100, 5000, 10, 70000, 3};
+        for (int size : sizes) {
+            writeFrame(writer, randomBytes(size));
+        }
+        for (int size : sizes) {
+            Assert.assertArrayEquals(randomBytes(size), readFrame(reader, size));
+            Assert.assertEquals(0, reader.getBytesRemainingInBuffer());
+        }
+    }
+
+    @Test()
+    public void testReuseReadBuffer() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        TFramedTransport writer = new TFramedTransport(pipe);
+        writeFrame(writer, randomBytes(5000));
+        writeFrame(writer, randomBytes(10));
+        writeFrame(writer, randomBytes(2 * 1024 * 1024));
+        writeFrame(writer, randomBytes(20));
+
+        TFramedTransport reader = new TFramedTransport(pipe);
+        Assert.assertArrayEquals(randomBytes(5000), readFrame(reader, 5000));
+        byte[] buffer = reader.getBuffer();
+        // The smaller frame is read into the buffer of the last one
+        Assert.assertArrayEquals(randomBytes(10), readFrame(reader, 10));
+        Assert.assertSame(buffer, reader.getBuffer());
+        Assert.assertEquals(0, reader.getBytesRemainingInBuffer());
+
+        // The buffer of the large frame isn't retained by the next one
+        Assert.assertArrayEquals(randomBytes(2 * 1024 * 1024),
+                readFrame(reader, 2 * 1024 * 1024));
+        Assert.assertArrayEquals(randomBytes(20), readFrame(reader, 20));
+        Assert.assertEquals(20, reader.getBuffer().length);
+    }
+
+    @Test()
+    public void testPartialReads() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        TFramedTransport writer = new TFramedTransport(pipe);
+        TFramedTransport reader = new TFramedTransport(pipe);
+        byte[] first = randomBytes(300);
+        byte[] second = randomBytes(200);
+        writeFrame(writer, first);
+        writeFrame(writer, second);
+
+        // The protocol reads the frame from the buffer directly
+        Assert.assertArrayEquals(Arrays.copyOf(first, 100), readFrame(reader, 100));
+        Assert.assertEquals(200, reader.getBytesRemainingInBuffer());
+        Assert.assertEquals(first[100], reader.getBuffer()[reader.getBufferPosition()]);
+        reader.consumeBuffer(200);
+
+        // The read doesn't cross the frames
+        byte[] buf = new byte[500];
+        Assert.assertEquals(200, reader.read(buf, 0, buf.length));
+        Assert.assertArrayEquals(second, Arrays.copyOf(buf, 200));
+    }
+
+    @Test()
+    public void testFrameTooLarge() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        TFramedTransport writer = new TFramedTransport(pipe);
+        writeFrame(writer, randomBytes(100));
+        try {
+            readFrame(new TFramedTransport(pipe, 50), 1);
+            Assert.fail();
+        } catch (TTransportException e) {
+            System.out.println("We expect must reach here: frame too large.");
+        }
+    }
+}
@@ -0,0 +1,229 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.facebook.thrift.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.Deflater;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTHeaderTransport {
+    private static final int[] zlib = {THeaderTransport.ZLIB_TRANSFORM};
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    // The bytes repeat, so they are compressed well
+    private static byte[] repeatedBytes(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i % 7);
+        }
+        return data;
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buf = new byte[data.length + 64];
+        int len = deflater.deflate(buf);
+        deflater.end();
+        return Arrays.copyOf(buf, len);
+    }
+
+    private static void writeFrame(TTransport transport, byte[] data) throws Exception {
+        transport.write(data, 0, data.length);
+        transport.flush();
+    }
+
+    private static byte[] readFrame(TTransport transport, int size) throws Exception {
+        byte[] data = new byte[size];
+        transport.readAll(data, 0, size);
+        return data;
+    }
+
+    private static void encodeShort(int value, byte[] buf, int off) {
+        buf[off] = (byte) (value >> 8);
+        buf[off + 1] = (byte) value;
+    }
+
+    // Build the header frame with the header padded to the words
+    private static byte[] headerFrame(int headerWords, byte[] header, byte[] payload) {
+        int size = 10 + headerWords * 4 + payload.length;
+        byte[] fixed = new byte[14];
+        TFramedTransport.encodeWord(size, fixed);
+        encodeShort(THeaderTransport.HEADER_MAGIC, fixed, 4);
+        encodeShort(headerWords, fixed, 12);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(fixed, 0, fixed.length);
+        out.write(header, 0, Math.min(header.length, headerWords * 4));
+        for (int i = header.length; i < headerWords * 4; i++) {
+            out.write(0);
+        }
+        out.write(payload, 0, payload.length);
+        return out.toByteArray();
+    }
+
+    private static void assertMalformed(byte[] frame) throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        pipe.write(frame, 0, frame.length);
+        try {
+            readFrame(new THeaderTransport(pipe, zlib), 1);
+            Assert.fail();
+        } catch (THeaderException e) {
+            System.out.println("We expect must reach here: " + e.getMessage());
+        }
+    }
+
+    @Test()
+    public void testUncompressed() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        THeaderTransport writer = new THeaderTransport(pipe, new int[0]);
+        byte[] data = randomBytes(100);
+        writeFrame(writer, data);
+
+        // The protocol id and no transforms are padded to one word
+        byte[] frame = Arrays.copyOf(pipe.getArray(), pipe.length());
+        Assert.assertArrayEquals(headerFrame(1, new byte[] {2, 0}, data), frame);
+
+        int[] sizes = {1, 5000, 10, 70000, 3};
+        for (int size : sizes) {
+            writeFrame(writer, randomBytes(size));
+        }
+        THeaderTransport reader = new THeaderTransport(pipe, new int[0]);
+        Assert.assertArrayEquals(data, readFrame(reader, 100));
+        for (int size : sizes) {
+            Assert.assertArrayEquals(randomBytes(size), readFrame(reader, size));
+            Assert.assertEquals(0, reader.getBytesRemainingInBuffer());
+        }
+    }
+
+    @Test()
+    public void testCompressed() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        THeaderTransport writer = new THeaderTransport(pipe, zlib);
+        byte[] data = repeatedBytes(10000);
+        writeFrame(writer, data);
+        // The header lists the protocol id and the zlib transform
+        Assert.assertTrue(pipe.length() < 1000);
+        Assert.assertEquals(THeaderTransport.HEADER_MAGIC,
+                TFramedTransport.decodeShort(pipe.getArray(), 4));
+        Assert.assertArrayEquals(new byte[] {2, 1, 1, 0},
+                Arrays.copyOfRange(pipe.getArray(), 14, 18));
+
+        // The random bytes are larger after the compression
+        int[] sizes = {1, 5000, 10, 70000, 3};
+        for (int size : sizes) {
+            writeFrame(writer, randomBytes(size));
+        }
+        THeaderTransport reader = new THeaderTransport(pipe, zlib);
+        Assert.assertArrayEquals(data, readFrame(reader, data.length));
+        for (int size : sizes) {
+            Assert.assertArrayEquals(randomBytes(size), readFrame(reader, size));
+            Assert.assertEquals(0, reader.getBytesRemainingInBuffer());
+        }
+    }
+
+    @Test()
+    public void testLargerThanInflateBuffer() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        THeaderTransport writer = new THeaderTransport(pipe, zlib);
+        int[] sizes = {100, 3 * 1024 * 1024, 20, 500 * 1024, 200 * 1024};
+        for (int size : sizes) {
+            writeFrame(writer, repeatedBytes(size));
+        }
+
+        // The payloads are inflated many times larger than the compressed ones,
+        // and larger than the buffer of the last frame
+        THeaderTransport reader = new THeaderTransport(pipe, zlib);
+        for (int size : sizes) {
+            Assert.assertArrayEquals(repeatedBytes(size), readFrame(reader, size));
+            Assert.assertEquals(0, reader.getBytesRemainingInBuffer());
+        }
+    }
+
+    @Test()
+    public void testClose() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        THeaderTransport writer = new THeaderTransport(pipe, zlib);
+        THeaderTransport reader = new THeaderTransport(pipe, zlib);
+        writeFrame(writer, repeatedBytes(1000));
+        Assert.assertArrayEquals(repeatedBytes(1000), readFrame(reader, 1000));
+        writer.close();
+        reader.close();
+        writer.close();
+
+        // The zlib streams ended are created again when the transports are reused
+        writeFrame(writer, repeatedBytes(2000));
+        Assert.assertArrayEquals(repeatedBytes(2000), readFrame(reader, 2000));
+    }
+
+    @Test()
+    public void testPlainFrame() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        byte[] data = randomBytes(100);
+        writeFrame(new TFramedTransport(pipe), data);
+        writeFrame(new TFramedTransport(pipe), new byte[] {1, 2, 3});
+        writeFrame(new THeaderTransport(pipe, zlib), data);
+
+        // The frames without the magic are read as they are
+        THeaderTransport reader = new THeaderTransport(pipe, zlib);
+        Assert.assertArrayEquals(data, readFrame(reader, 100));
+        Assert.assertArrayEquals(new byte[] {1, 2, 3}, readFrame(reader, 3));
+        Assert.assertArrayEquals(data, readFrame(reader, 100));
+    }
+
+    @Test()
+    public void testMalformedHeader() throws Exception {
+        byte[] payload = deflate(repeatedBytes(1000));
+        // The header size is larger than the frame
+        byte[] frame = headerFrame(1, new byte[] {2, 1, 1}, payload);
+        encodeShort(100, frame, 12);
+        assertMalformed(frame);
+        // The protocol isn't compact
+        assertMalformed(headerFrame(1, new byte[] {0, 1, 1}, payload));
+        // The transform isn't zlib
+        assertMalformed(headerFrame(1, new byte[] {2, 1, 2}, payload));
+        // The varint is cut by the end of the header
+        assertMalformed(headerFrame(1, new byte[] {2, (byte) 0x81, (byte) 0x80, (byte) 0x80},
+                payload));
+        // The varint is longer than 5 bytes
+        byte[] header = new byte[8];
+        Arrays.fill(header, (byte) 0x80);
+        assertMalformed(headerFrame(2, header, payload));
+        // The zlib payload is truncated or corrupt
+        assertMalformed(headerFrame(1, new byte[] {2, 1, 1},
+                Arrays.copyOf(payload, payload.length / 2)));
+        assertMalformed(headerFrame(1, new byte[] {2, 1, 1}, randomBytes(100)));
+    }
+
+    @Test()
+    public void testTooLarge() throws Exception {
+        TMemoryBuffer pipe = new TMemoryBuffer(1024);
+        writeFrame(new THeaderTransport(pipe, zlib), repeatedBytes(10000));
+        // The compressed frame is small, but the payload is larger than the max length
+        try {
+            readFrame(new THeaderTransport(pipe, zlib, 1000), 1);
+            Assert.fail();
+        } catch (THeaderException e) {
+            System.out.println("We expect must reach here: " + e.getMessage());
+        }
+
+        try {
+            new THeaderTransport(pipe, new int[] {2});
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println("We expect must reach here: unsupported transform.");
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.facebook.thrift.transport;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTSocket {
+    private static final int bufferSize = 1024;
+
+    // Serve the bytes to one client, and close the connection after them
+    private static TSocket connect(ServerSocket server, byte[] data) throws Exception {
+        CompletableFuture.runAsync(() -> {
+            try (Socket socket = server.accept();
+                 OutputStream out = socket.getOutputStream()) {
+                out.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        TSocket transport = new TSocket("127.0.0.1", server.getLocalPort(), 5000, 5000,
+                bufferSize);
+        transport.open();
+        return transport;
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    @Test()
+    public void testReadLargerThanBuffer() throws Exception {
+        byte[] data = randomBytes(100 * 1024);
+        try (ServerSocket server = new ServerSocket(0)) {
+            TSocket transport = connect(server, data);
+            try {
+                byte[] head = new byte[10];
+                transport.readAll(head, 0, head.length);
+                Assert.assertArrayEquals(Arrays.copyOf(data, 10), head);
+                // The rest of the buffer is exposed to the protocol
+                Assert.assertTrue(transport.getBytesRemainingInBuffer() > 0);
+                Assert.assertEquals(data[10],
+                        transport.getBuffer()[transport.getBufferPosition()]);
+                transport.consumeBuffer(1);
+
+                // The rest of the buffer is read first, then the socket directly
+                byte[] rest = new byte[data.length - 11];
+                transport.readAll(rest, 0, rest.length);
+                Assert.assertArrayEquals(Arrays.copyOfRange(data, 11, data.length), rest);
+
+                try {
+                    transport.readAll(new byte[1], 0, 1);
+                    Assert.fail();
+                } catch (TTransportException e) {
+                    Assert.assertEquals(TTransportException.END_OF_FILE, e.getType());
+                }
+            } finally {
+                transport.close();
+            }
+        }
+    }
+
+    @Test()
+    public void testMixedReads() throws Exception {
+        byte[] data = randomBytes(64 * 1024);
+        int[] sizes = {1, 7, bufferSize - 1, bufferSize, bufferSize + 1, 5000, 3};
+        try (ServerSocket server = new ServerSocket(0)) {
+            TSocket transport = connect(server, data);
+            try {
+                int pos = 0;
+                for (int i = 0; pos < data.length; i++) {
+                    int size = Math.min(sizes[i % sizes.length], data.length - pos);
+                    byte[] chunk = new byte[size];
+                    transport.readAll(chunk, 0, size);
+                    Assert.assertArrayEquals(Arrays.copyOfRange(data, pos, pos + size), chunk);
+                    pos += size;
+                }
+            } finally {
+                transport.close();
+            }
+        }
+    }
+}
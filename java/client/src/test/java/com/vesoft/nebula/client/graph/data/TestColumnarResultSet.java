@@ -0,0 +1,75 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.data;
+
+import com.vesoft.nebula.DataSet;
+import com.vesoft.nebula.NullType;
+import com.vesoft.nebula.Row;
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestColumnarResultSet {
+    @Test
+    public void testColumns() {
+        ColumnarResultSet columnar = new ResultSet(TestResultSet.getResponse()).toColumnar();
+        Assert.assertEquals(3, columnar.rowSize());
+        Assert.assertEquals(5, columnar.getColumns().size());
+
+        ColumnarResultSet.LongColumn ids =
+                (ColumnarResultSet.LongColumn) columnar.getColumn("id");
+        Assert.assertArrayEquals(new long[] {0, 1, 2}, ids.values());
+        Assert.assertEquals(0, ids.nullCount());
+
+        ColumnarResultSet.DoubleColumn scores =
+                (ColumnarResultSet.DoubleColumn) columnar.getColumn(1);
+        Assert.assertEquals(3.0, scores.get(2), 0.0);
+
+        ColumnarResultSet.BooleanColumn flags =
+                (ColumnarResultSet.BooleanColumn) columnar.getColumn("flag");
+        Assert.assertTrue(flags.get(0));
+        Assert.assertFalse(flags.get(1));
+
+        ColumnarResultSet.StringColumn names =
+                (ColumnarResultSet.StringColumn) columnar.getColumn("name");
+        Assert.assertEquals("name1", names.get(1));
+        Assert.assertEquals(3, names.getDictionary().size());
+
+        // The column with nulls only keeps the values
+        Assert.assertTrue(columnar.getColumn("empty") instanceof ColumnarResultSet.ValueColumn);
+        Assert.assertEquals(3, columnar.getColumn("empty").nullCount());
+    }
+
+    @Test
+    public void testNullsAndMixedTypes() {
+        Value nullValue = Value.nVal(NullType.__NULL__);
+        DataSet dataSet = new DataSet(Arrays.asList("s".getBytes(), "mixed".getBytes()),
+                Arrays.asList(
+                        new Row(Arrays.asList(Value.sVal("a".getBytes()), Value.iVal(1))),
+                        new Row(Arrays.asList(nullValue, Value.fVal(1.0))),
+                        new Row(Arrays.asList(Value.sVal("a".getBytes()), nullValue))));
+        ExecutionResponse resp = new ExecutionResponse();
+        resp.setData(dataSet);
+        ColumnarResultSet columnar = new ResultSet(resp).toColumnar();
+
+        ColumnarResultSet.StringColumn strings =
+                (ColumnarResultSet.StringColumn) columnar.getColumn("s");
+        Assert.assertEquals(1, strings.getDictionary().size());
+        Assert.assertTrue(strings.isNull(1));
+        Assert.assertNull(strings.get(1));
+        Assert.assertEquals(-1, strings.getCode(1));
+        Assert.assertEquals(strings.getCode(0), strings.getCode(2));
+
+        ColumnarResultSet.ValueColumn mixed =
+                (ColumnarResultSet.ValueColumn) columnar.getColumn("mixed");
+        Assert.assertEquals(Value.fVal(1.0), mixed.get(1));
+        Assert.assertTrue(mixed.isNull(2));
+        Assert.assertFalse(mixed.isNull(0));
+    }
+}
@@ -0,0 +1,79 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.data;
+
+import com.vesoft.nebula.DataSet;
+import com.vesoft.nebula.NullType;
+import com.vesoft.nebula.Row;
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestResultSet {
+    static ExecutionResponse getResponse() {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rows.add(new Row(Arrays.asList(
+                    Value.iVal(i),
+                    Value.fVal(i * 1.5),
+                    Value.bVal(i % 2 == 0),
+                    Value.sVal(("name" + i).getBytes()),
+                    Value.nVal(NullType.__NULL__))));
+        }
+        DataSet dataSet = new DataSet(Arrays.asList(
+                "id".getBytes(), "score".getBytes(), "flag".getBytes(),
+                "name".getBytes(), "empty".getBytes()), rows);
+        ExecutionResponse resp = new ExecutionResponse();
+        resp.setError_code(ErrorCode.SUCCEEDED);
+        resp.setLatency_in_us(10);
+        resp.setData(dataSet);
+        return resp;
+    }
+
+    @Test
+    public void testRecord() {
+        ResultSet resultSet = new ResultSet(getResponse());
+        Assert.assertTrue(resultSet.isSucceeded());
+        Assert.assertEquals(Arrays.asList("id", "score", "flag", "name", "empty"),
+                resultSet.getColumnNames());
+        Assert.assertEquals(3, resultSet.getRecords().size());
+
+        ResultSet.Record record = resultSet.getRecords().get(2);
+        Assert.assertEquals(5, record.size());
+        Assert.assertTrue(record.contains("name"));
+        Assert.assertFalse(record.contains("age"));
+        Assert.assertEquals(Value.iVal(2), record.get("id"));
+        Assert.assertEquals(2, record.getLong(0));
+        Assert.assertEquals(2, record.getLong("id"));
+        Assert.assertEquals(3.0, record.getDouble(1), 0.0);
+        Assert.assertEquals(3.0, record.getDouble("score"), 0.0);
+        Assert.assertTrue(record.getBoolean(2));
+        Assert.assertTrue(record.getBoolean("flag"));
+        Assert.assertArrayEquals("name2".getBytes(), record.getBytes(3));
+        Assert.assertArrayEquals("name2".getBytes(), record.getBytes("name"));
+        Assert.assertTrue(record.isNull("empty"));
+        Assert.assertFalse(record.isNull(0));
+
+        try {
+            record.get("age");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains("age"));
+        }
+        try {
+            record.getLong("name");
+            Assert.fail();
+        } catch (RuntimeException e) {
+            Assert.assertTrue(true);
+        }
+    }
+}
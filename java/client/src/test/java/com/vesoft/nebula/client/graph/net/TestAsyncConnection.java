@@ -0,0 +1,68 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.facebook.thrift.async.TAsyncClientManager;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestAsyncConnection {
+    @Test(timeout = 3000)
+    public void testAll() {
+        TAsyncClientManager manager = null;
+        try {
+            manager = new TAsyncClientManager();
+            SyncConnection syncConnection = new SyncConnection();
+            syncConnection.open(new HostAddress("127.0.0.1", 3701), 1000);
+            long sessionId = syncConnection.authenticate("root", "nebula");
+            Assert.assertNotEquals(0, sessionId);
+
+            // Test open
+            AsyncConnection connection = new AsyncConnection(manager);
+            connection.open(new HostAddress("127.0.0.1", 3701), 1000);
+            Assert.assertTrue(connection.ping());
+
+            // Test execute multi requests
+            List<CompletableFuture<ExecutionResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(connection.execute(sessionId, "SHOW SPACES;"));
+            }
+            for (CompletableFuture<ExecutionResponse> future : futures) {
+                Assert.assertEquals(ErrorCode.SUCCEEDED, future.get().error_code);
+            }
+
+            // Test execute after close
+            connection.close();
+            Assert.assertFalse(connection.isOpen());
+            try {
+                connection.execute(sessionId, "SHOW SPACES;").get();
+                assert (false);
+            } catch (Exception e) {
+                assert (true);
+            }
+            syncConnection.signout(sessionId);
+            syncConnection.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            assert (false);
+        } finally {
+            try {
+                if (manager != null) {
+                    manager.stop();
+                }
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.NebulaPoolConfig;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import java.util.Collections;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestConnObjectPool {
+    private final HostAddress address = new HostAddress("127.0.0.1", 3699);
+
+    /**
+     * The ping result is set by the test, and the pings are counted.
+     */
+    private static class FakeConnection extends SyncConnection {
+        private final boolean pingResult;
+        private int pings = 0;
+        private boolean closed = false;
+
+        FakeConnection(boolean pingResult) {
+            this.pingResult = pingResult;
+        }
+
+        @Override
+        public boolean ping() {
+            pings++;
+            return pingResult;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class IdlePooledObject extends DefaultPooledObject<SyncConnection> {
+        private final long idleTime;
+
+        IdlePooledObject(SyncConnection connection, long idleTime) {
+            super(connection);
+            this.idleTime = idleTime;
+        }
+
+        @Override
+        public long getIdleTimeMillis() {
+            return idleTime;
+        }
+    }
+
+    private ConnObjectPool newFactory(int validateIdleTime) {
+        NebulaPoolConfig config = new NebulaPoolConfig();
+        config.setValidateIdleTime(validateIdleTime);
+        RoundRobinLoadBalancer loadBalancer =
+                new RoundRobinLoadBalancer(Collections.singletonList(address), 1000);
+        loadBalancer.close();
+        return new ConnObjectPool(loadBalancer, config);
+    }
+
+    @Test()
+    public void testRecentlyIdle() {
+        ConnObjectPool factory = newFactory(1000);
+        // The connection used recently isn't pinged, even if it's broken
+        FakeConnection connection = new FakeConnection(false);
+        Assert.assertTrue(factory.validateObject(address, new IdlePooledObject(connection, 10)));
+        Assert.assertEquals(0, connection.pings);
+        Assert.assertFalse(connection.closed);
+    }
+
+    @Test()
+    public void testLongIdle() {
+        ConnObjectPool factory = newFactory(1000);
+        FakeConnection ok = new FakeConnection(true);
+        Assert.assertTrue(factory.validateObject(address, new IdlePooledObject(ok, 1000)));
+        Assert.assertEquals(1, ok.pings);
+        Assert.assertFalse(ok.closed);
+
+        // The broken connection is closed
+        FakeConnection broken = new FakeConnection(false);
+        Assert.assertFalse(factory.validateObject(address, new IdlePooledObject(broken, 5000)));
+        Assert.assertEquals(1, broken.pings);
+        Assert.assertTrue(broken.closed);
+
+        // It's always pinged when the validate idle time is 0
+        factory = newFactory(0);
+        FakeConnection connection = new FakeConnection(true);
+        Assert.assertTrue(factory.validateObject(address, new IdlePooledObject(connection, 0)));
+        Assert.assertEquals(1, connection.pings);
+    }
+}
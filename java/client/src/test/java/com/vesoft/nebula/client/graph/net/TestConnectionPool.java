@@ -11,14 +11,35 @@ import com.vesoft.nebula.client.graph.data.HostAddress;
 import com.vesoft.nebula.client.graph.data.ResultSet;
 import com.vesoft.nebula.client.graph.exception.NotValidConnectionException;
 import com.vesoft.nebula.graph.ErrorCode;
+import java.net.ServerSocket;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.pool2.PooledObject;
 import org.junit.Assert;
 import org.junit.Test;
 
 public class TestConnectionPool {
+    /**
+     * The connection is closed, but the pool sees the destroy fail.
+     */
+    private static class FailedDestroyPool extends ConnObjectPool {
+        FailedDestroyPool(LoadBalancer loadBalancer) {
+            super(loadBalancer, new NebulaPoolConfig());
+        }
+
+        @Override
+        public void destroyObject(HostAddress address, PooledObject<SyncConnection> p)
+                throws Exception {
+            super.destroyObject(address, p);
+            throw new IllegalArgumentException("destroy failed");
+        }
+    }
+
     @Test()
     public void testInitFailed() {
         // hostname is not existed
@@ -99,6 +120,105 @@ public class TestConnectionPool {
         }
     }
 
+    @Test()
+    public void testMultiplexed() {
+        NebulaPool pool = new NebulaPool();
+        try {
+            NebulaPoolConfig nebulaPoolConfig = new NebulaPoolConfig();
+            nebulaPoolConfig.setMultiplexed(true);
+            List<HostAddress> addresses = Collections.singletonList(
+                    new HostAddress("127.0.0.1", 3701));
+            Assert.assertTrue(pool.init(addresses, nebulaPoolConfig));
+            List<Session> sessions = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Session session = pool.getSession("root", "nebula", false);
+                Assert.assertNotNull(session);
+                sessions.add(session);
+            }
+            // The sessions share one connection, so no connection is borrowed from the pool
+            Assert.assertEquals(0, pool.getActiveConnNum());
+            for (Session session : sessions) {
+                ResultSet resp = session.execute("SHOW SPACES");
+                Assert.assertEquals(ErrorCode.SUCCEEDED, resp.getErrorCode());
+                Assert.assertEquals(ErrorCode.SUCCEEDED,
+                        session.executeAsync("SHOW SPACES").get().getErrorCode());
+            }
+            for (Session session : sessions) {
+                session.release();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            assert (false);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test()
+    public void testExecuteAll() {
+        NebulaPool pool = new NebulaPool();
+        try {
+            NebulaPoolConfig nebulaPoolConfig = new NebulaPoolConfig();
+            nebulaPoolConfig.setMaxConnSize(4);
+            List<HostAddress> addresses = Collections.singletonList(
+                    new HostAddress("127.0.0.1", 3701));
+            Assert.assertTrue(pool.init(addresses, nebulaPoolConfig));
+            List<String> stmts = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                stmts.add(String.format("YIELD %d AS id", i));
+            }
+            List<ResultSet> results = pool.executeAll("root", "nebula", null, stmts, 8);
+            Assert.assertEquals(stmts.size(), results.size());
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(ErrorCode.SUCCEEDED, results.get(i).getErrorCode());
+                Assert.assertEquals(i, results.get(i).getRecords().get(0).getLong("id"));
+            }
+            // All sessions are released
+            Assert.assertEquals(0, pool.getActiveConnNum());
+        } catch (Exception e) {
+            e.printStackTrace();
+            assert (false);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testExecuteAllOnServers() throws Exception {
+        EchoGraphServer server1 = new EchoGraphServer(false, false);
+        EchoGraphServer server2 = new EchoGraphServer(false, false);
+        server1.start();
+        server2.start();
+        NebulaPool pool = new NebulaPool();
+        try {
+            NebulaPoolConfig nebulaPoolConfig = new NebulaPoolConfig();
+            nebulaPoolConfig.setMaxConnSize(4);
+            Assert.assertTrue(pool.init(
+                    Arrays.asList(server1.getAddress(), server2.getAddress()), nebulaPoolConfig));
+            List<String> stmts = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                stmts.add(String.format("YIELD %d AS id", i));
+            }
+            // The workers of the full server are balanced to the other one
+            List<ResultSet> results = pool.executeAll("root", "nebula", "my`space", stmts, 4);
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(stmts.get(i), results.get(i).getErrorMessage());
+            }
+            // Each statement is executed once, after the space is used by its session,
+            // and the backtick in the space name is escaped
+            List<String> executed = new ArrayList<>(server1.getStatements());
+            executed.addAll(server2.getStatements());
+            Assert.assertEquals("USE `my\\`space`", executed.get(0));
+            executed.removeIf("USE `my\\`space`"::equals);
+            Assert.assertEquals(stmts.size(), executed.size());
+            Assert.assertEquals(0, pool.getActiveConnNum());
+        } finally {
+            pool.close();
+            server1.stop();
+            server2.stop();
+        }
+    }
+
     @Test()
     public void testClose() {
         try {
@@ -119,4 +239,135 @@ public class TestConnectionPool {
             assert (false);
         }
     }
+
+    @Test()
+    public void testPerHostPool() throws Exception {
+        // The connections are only opened, so the sockets don't need to accept them
+        try (ServerSocket server1 = new ServerSocket(0);
+             ServerSocket server2 = new ServerSocket(0)) {
+            HostAddress addr1 = new HostAddress("127.0.0.1", server1.getLocalPort());
+            HostAddress addr2 = new HostAddress("127.0.0.1", server2.getLocalPort());
+            List<HostAddress> addresses = Arrays.asList(addr1, addr2);
+            RoundRobinLoadBalancer loadBalancer = new RoundRobinLoadBalancer(addresses, 1000);
+            HostConnectionPool pool = new HostConnectionPool(
+                    new ConnObjectPool(loadBalancer, new NebulaPoolConfig()),
+                    addresses, 4, 2, 1, 0);
+            try {
+                Assert.assertTrue(pool.init());
+                Assert.assertEquals(1, pool.getNumIdle(addr1));
+                Assert.assertEquals(1, pool.getNumIdle(addr2));
+
+                final SyncConnection conn1 = pool.borrowObject(addr1, 100);
+                final SyncConnection conn2 = pool.borrowObject(addr1, 100);
+                Assert.assertEquals(2, pool.getNumActive(addr1));
+                // The first server is full, but the second one isn't starved
+                try {
+                    pool.borrowObject(addr1, 100);
+                    Assert.fail();
+                } catch (Exception e) {
+                    System.out.println("We expect must reach here: server is full.");
+                }
+                SyncConnection conn3 = pool.borrowObject(addr2, 100);
+                Assert.assertEquals(addr2, conn3.getServerAddress());
+
+                // The waiter gets the connection returned
+                CompletableFuture<SyncConnection> waiter = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return pool.borrowObject(addr1, 5000);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                pool.returnObject(conn1);
+                Assert.assertEquals(addr1, waiter.get(5, TimeUnit.SECONDS).getServerAddress());
+                pool.invalidateObject(conn2);
+                Assert.assertEquals(1, pool.getNumActive(addr1));
+            } finally {
+                pool.close();
+                loadBalancer.close();
+            }
+        }
+    }
+
+    @Test()
+    public void testReleasePermit() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            HostAddress addr = new HostAddress("127.0.0.1", server.getLocalPort());
+            List<HostAddress> addresses = Collections.singletonList(addr);
+            RoundRobinLoadBalancer loadBalancer = new RoundRobinLoadBalancer(addresses, 1000);
+            HostConnectionPool pool = new HostConnectionPool(
+                    new FailedDestroyPool(loadBalancer), addresses, 1, 1, 0, 0);
+            try {
+                Assert.assertTrue(pool.init());
+                // The permit is released even if the pool fails to destroy the connection
+                SyncConnection conn = pool.borrowObject(addr, 100);
+                try {
+                    pool.invalidateObject(conn);
+                    Assert.fail();
+                } catch (IllegalArgumentException e) {
+                    System.out.println("We expect must reach here: destroy failed.");
+                }
+                conn = pool.borrowObject(addr, 100);
+
+                // The connection returned twice doesn't release the permit twice
+                pool.returnObject(conn);
+                try {
+                    pool.returnObject(conn);
+                    Assert.fail();
+                } catch (IllegalStateException e) {
+                    System.out.println("We expect must reach here: returned twice.");
+                }
+                pool.borrowObject(addr, 100);
+                try {
+                    pool.borrowObject(addr, 100);
+                    Assert.fail();
+                } catch (Exception e) {
+                    System.out.println("We expect must reach here: server is full.");
+                }
+            } finally {
+                pool.close();
+                loadBalancer.close();
+            }
+        }
+    }
+
+    @Test()
+    public void testReclaimAbandoned() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            HostAddress addr = new HostAddress("127.0.0.1", server.getLocalPort());
+            List<HostAddress> addresses = Collections.singletonList(addr);
+            RoundRobinLoadBalancer loadBalancer = new RoundRobinLoadBalancer(addresses, 1000);
+            HostConnectionPool pool = new HostConnectionPool(
+                    new ConnObjectPool(loadBalancer, new NebulaPoolConfig()),
+                    addresses, 2, 1, 0, 0, 200);
+            try {
+                Assert.assertTrue(pool.init());
+                SyncConnection leaked = pool.borrowObject(addr, 100);
+                // The connection borrowed recently isn't reclaimed
+                try {
+                    pool.borrowObject(addr, 100);
+                    Assert.fail();
+                } catch (Exception e) {
+                    System.out.println("We expect must reach here: server is full.");
+                }
+
+                Thread.sleep(300);
+                SyncConnection conn = pool.borrowObject(addr, 100);
+                Assert.assertNotSame(leaked, conn);
+                Assert.assertEquals(1, pool.getNumActive(addr));
+                // The owner of the reclaimed connection can't return it
+                try {
+                    pool.returnObject(leaked);
+                    Assert.fail();
+                } catch (IllegalStateException e) {
+                    System.out.println("We expect must reach here: reclaimed.");
+                }
+                pool.returnObject(conn);
+                Assert.assertSame(conn, pool.borrowObject(addr, 100));
+            } finally {
+                pool.close();
+                loadBalancer.close();
+            }
+        }
+    }
 }
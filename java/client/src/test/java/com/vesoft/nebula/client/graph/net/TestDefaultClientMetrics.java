@@ -0,0 +1,41 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestDefaultClientMetrics {
+    @Test()
+    public void testRecord() {
+        DefaultClientMetrics metrics = new DefaultClientMetrics();
+        HostAddress address = new HostAddress("127.0.0.1", 3699);
+        Assert.assertNull(metrics.getHostMetrics(address));
+
+        metrics.connectionOpened(address);
+        metrics.requestSucceeded(address, 1000, 100, 500, 30, 2000);
+        metrics.requestSucceeded(address, 3000, 300, 1500, 30, 4000);
+        metrics.requestFailed(new HostAddress("127.0.0.1", 3699), 5000);
+        metrics.connectionClosed(address);
+        metrics.sessionAcquired(10);
+
+        DefaultClientMetrics.HostMetrics host = metrics.getHostMetrics(address);
+        Assert.assertEquals(3, host.getRequests());
+        Assert.assertEquals(1, host.getFailures());
+        Assert.assertEquals(1, host.getConnectionsOpened());
+        Assert.assertEquals(1, host.getConnectionsClosed());
+        Assert.assertEquals(2, host.getRoundTripTimes().getCount());
+        Assert.assertEquals(2000, host.getRoundTripTimes().getMean(), 0.001);
+        Assert.assertEquals(200, host.getDecodeTimes().getMean(), 0.001);
+        Assert.assertEquals(1000, host.getServerLatencies().getMean(), 0.001);
+        Assert.assertEquals(30, host.getRequestSizes().getMean(), 0.001);
+        Assert.assertEquals(3000, host.getResponseSizes().getMean(), 0.001);
+        Assert.assertEquals(1, metrics.getAllHostMetrics().size());
+        Assert.assertEquals(1, metrics.getSessionWaitTimes().getCount());
+    }
+}
@@ -0,0 +1,113 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestFramedConnection {
+    // The large statement is followed by the small ones, so the read buffers are reused
+    private static final int[] sizes = {10, 100 * 1024, 20, 5000, 2 * 1024 * 1024, 30};
+
+    private static String statement(int size) {
+        char[] stmt = new char[size];
+        for (int i = 0; i < size; i++) {
+            stmt[i] = (char) ('a' + (i * 7 + size) % 26);
+        }
+        return new String(stmt);
+    }
+
+    private static void assertEcho(String stmt, ExecutionResponse resp) {
+        Assert.assertEquals(ErrorCode.SUCCEEDED, resp.error_code);
+        Assert.assertEquals(stmt, new String(resp.error_msg));
+    }
+
+    @Test(timeout = 10000)
+    public void testSyncConnection() throws Exception {
+        EchoGraphServer server = new EchoGraphServer(true, false);
+        server.start();
+        SyncConnection connection = new SyncConnection();
+        try {
+            connection.setFramed(true);
+            connection.setBufferSize(1024);
+            connection.open(server.getAddress(), 5000);
+            long sessionId = connection.authenticate("root", "nebula");
+            Assert.assertNotEquals(0, sessionId);
+            for (int size : sizes) {
+                String stmt = statement(size);
+                assertEcho(stmt, connection.execute(sessionId, stmt));
+            }
+            Assert.assertTrue(connection.ping());
+        } finally {
+            connection.close();
+            server.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testMultiplexedConnection() throws Exception {
+        EchoGraphServer server = new EchoGraphServer(true, false);
+        server.start();
+        MultiplexedConnection connection = new MultiplexedConnection();
+        try {
+            connection.setFramed(true);
+            connection.setBufferSize(1024);
+            connection.open(server.getAddress(), 5000);
+            long sessionId = connection.authenticate("root", "nebula");
+            Assert.assertNotEquals(0, sessionId);
+            for (int size : sizes) {
+                String stmt = statement(size);
+                assertEcho(stmt, connection.execute(sessionId, stmt));
+            }
+
+            // The requests are written in frames while the reader thread reads the responses
+            List<CompletableFuture<ExecutionResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(connection.executeAsync(sessionId, statement(sizes[i % 4])));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                assertEcho(statement(sizes[i % 4]), futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertTrue(connection.ping());
+            Assert.assertTrue(connection.isOpen());
+        } finally {
+            connection.close();
+            server.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCompressedConnection() throws Exception {
+        EchoGraphServer server = new EchoGraphServer(false, true);
+        server.start();
+        List<SyncConnection> connections = Arrays.asList(
+                new SyncConnection(), new MultiplexedConnection());
+        try {
+            for (SyncConnection connection : connections) {
+                connection.setCompressed(true);
+                connection.open(server.getAddress(), 5000);
+                long sessionId = connection.authenticate("root", "nebula");
+                for (int size : sizes) {
+                    String stmt = statement(size);
+                    assertEcho(stmt, connection.execute(sessionId, stmt));
+                }
+            }
+        } finally {
+            for (SyncConnection connection : connections) {
+                connection.close();
+            }
+            server.stop();
+        }
+    }
+}
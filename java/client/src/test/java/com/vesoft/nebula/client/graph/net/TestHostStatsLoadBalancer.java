@@ -0,0 +1,134 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestHostStatsLoadBalancer {
+    private static HostStats newStats(int connections, int inFlight) {
+        HostStats hostStats = new HostStats();
+        for (int i = 0; i < connections; i++) {
+            hostStats.connectionOpened();
+        }
+        for (int i = 0; i < inFlight; i++) {
+            hostStats.requestStarted();
+        }
+        return hostStats;
+    }
+
+    private static Set<HostAddress> pick(LoadBalancer loadBalancer, int times) {
+        Set<HostAddress> picked = new HashSet<>();
+        for (int i = 0; i < times; i++) {
+            picked.add(loadBalancer.getAddress());
+        }
+        return picked;
+    }
+
+    @Test()
+    public void testHostStats() {
+        HostStats hostStats = newStats(1, 1);
+        hostStats.connectionClosed();
+        hostStats.connectionClosed();
+        hostStats.requestFinished();
+        hostStats.requestFinished();
+        Assert.assertEquals(0, hostStats.getConnections());
+        Assert.assertEquals(0, hostStats.getInFlight());
+
+        Assert.assertTrue(hostStats.getEwmaLatency() < 0);
+        hostStats.updateLatency(1000, 0.5);
+        Assert.assertEquals(1000, hostStats.getEwmaLatency(), 0.001);
+        hostStats.updateLatency(0, 0.5);
+        Assert.assertEquals(500, hostStats.getEwmaLatency(), 0.001);
+    }
+
+    @Test()
+    public void testLeastConnections() throws Exception {
+        try (ServerSocket server1 = new ServerSocket(0);
+             ServerSocket server2 = new ServerSocket(0)) {
+            HostAddress addr1 = new HostAddress("127.0.0.1", server1.getLocalPort());
+            HostAddress addr2 = new HostAddress("127.0.0.1", server2.getLocalPort());
+            LeastConnectionsLoadBalancer loadBalancer =
+                    new LeastConnectionsLoadBalancer(Arrays.asList(addr1, addr2), 1000);
+            try {
+                // The idle connections are no load
+                Assert.assertTrue(
+                        loadBalancer.cost(newStats(10, 0)) < loadBalancer.cost(newStats(0, 1)));
+
+                Assert.assertTrue(loadBalancer.isServersOK());
+                for (int i = 0; i < 8; i++) {
+                    loadBalancer.connectionOpened(addr1);
+                }
+                Assert.assertEquals(new HashSet<>(Arrays.asList(addr1, addr2)),
+                        pick(loadBalancer, 4));
+
+                loadBalancer.requestStarted(addr1);
+                loadBalancer.requestStarted(addr1);
+                loadBalancer.requestStarted(addr2);
+                Assert.assertEquals(addr2, loadBalancer.getAddress());
+                loadBalancer.requestStarted(addr2);
+                loadBalancer.requestStarted(addr2);
+                Assert.assertEquals(addr1, loadBalancer.getAddress());
+                loadBalancer.requestFinished(addr2, 100);
+                loadBalancer.requestFinished(addr2, 100);
+                loadBalancer.requestFinished(addr2, -1);
+                Assert.assertEquals(addr2, loadBalancer.getAddress());
+            } finally {
+                loadBalancer.close();
+            }
+        }
+    }
+
+    @Test()
+    public void testEwmaLatency() throws Exception {
+        try (ServerSocket server1 = new ServerSocket(0);
+             ServerSocket server2 = new ServerSocket(0)) {
+            HostAddress addr1 = new HostAddress("127.0.0.1", server1.getLocalPort());
+            HostAddress addr2 = new HostAddress("127.0.0.1", server2.getLocalPort());
+            EwmaLatencyLoadBalancer loadBalancer =
+                    new EwmaLatencyLoadBalancer(Arrays.asList(addr1, addr2), 1000, 1);
+            try {
+                Assert.assertTrue(loadBalancer.isServersOK());
+                // The server without any response yet is picked first
+                loadBalancer.requestStarted(addr1);
+                loadBalancer.requestFinished(addr1, 100);
+                Assert.assertEquals(addr2, loadBalancer.getAddress());
+
+                // The fast server is picked until it's loaded by the requests in flight
+                loadBalancer.requestStarted(addr2);
+                loadBalancer.requestFinished(addr2, 1000);
+                Assert.assertEquals(addr1, loadBalancer.getAddress());
+                for (int i = 0; i < 10; i++) {
+                    loadBalancer.requestStarted(addr1);
+                }
+                Assert.assertEquals(addr2, loadBalancer.getAddress());
+
+                // The failed requests aren't latency samples
+                loadBalancer.requestFinished(addr1, -1);
+                loadBalancer.requestFinished(addr1, -1);
+                Assert.assertEquals(addr1, loadBalancer.getAddress());
+            } finally {
+                loadBalancer.close();
+            }
+        }
+    }
+
+    @Test()
+    public void testInvalidDecay() {
+        try {
+            new EwmaLatencyLoadBalancer(Arrays.asList(new HostAddress("127.0.0.1", 1)), 1000, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println("We expect must reach here: invalid decay.");
+        }
+    }
+}
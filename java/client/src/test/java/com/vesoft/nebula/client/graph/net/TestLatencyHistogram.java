@@ -0,0 +1,42 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLatencyHistogram {
+    @Test()
+    public void testBuckets() {
+        for (long v : new long[] {0, 1, 7, 8, 15, 16, 31, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexOf(v);
+            Assert.assertTrue(LatencyHistogram.lowerBound(index) <= v);
+            if (v < Long.MAX_VALUE) {
+                Assert.assertTrue(v < LatencyHistogram.lowerBound(index + 1));
+            }
+        }
+    }
+
+    @Test()
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500.5, histogram.getMean(), 0.001);
+        long p50 = histogram.getPercentile(50);
+        Assert.assertTrue(p50 >= 500 && p50 <= 500 * 1.125);
+        long p99 = histogram.getPercentile(99);
+        Assert.assertTrue(p99 >= 990 && p99 <= 990 * 1.125);
+        Assert.assertTrue(histogram.getPercentile(100) >= 1000);
+
+        histogram.reset();
+        Assert.assertEquals(0, histogram.getCount());
+    }
+}
@@ -0,0 +1,66 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPreparedStatement {
+    @Test()
+    public void testParameters() {
+        PreparedStatement stmt = new PreparedStatement(null,
+                "FETCH PROP ON player ? YIELD player.name, \"?\", `?` # ?\n"
+                        + "| YIELD ?, ?, ?, ?, ? /* ? */");
+        Assert.assertEquals(6, stmt.getParameterCount());
+        try {
+            stmt.toString();
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            System.out.println("We expect must reach here: the parameter isn't set.");
+        }
+        try {
+            stmt.setLong(7, 1);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            System.out.println("We expect must reach here: the index is out of range.");
+        }
+
+        stmt.setLong(1, Long.MIN_VALUE)
+                .setLong(2, -1203)
+                .setDouble(3, 1.5)
+                .setBoolean(4, true)
+                .setNull(5)
+                .setString(6, "a\"b\\c\n日本");
+        Assert.assertEquals("FETCH PROP ON player -9223372036854775808 YIELD player.name, "
+                + "\"?\", `?` # ?\n| YIELD -1203, 1.5, true, NULL, \"a\\\"b\\\\c\\n日本\" /* ? */",
+                stmt.toString());
+
+        // The parameters are kept
+        stmt.setLong(1, 0);
+        Assert.assertTrue(stmt.toString().startsWith("FETCH PROP ON player 0 YIELD"));
+    }
+
+    @Test()
+    public void testLineComment() {
+        // The '?' in the comment isn't a parameter
+        PreparedStatement stmt = new PreparedStatement(null, "YIELD ? -- ?\n, ? // ?");
+        stmt.setLong(1, 1).setLong(2, 2);
+        Assert.assertEquals("YIELD 1 -- ?\n, 2 // ?", stmt.toString());
+    }
+
+    @Test()
+    public void testLargeString() {
+        PreparedStatement stmt = new PreparedStatement(null, "YIELD ?");
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.append("é\"");
+        }
+        stmt.setString(1, builder);
+        String expected = "YIELD \"" + builder.toString().replace("\"", "\\\"") + "\"";
+        Assert.assertEquals(expected, stmt.toString());
+    }
+}
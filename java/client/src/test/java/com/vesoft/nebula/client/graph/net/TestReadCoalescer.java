@@ -0,0 +1,96 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestReadCoalescer {
+    private static ResultCache.Key key(String stmt) {
+        return new ResultCache.Key("user", "nba", stmt.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<ExecutionResponse> executeConcurrently(ReadCoalescer coalescer,
+                                                               String stmt,
+                                                               int errorCode,
+                                                               AtomicInteger loads)
+            throws Exception {
+        int threads = 8;
+        CountDownLatch started = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ResultCache.Loader loader = () -> {
+                // The first loader holds the call until all threads are waiting for it
+                if (loads.incrementAndGet() == 1) {
+                    try {
+                        started.await(10, TimeUnit.SECONDS);
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                ExecutionResponse resp = new ExecutionResponse();
+                resp.error_code = errorCode;
+                return resp;
+            };
+            List<Future<ExecutionResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    started.countDown();
+                    return coalescer.execute(key(stmt), loader);
+                }));
+            }
+            List<ExecutionResponse> responses = new ArrayList<>();
+            for (Future<ExecutionResponse> future : futures) {
+                responses.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return responses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test()
+    public void testCoalesce() throws Exception {
+        ReadCoalescer coalescer = new ReadCoalescer();
+        AtomicInteger loads = new AtomicInteger(0);
+        List<ExecutionResponse> responses = executeConcurrently(coalescer,
+                "GO FROM 1 OVER like", ErrorCode.SUCCEEDED, loads);
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(7, coalescer.getCoalescedCount());
+        for (ExecutionResponse resp : responses) {
+            Assert.assertSame(responses.get(0), resp);
+        }
+    }
+
+    @Test()
+    public void testNotCoalesced() throws Exception {
+        // The writes aren't coalesced
+        ReadCoalescer coalescer = new ReadCoalescer();
+        AtomicInteger loads = new AtomicInteger(0);
+        executeConcurrently(coalescer, "INSERT VERTEX player() VALUES 1:()",
+                ErrorCode.SUCCEEDED, loads);
+        Assert.assertEquals(8, loads.get());
+
+        // The waiters execute the statement themselves when the shared one fails
+        loads.set(0);
+        executeConcurrently(coalescer, "GO FROM 1 OVER like", ErrorCode.E_EXECUTION_ERROR, loads);
+        Assert.assertEquals(8, loads.get());
+        Assert.assertEquals(0, coalescer.getCoalescedCount());
+    }
+}
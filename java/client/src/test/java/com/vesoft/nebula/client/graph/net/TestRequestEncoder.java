@@ -0,0 +1,70 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.facebook.thrift.protocol.TCompactProtocol;
+import com.facebook.thrift.protocol.TMessage;
+import com.facebook.thrift.protocol.TProtocol;
+import com.facebook.thrift.transport.TMemoryBuffer;
+import com.vesoft.nebula.graph.GraphService;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRequestEncoder {
+    private GraphService.execute_args decode(TMemoryBuffer buffer, int seqId) throws Exception {
+        TProtocol protocol = new TCompactProtocol(buffer);
+        TMessage message = protocol.readMessageBegin();
+        Assert.assertEquals("execute", message.name);
+        Assert.assertEquals(seqId, message.seqid);
+        GraphService.execute_args args = new GraphService.execute_args();
+        args.read(protocol);
+        protocol.readMessageEnd();
+        return args;
+    }
+
+    @Test()
+    public void testEncodeExecute() throws Exception {
+        RequestEncoder encoder = new RequestEncoder();
+        String[] stmts = {"", "SHOW SPACES", "YIELD \"é日😀\""};
+        for (String stmt : stmts) {
+            TMemoryBuffer buffer = new TMemoryBuffer(64);
+            encoder.encodeExecute(7, 42, stmt);
+            encoder.writeTo(buffer);
+            GraphService.execute_args args = decode(buffer, 7);
+            Assert.assertEquals(42, args.getSessionId());
+            Assert.assertArrayEquals(stmt.getBytes(StandardCharsets.UTF_8), args.getStmt());
+        }
+
+        // The unpaired surrogate is encoded as '?'
+        TMemoryBuffer buffer = new TMemoryBuffer(64);
+        encoder.encodeExecute(0, 1, "\uD800x");
+        encoder.writeTo(buffer);
+        Assert.assertEquals("?x", new String(decode(buffer, 0).getStmt(), StandardCharsets.UTF_8));
+
+        // The statement larger than the buffer
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            builder.append('é');
+        }
+        buffer = new TMemoryBuffer(64);
+        encoder.encodeExecute(0, 1, builder);
+        encoder.writeTo(buffer);
+        Assert.assertEquals(builder.toString(),
+                new String(decode(buffer, 0).getStmt(), StandardCharsets.UTF_8));
+
+        ByteBuffer bytes = ByteBuffer.wrap("xYIELD 1".getBytes(StandardCharsets.UTF_8));
+        bytes.position(1);
+        buffer = new TMemoryBuffer(64);
+        encoder.encodeExecute(3, 1, bytes);
+        encoder.writeTo(buffer);
+        Assert.assertEquals("YIELD 1",
+                new String(decode(buffer, 3).getStmt(), StandardCharsets.UTF_8));
+        Assert.assertEquals(1, bytes.position());
+    }
+}
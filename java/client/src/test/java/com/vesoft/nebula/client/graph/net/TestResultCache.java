@@ -0,0 +1,174 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.graph.ErrorCode;
+import com.vesoft.nebula.graph.ExecutionResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestResultCache {
+    private static ResultCache.Key key(String space, String stmt) {
+        return new ResultCache.Key("user", space, stmt.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResultCache.Kind classify(String stmt) {
+        return ResultCache.classify(stmt.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ExecutionResponse response(int errorCode, String message) {
+        ExecutionResponse resp = new ExecutionResponse();
+        resp.error_code = errorCode;
+        resp.latency_in_us = 100;
+        resp.error_msg = message.getBytes(StandardCharsets.UTF_8);
+        return resp;
+    }
+
+    @Test()
+    public void testClassify() {
+        Assert.assertEquals(ResultCache.Kind.READ, classify("GO FROM 1 OVER like"));
+        Assert.assertEquals(ResultCache.Kind.READ,
+                classify(" fetch prop on player 1 | YIELD $-.name;"));
+        Assert.assertEquals(ResultCache.Kind.READ,
+                classify("$a = GO FROM 1 OVER like; (GO FROM $a.id OVER like)"));
+        Assert.assertEquals(ResultCache.Kind.READ,
+                classify("LOOKUP ON player WHERE player.name == \"a;INSERT|\""));
+        Assert.assertEquals(ResultCache.Kind.OTHER, classify("SHOW SPACES"));
+        Assert.assertEquals(ResultCache.Kind.OTHER, classify("USE nba; GO FROM 1 OVER like"));
+        Assert.assertEquals(ResultCache.Kind.SPACE_WRITE,
+                classify("INSERT VERTEX player(name) VALUES 1:(\"a\")"));
+        Assert.assertEquals(ResultCache.Kind.SPACE_WRITE,
+                classify("GO FROM 1 OVER like YIELD like._dst AS id | DELETE VERTEX $-.id"));
+        Assert.assertEquals(ResultCache.Kind.WRITE, classify("USE nba; DELETE VERTEX 1"));
+        Assert.assertEquals(ResultCache.Kind.WRITE, classify("CREATE TAG player(name string)"));
+        Assert.assertEquals(ResultCache.Kind.WRITE, classify("GO FROM 1 OVER like; DROP TAG t"));
+        Assert.assertEquals(ResultCache.Kind.WRITE, classify("# comment\nGO FROM 1 OVER like"));
+        Assert.assertEquals(ResultCache.Kind.READ,
+                classify("GO FROM 1 OVER like -- ; DROP TAG t\n| LIMIT 3"));
+
+        // Only GO, FETCH and LOOKUP are cached, the other reads may not be idempotent
+        Assert.assertEquals(ResultCache.Kind.OTHER, classify("YIELD 1"));
+        Assert.assertEquals(ResultCache.Kind.OTHER, classify("RETURN 1"));
+        Assert.assertEquals(ResultCache.Kind.OTHER, classify("MATCH (v) RETURN v LIMIT 1"));
+        Assert.assertEquals(ResultCache.Kind.OTHER, classify("ORDER BY $-.id"));
+        Assert.assertEquals(ResultCache.Kind.READ,
+                classify("GO FROM 1 OVER like YIELD like._dst AS id | ORDER BY $-.id | LIMIT 3"));
+        Assert.assertEquals(ResultCache.Kind.OTHER,
+                classify("GO FROM 1 OVER like; YIELD 1"));
+
+        // The statements calling the volatile functions aren't cached
+        Assert.assertEquals(ResultCache.Kind.OTHER,
+                classify("GO FROM 1 OVER like YIELD like._dst, rand32(10)"));
+        Assert.assertEquals(ResultCache.Kind.OTHER,
+                classify("FETCH PROP ON player 1 | YIELD NOW () AS t"));
+        Assert.assertEquals(ResultCache.Kind.READ,
+                classify("LOOKUP ON player WHERE player.name == \"now()\" YIELD player.rand"));
+    }
+
+    @Test()
+    public void testAdmission() throws Exception {
+        // The window is 1000 bytes, so each result goes into the main LRU at once
+        ResultCache cache = new ResultCache(100 * 1000, 60 * 1000);
+        ResultCache.Loader small = () -> response(ErrorCode.SUCCEEDED, new String(new char[40000]));
+        cache.execute(key("nba", "GO FROM 1 OVER like"), small);
+        cache.execute(key("nba", "GO FROM 2 OVER like"), small);
+        for (int i = 0; i < 5; i++) {
+            cache.execute(key("nba", "GO FROM 2 OVER like"), small);
+        }
+        Assert.assertEquals(2, cache.getEntryCount());
+
+        // The large result replaces both, it's used more often than the first one,
+        // but less often than the second one, so neither is removed
+        ResultCache.Loader large = () -> response(ErrorCode.SUCCEEDED, new String(new char[90000]));
+        cache.execute(key("nba", "GO FROM 3 OVER like"), large);
+        cache.execute(key("nba", "GO FROM 3 OVER like"), large);
+        Assert.assertEquals(2, cache.getEntryCount());
+        long hits = cache.getHitCount();
+        cache.execute(key("nba", "GO FROM 1 OVER like"), small);
+        cache.execute(key("nba", "GO FROM 2 OVER like"), small);
+        Assert.assertEquals(hits + 2, cache.getHitCount());
+    }
+
+    @Test()
+    public void testHitAndInvalidate() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024, 60 * 1000);
+        AtomicInteger loads = new AtomicInteger(0);
+        ResultCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            return response(ErrorCode.SUCCEEDED, "ok");
+        };
+
+        ExecutionResponse resp = cache.execute(key("nba", "GO FROM 1 OVER like"), loader);
+        Assert.assertEquals(1, loads.get());
+        ExecutionResponse cached = cache.execute(key("nba", "GO FROM 1 OVER like"), loader);
+        Assert.assertEquals(1, loads.get());
+        Assert.assertNotSame(resp, cached);
+        Assert.assertEquals(resp, cached);
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+
+        // The other space or statement misses
+        cache.execute(key("test", "GO FROM 1 OVER like"), loader);
+        cache.execute(key("nba", "GO FROM 2 OVER like"), loader);
+        Assert.assertEquals(3, loads.get());
+
+        // The write drops the results of its space
+        cache.execute(key("nba", "DELETE VERTEX 3"), loader);
+        Assert.assertEquals(4, loads.get());
+        cache.execute(key("nba", "GO FROM 1 OVER like"), loader);
+        Assert.assertEquals(5, loads.get());
+        cache.execute(key("test", "GO FROM 1 OVER like"), loader);
+        Assert.assertEquals(5, loads.get());
+
+        // The schema statement drops all results
+        cache.execute(key("nba", "CREATE TAG t()"), loader);
+        cache.execute(key("test", "GO FROM 1 OVER like"), loader);
+        Assert.assertEquals(7, loads.get());
+
+        // The failed result isn't cached
+        ResultCache.Loader failed = () -> {
+            loads.incrementAndGet();
+            return response(ErrorCode.E_EXECUTION_ERROR, "failed");
+        };
+        cache.execute(key("nba", "FETCH PROP ON player 1"), failed);
+        cache.execute(key("nba", "FETCH PROP ON player 1"), failed);
+        Assert.assertEquals(9, loads.get());
+    }
+
+    @Test()
+    public void testExpire() throws Exception {
+        ResultCache cache = new ResultCache(1024 * 1024, 1);
+        AtomicInteger loads = new AtomicInteger(0);
+        ResultCache.Loader loader = () -> {
+            loads.incrementAndGet();
+            return response(ErrorCode.SUCCEEDED, "ok");
+        };
+        cache.execute(key("nba", "GO FROM 1 OVER like"), loader);
+        Thread.sleep(10);
+        cache.execute(key("nba", "GO FROM 1 OVER like"), loader);
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test()
+    public void testEviction() throws Exception {
+        long maxBytes = 64 * 1024;
+        ResultCache cache = new ResultCache(maxBytes, 60 * 1000);
+        ResultCache.Loader loader = () -> response(ErrorCode.SUCCEEDED, new String(new char[500]));
+        // The frequently used statement stays while many others are loaded once
+        for (int i = 0; i < 1000; i++) {
+            cache.execute(key("nba", "GO FROM 0 OVER like"), loader);
+            cache.execute(key("nba", "GO FROM " + (i + 1) + " OVER like"), loader);
+            Assert.assertTrue(cache.getSize() <= maxBytes);
+        }
+        long hits = cache.getHitCount();
+        cache.execute(key("nba", "GO FROM 0 OVER like"), loader);
+        Assert.assertEquals(hits + 1, cache.getHitCount());
+        Assert.assertTrue(cache.getEntryCount() > 1);
+    }
+}
@@ -0,0 +1,151 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRoundRobinLoadBalancer {
+    private static int unusedPort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @Test()
+    public void testRotation() throws Exception {
+        ServerSocket server1 = new ServerSocket(0);
+        ServerSocket server2 = new ServerSocket(0);
+        HostAddress addr1 = new HostAddress("127.0.0.1", server1.getLocalPort());
+        HostAddress addr2 = new HostAddress("127.0.0.1", server2.getLocalPort());
+        HostAddress down = new HostAddress("127.0.0.1", unusedPort());
+        RoundRobinLoadBalancer loadBalancer =
+                new RoundRobinLoadBalancer(Arrays.asList(addr1, down, addr2), 1000);
+        try {
+            Assert.assertFalse(loadBalancer.isServersOK());
+
+            // The healthy servers are picked in turn, and the one down is skipped
+            Map<HostAddress, Integer> picked = new HashMap<>();
+            HostAddress last = null;
+            for (int i = 0; i < 10; i++) {
+                HostAddress addr = loadBalancer.getAddress();
+                Assert.assertNotEquals(down, addr);
+                Assert.assertNotEquals(last, addr);
+                picked.merge(addr, 1, Integer::sum);
+                last = addr;
+            }
+            Assert.assertEquals(5, (int) picked.get(addr1));
+            Assert.assertEquals(5, (int) picked.get(addr2));
+
+            // The server closed is skipped after the next check
+            server1.close();
+            loadBalancer.updateServersStatus();
+            for (int i = 0; i < 4; i++) {
+                Assert.assertEquals(addr2, loadBalancer.getAddress());
+            }
+
+            server2.close();
+            loadBalancer.updateServersStatus();
+            Assert.assertNull(loadBalancer.getAddress());
+        } finally {
+            loadBalancer.close();
+            server1.close();
+            server2.close();
+        }
+    }
+
+    @Test()
+    public void testAllHealthy() throws Exception {
+        try (ServerSocket server1 = new ServerSocket(0);
+             ServerSocket server2 = new ServerSocket(0)) {
+            HostAddress addr1 = new HostAddress("127.0.0.1", server1.getLocalPort());
+            HostAddress addr2 = new HostAddress("127.0.0.1", server2.getLocalPort());
+            RoundRobinLoadBalancer loadBalancer =
+                    new RoundRobinLoadBalancer(Arrays.asList(addr1, addr2), 1000);
+            try {
+                Assert.assertTrue(loadBalancer.isServersOK());
+                Assert.assertEquals(2, loadBalancer.getHealthyAddresses().length);
+                Assert.assertNotEquals(loadBalancer.getAddress(), loadBalancer.getAddress());
+            } finally {
+                loadBalancer.close();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testRequestFailed() throws Exception {
+        ServerSocket server1 = new ServerSocket(0);
+        try (ServerSocket server2 = new ServerSocket(0)) {
+            HostAddress addr1 = new HostAddress("127.0.0.1", server1.getLocalPort());
+            HostAddress addr2 = new HostAddress("127.0.0.1", server2.getLocalPort());
+            // The scheduled check doesn't run during the test
+            RoundRobinLoadBalancer loadBalancer = new RoundRobinLoadBalancer(
+                    Arrays.asList(addr1, addr2), 1000, 60 * 1000);
+            try {
+                // The first scheduled check runs at once, let it finish
+                Thread.sleep(100);
+                Assert.assertTrue(loadBalancer.isServersOK());
+                server1.close();
+                // The successful request doesn't check the servers
+                loadBalancer.requestFinished(addr1, 100);
+                Thread.sleep(100);
+                Assert.assertEquals(2, loadBalancer.getHealthyAddresses().length);
+
+                // The failed request checks the servers at once
+                loadBalancer.requestFinished(addr1, -1);
+                Assert.assertTrue(waitUntil(() -> loadBalancer.getHealthyAddresses().length == 1));
+                Assert.assertEquals(addr2, loadBalancer.getAddress());
+            } finally {
+                loadBalancer.close();
+            }
+        } finally {
+            server1.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCheckInterval() throws Exception {
+        int port = unusedPort();
+        HostAddress addr = new HostAddress("127.0.0.1", port);
+        RoundRobinLoadBalancer loadBalancer = new RoundRobinLoadBalancer(
+                Arrays.asList(addr), 1000, 100);
+        try {
+            Assert.assertFalse(loadBalancer.isServersOK());
+            // The server recovered is picked after the next check
+            try (ServerSocket server = new ServerSocket(port)) {
+                Assert.assertTrue(waitUntil(() -> loadBalancer.getAddress() != null));
+                Assert.assertEquals(addr, loadBalancer.getAddress());
+            }
+        } finally {
+            loadBalancer.close();
+        }
+
+        try {
+            new RoundRobinLoadBalancer(Arrays.asList(addr), 1000, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println("We expect must reach here: invalid check interval.");
+        }
+    }
+}
@@ -11,13 +11,49 @@ import com.vesoft.nebula.client.graph.data.HostAddress;
 import com.vesoft.nebula.client.graph.data.ResultSet;
 import com.vesoft.nebula.client.graph.exception.IOErrorException;
 import com.vesoft.nebula.graph.ErrorCode;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import org.junit.Assert;
 import org.junit.Test;
 
 public class TestSession {
+    @Test()
+    public void testExecuteStreaming() {
+        NebulaPool pool = new NebulaPool();
+        try {
+            List<HostAddress> addresses = Collections.singletonList(
+                    new HostAddress("127.0.0.1", 3701));
+            Assert.assertTrue(pool.init(addresses, new NebulaPoolConfig()));
+            Session session = pool.getSession("root", "nebula", false);
+            String stmt = "YIELD 1 AS a, 2 AS b UNION YIELD 3 AS a, 4 AS b";
+            ResultSet expected = session.execute(stmt);
+            Assert.assertEquals(ErrorCode.SUCCEEDED, expected.getErrorCode());
+
+            List<ResultSet.Record> records = new ArrayList<>();
+            ResultSet resp = session.executeStreaming(stmt, records::add);
+            Assert.assertEquals(ErrorCode.SUCCEEDED, resp.getErrorCode());
+            Assert.assertEquals(expected.getColumnNames(), resp.getColumnNames());
+            Assert.assertEquals(0, resp.getRecords().size());
+            Assert.assertEquals(expected.getRecords().size(), records.size());
+            for (int i = 0; i < records.size(); i++) {
+                Assert.assertEquals(expected.getRecords().get(i).get("a"),
+                        records.get(i).get("a"));
+            }
+
+            // The connection is still usable after streaming
+            Assert.assertEquals(ErrorCode.SUCCEEDED, session.execute(stmt).getErrorCode());
+            session.release();
+        } catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail();
+        } finally {
+            pool.close();
+        }
+    }
+
     @Test()
     public void testReconnect() {
         Runtime runtime = Runtime.getRuntime();
@@ -0,0 +1,153 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.graph.net;
+
+import com.vesoft.nebula.client.graph.NebulaPoolConfig;
+import com.vesoft.nebula.client.graph.SessionPoolConfig;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.graph.ErrorCode;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSessionPool {
+    private static boolean waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @Test()
+    public void testBorrowAndReturn() {
+        NebulaPool pool = new NebulaPool();
+        SessionPool sessionPool = null;
+        try {
+            List<HostAddress> addresses = Collections.singletonList(
+                    new HostAddress("127.0.0.1", 3701));
+            Assert.assertTrue(pool.init(addresses, new NebulaPoolConfig()));
+            SessionPoolConfig config = new SessionPoolConfig();
+            config.setMaxSessionSize(2);
+            config.setWaitTime(100);
+            sessionPool = new SessionPool(pool, "root", "nebula", config);
+
+            Session session1 = sessionPool.borrowSession();
+            final Session session2 = sessionPool.borrowSession();
+            Assert.assertEquals(2, sessionPool.getActiveSessionNum());
+            // All sessions are in use
+            try {
+                sessionPool.borrowSession();
+                Assert.fail();
+            } catch (Exception e) {
+                System.out.println("We expect must reach here: borrow session failed.");
+            }
+
+            // The returned session is borrowed again without the authentication
+            sessionPool.returnSession(session1);
+            Assert.assertEquals(1, sessionPool.getIdleSessionNum());
+            Assert.assertSame(session1, sessionPool.borrowSession());
+            sessionPool.returnSession(session1);
+            sessionPool.returnSession(session2);
+            Assert.assertEquals(0, sessionPool.getActiveSessionNum());
+            Assert.assertEquals(2, sessionPool.getIdleSessionNum());
+
+            Assert.assertEquals(ErrorCode.SUCCEEDED,
+                    sessionPool.execute("SHOW SPACES").getErrorCode());
+            Assert.assertEquals(2, sessionPool.getIdleSessionNum());
+        } catch (Exception e) {
+            e.printStackTrace();
+            Assert.fail();
+        } finally {
+            if (sessionPool != null) {
+                sessionPool.close();
+            }
+            pool.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testKeepAlive() throws Exception {
+        EchoGraphServer server = new EchoGraphServer(false, false);
+        server.start();
+        NebulaPool pool = new NebulaPool();
+        SessionPoolConfig config = new SessionPoolConfig();
+        // The borrower waits for the permit held by the keeper during the ping
+        config.setMaxSessionSize(1);
+        config.setKeepAliveTime(100);
+        SessionPool sessionPool = new SessionPool(pool, "root", "nebula", config);
+        try {
+            // The ping isn't answered by the result cache
+            NebulaPoolConfig poolConfig = new NebulaPoolConfig();
+            poolConfig.setResultCacheSize(1024 * 1024);
+            poolConfig.setResultCacheTtl(60 * 1000);
+            Assert.assertTrue(pool.init(Collections.singletonList(server.getAddress()),
+                    poolConfig));
+            Session session = sessionPool.borrowSession();
+            sessionPool.returnSession(session);
+
+            // The idle session is pinged, and it's kept in the pool
+            Assert.assertTrue(waitUntil(() -> server.getStatements().stream()
+                    .filter("YIELD 1;"::equals).count() >= 2));
+            Assert.assertSame(session, sessionPool.borrowSession());
+            Assert.assertEquals(0, sessionPool.getIdleSessionNum());
+            sessionPool.returnSession(session);
+            Assert.assertEquals(0, server.getSignoutNum());
+
+            // The idle session is signed out by close
+            sessionPool.close();
+            Assert.assertTrue(waitUntil(() -> server.getSignoutNum() == 1));
+            Assert.assertEquals(0, sessionPool.getIdleSessionNum());
+            Assert.assertEquals(1, pool.getIdleConnNum());
+        } finally {
+            sessionPool.close();
+            pool.close();
+            server.stop();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testMaxLifetime() throws Exception {
+        EchoGraphServer server = new EchoGraphServer(false, false);
+        server.start();
+        NebulaPool pool = new NebulaPool();
+        SessionPoolConfig config = new SessionPoolConfig();
+        config.setMaxSessionSize(2);
+        config.setKeepAliveTime(0);
+        config.setMaxLifetime(200);
+        SessionPool sessionPool = new SessionPool(pool, "root", "nebula", config);
+        try {
+            Assert.assertTrue(pool.init(Collections.singletonList(server.getAddress()),
+                    new NebulaPoolConfig()));
+            Session session1 = sessionPool.borrowSession();
+            final Session session2 = sessionPool.borrowSession();
+            sessionPool.returnSession(session1);
+            Assert.assertEquals(1, sessionPool.getIdleSessionNum());
+
+            // The expired idle session is signed out by the keeper without the ping
+            Assert.assertTrue(waitUntil(() -> sessionPool.getIdleSessionNum() == 0));
+            Assert.assertTrue(waitUntil(() -> server.getSignoutNum() == 1));
+            Assert.assertFalse(server.getStatements().contains("YIELD 1;"));
+
+            // The expired session in use is signed out when it's returned
+            sessionPool.returnSession(session2);
+            Assert.assertEquals(0, sessionPool.getIdleSessionNum());
+            Assert.assertTrue(waitUntil(() -> server.getSignoutNum() == 2));
+            Assert.assertNotSame(session1, sessionPool.borrowSession());
+            Assert.assertEquals(2, pool.getActiveConnNum() + pool.getIdleConnNum());
+        } finally {
+            sessionPool.close();
+            pool.close();
+            server.stop();
+        }
+    }
+}
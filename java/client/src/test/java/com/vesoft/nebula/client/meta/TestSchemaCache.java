@@ -0,0 +1,148 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.meta;
+
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.meta.EdgeItem;
+import com.vesoft.nebula.meta.IndexItem;
+import com.vesoft.nebula.meta.Schema;
+import com.vesoft.nebula.meta.TagItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSchemaCache {
+    private static final int spaceId = 1;
+
+    /**
+     * The tags of one space, they are listed in the latest version.
+     */
+    private static class FakeMetaClient extends MetaClient {
+        private final Map<String, TagItem> tags = new ConcurrentHashMap<>();
+        private final AtomicInteger listTagsCalls = new AtomicInteger(0);
+        private final AtomicInteger getTagCalls = new AtomicInteger(0);
+
+        FakeMetaClient() {
+            super(Collections.emptyList(), 0);
+        }
+
+        void putTag(int tagId, String tagName, long version) {
+            tags.put(tagName, new TagItem(tagId, tagName.getBytes(), version, newSchema()));
+        }
+
+        @Override
+        public List<TagItem> listTags(int spaceId) {
+            listTagsCalls.incrementAndGet();
+            return new ArrayList<>(tags.values());
+        }
+
+        @Override
+        public List<EdgeItem> listEdges(int spaceId) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<IndexItem> listTagIndexes(int spaceId) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public List<IndexItem> listEdgeIndexes(int spaceId) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Schema getTag(int spaceId, String tagName, long version) {
+            getTagCalls.incrementAndGet();
+            return newSchema();
+        }
+    }
+
+    private static Schema newSchema() {
+        return new Schema(new ArrayList<>(), null);
+    }
+
+    @Test()
+    public void testReloadThrottled() throws Exception {
+        FakeMetaClient metaClient = new FakeMetaClient();
+        metaClient.putTag(1, "player", 0);
+        SchemaCache schemaCache = new SchemaCache(metaClient);
+        schemaCache.setMinReloadInterval(60 * 1000);
+        Assert.assertEquals(1, schemaCache.getTag(spaceId, "player").tag_id);
+        Assert.assertEquals(1, metaClient.listTagsCalls.get());
+
+        // The wrong name doesn't reload the space again and again
+        for (int i = 0; i < 100; i++) {
+            try {
+                schemaCache.getTag(spaceId, "playr");
+                Assert.fail();
+            } catch (ExecuteFailedException e) {
+                Assert.assertTrue(e.getMessage().contains("playr"));
+            }
+        }
+        Assert.assertEquals(1, metaClient.listTagsCalls.get());
+
+        // The tag created after the space is loaded is found by the reload
+        metaClient.putTag(2, "team", 0);
+        schemaCache.setMinReloadInterval(0);
+        Assert.assertEquals(2, schemaCache.getTag(spaceId, "team").tag_id);
+        Assert.assertEquals(2, schemaCache.getTag(spaceId, 2).tag_id);
+        Assert.assertEquals(2, metaClient.listTagsCalls.get());
+    }
+
+    @Test()
+    public void testLatestVersion() throws Exception {
+        FakeMetaClient metaClient = new FakeMetaClient();
+        metaClient.putTag(1, "player", 0);
+        SchemaCache schemaCache = new SchemaCache(metaClient);
+        Schema first = schemaCache.getTagSchema(spaceId, 1, -1);
+        Assert.assertSame(first, schemaCache.getTagSchema(spaceId, 1, 0));
+
+        // The latest version follows the altered tag once the space is refreshed
+        metaClient.putTag(1, "player", 1);
+        schemaCache.refresh();
+        Schema second = schemaCache.getTagSchema(spaceId, 1, -1);
+        Assert.assertNotSame(first, second);
+        Assert.assertSame(second, schemaCache.getTagSchema(spaceId, 1, 1));
+        Assert.assertSame(first, schemaCache.getTagSchema(spaceId, 1, 0));
+        Assert.assertEquals(0, metaClient.getTagCalls.get());
+
+        // The version not loaded is got from the meta server once
+        Schema third = schemaCache.getTagSchema(spaceId, 1, 2);
+        Assert.assertSame(third, schemaCache.getTagSchema(spaceId, 1, 2));
+        Assert.assertEquals(1, metaClient.getTagCalls.get());
+    }
+
+    @Test()
+    public void testBoundAndInvalidate() throws Exception {
+        FakeMetaClient metaClient = new FakeMetaClient();
+        metaClient.putTag(1, "player", 10);
+        SchemaCache schemaCache = new SchemaCache(metaClient);
+        schemaCache.setMinReloadInterval(60 * 1000);
+        schemaCache.setMaxVersionedSchemas(2);
+        for (int version = 0; version < 5; version++) {
+            schemaCache.getTagSchema(spaceId, 1, version);
+        }
+        Assert.assertEquals(5, metaClient.getTagCalls.get());
+        // The recent versions are kept, the old ones are dropped
+        schemaCache.getTagSchema(spaceId, 1, 4);
+        Assert.assertEquals(5, metaClient.getTagCalls.get());
+        schemaCache.getTagSchema(spaceId, 1, 0);
+        Assert.assertEquals(6, metaClient.getTagCalls.get());
+
+        // The invalidated space is loaded again at the next use
+        schemaCache.invalidate(spaceId);
+        schemaCache.getTagSchema(spaceId, 1, 0);
+        Assert.assertEquals(7, metaClient.getTagCalls.get());
+        Assert.assertEquals(2, metaClient.listTagsCalls.get());
+    }
+}
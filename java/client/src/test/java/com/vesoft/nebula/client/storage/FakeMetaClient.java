@@ -0,0 +1,66 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.HostAddr;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.meta.MetaClient;
+import com.vesoft.nebula.meta.PartItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The partitions 1 to partNum of one space, all of them are on the same peer,
+ * and the leaders are set by the test.
+ */
+class FakeMetaClient extends MetaClient {
+    private final int partNum;
+    private final HostAddress peer;
+    // The leaders returned by listParts, the partition without leader isn't in it
+    final Map<Integer, HostAddress> leaders = new ConcurrentHashMap<>();
+    final AtomicInteger allocCalls = new AtomicInteger(0);
+    final AtomicInteger listPartsCalls = new AtomicInteger(0);
+
+    FakeMetaClient(int partNum, HostAddress peer) {
+        super(Collections.emptyList(), 0);
+        this.partNum = partNum;
+        this.peer = peer;
+        for (int part = 1; part <= partNum; part++) {
+            leaders.put(part, peer);
+        }
+    }
+
+    @Override
+    public Map<Integer, List<HostAddress>> getPartsAlloc(int spaceId) {
+        allocCalls.incrementAndGet();
+        Map<Integer, List<HostAddress>> parts = new HashMap<>();
+        for (int part = 1; part <= partNum; part++) {
+            parts.put(part, Collections.singletonList(peer));
+        }
+        return parts;
+    }
+
+    @Override
+    public List<PartItem> listParts(int spaceId, List<Integer> partIds) {
+        listPartsCalls.incrementAndGet();
+        List<PartItem> items = new ArrayList<>();
+        for (int part : partIds) {
+            PartItem item = new PartItem(part, Collections.emptyList(), Collections.emptyList());
+            HostAddress leader = leaders.get(part);
+            if (leader != null) {
+                item.setLeader(new HostAddr(leader.getHost(), leader.getPort()));
+            }
+            items.add(item);
+        }
+        return items;
+    }
+}
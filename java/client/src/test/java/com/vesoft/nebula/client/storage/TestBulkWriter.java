@@ -0,0 +1,236 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.client.meta.exception.ExecuteFailedException;
+import com.vesoft.nebula.storage.EdgeKey;
+import com.vesoft.nebula.storage.ExecResponse;
+import com.vesoft.nebula.storage.NewEdge;
+import com.vesoft.nebula.storage.ResponseCommon;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestBulkWriter {
+    private static final int spaceId = 1;
+    private static final int edgeType = 5;
+    private static final int partNum = 100;
+
+    /**
+     * Keep the rows sent by partition instead of sending them.
+     */
+    private static class RecordingWriter extends EdgeWriter {
+        private final Map<Integer, List<NewEdge>> sent = new HashMap<>();
+        private volatile IOErrorException failure = null;
+        // The sends wait for it if it's set
+        private volatile CountDownLatch gate = null;
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        RecordingWriter(PartLeaderCache leaderCache, BulkWriterConfig config)
+                throws ExecuteFailedException, IOErrorException {
+            super(TestBulkWriter.spaceId, edgeType, Collections.emptyList(), leaderCache, 1000,
+                    config);
+        }
+
+        @Override
+        protected ExecResponse send(StorageConnection connection,
+                                    Map<Integer, List<NewEdge>> parts)
+                throws IOErrorException {
+            if (failure != null) {
+                throw failure;
+            }
+            started.countDown();
+            CountDownLatch waiting = gate;
+            if (waiting != null) {
+                try {
+                    waiting.await();
+                } catch (InterruptedException e) {
+                    throw new IOErrorException(IOErrorException.E_UNKNOWN, "interrupted");
+                }
+            }
+            synchronized (sent) {
+                for (Map.Entry<Integer, List<NewEdge>> entry : parts.entrySet()) {
+                    sent.computeIfAbsent(entry.getKey(), k -> new ArrayList<>())
+                            .addAll(entry.getValue());
+                }
+            }
+            return new ExecResponse(new ResponseCommon(Collections.emptyList(), 0));
+        }
+
+        List<NewEdge> getSent(int part) {
+            synchronized (sent) {
+                return new ArrayList<>(sent.getOrDefault(part, Collections.emptyList()));
+            }
+        }
+
+        int getSentRows() {
+            synchronized (sent) {
+                int rows = 0;
+                for (List<NewEdge> edges : sent.values()) {
+                    rows += edges.size();
+                }
+                return rows;
+            }
+        }
+    }
+
+    // The connections are only opened, so the socket doesn't need to accept them
+    private static RecordingWriter newWriter(ServerSocket server, BulkWriterConfig config)
+            throws ExecuteFailedException, IOErrorException {
+        HostAddress leader = new HostAddress("127.0.0.1", server.getLocalPort());
+        return new RecordingWriter(
+                new PartLeaderCache(new FakeMetaClient(partNum, leader)), config);
+    }
+
+    private static void waitSentRows(RecordingWriter writer, int rows) throws Exception {
+        for (int i = 0; i < 500 && writer.getSentRows() < rows; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(rows, writer.getSentRows());
+    }
+
+    private static void addEdges(RecordingWriter writer, int from, int to)
+            throws ExecuteFailedException, IOErrorException {
+        for (int i = from; i < to; i++) {
+            writer.addEdge(Value.iVal(i), Value.iVal(i + 1000), 0, Collections.emptyList());
+        }
+    }
+
+    @Test()
+    public void testReverseEdge() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            RecordingWriter writer = newWriter(server, new BulkWriterConfig());
+            Value src = Value.sVal("Tim Duncan".getBytes());
+            Value dst = Value.sVal("player100".getBytes());
+            writer.addEdge(src, dst, 3, Collections.singletonList(Value.iVal(1997)));
+            writer.close();
+
+            // The out-edge is in the partition of the source, the in-edge is in the destination's
+            List<NewEdge> out = writer.getSent(PartitionHash.getPartId(src, partNum));
+            Assert.assertEquals(1, out.size());
+            Assert.assertEquals(new EdgeKey(src, edgeType, 3, dst), out.get(0).key);
+            Assert.assertEquals(Collections.singletonList(Value.iVal(1997)), out.get(0).props);
+            List<NewEdge> in = writer.getSent(PartitionHash.getPartId(dst, partNum));
+            Assert.assertEquals(1, in.size());
+            Assert.assertEquals(new EdgeKey(dst, -edgeType, 3, src), in.get(0).key);
+            Assert.assertEquals(Collections.singletonList(Value.iVal(1997)), in.get(0).props);
+            Assert.assertEquals(2, writer.getSentRows());
+        }
+    }
+
+    @Test()
+    public void testBatching() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            BulkWriterConfig config = new BulkWriterConfig();
+            config.setBatchSize(10);
+            config.setFlushInterval(0);
+            config.setMaxInFlightBatches(2);
+            RecordingWriter writer = newWriter(server, config);
+            // Each edge is two rows, so the batch is sent by the fifth edge
+            addEdges(writer, 0, 5);
+            waitSentRows(writer, 10);
+            addEdges(writer, 5, 6);
+            Thread.sleep(200);
+            Assert.assertEquals(10, writer.getSentRows());
+            writer.flush();
+            Assert.assertEquals(12, writer.getSentRows());
+            writer.close();
+        }
+    }
+
+    @Test()
+    public void testFlushInterval() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            BulkWriterConfig config = new BulkWriterConfig();
+            config.setFlushInterval(50);
+            RecordingWriter writer = newWriter(server, config);
+            addEdges(writer, 0, 1);
+            waitSentRows(writer, 2);
+            writer.close();
+        }
+    }
+
+    @Test()
+    public void testError() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            BulkWriterConfig config = new BulkWriterConfig();
+            config.setFlushInterval(0);
+            RecordingWriter writer = newWriter(server, config);
+            writer.failure = new IOErrorException(IOErrorException.E_CONNECT_BROKEN, "broken");
+            addEdges(writer, 0, 1);
+            try {
+                writer.flush();
+                Assert.fail();
+            } catch (IOErrorException e) {
+                Assert.assertEquals("broken", e.getMessage());
+            }
+            try {
+                writer.close();
+                Assert.fail();
+            } catch (IOErrorException e) {
+                Assert.assertEquals("broken", e.getMessage());
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testClosed() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            RecordingWriter writer = newWriter(server, new BulkWriterConfig());
+            addEdges(writer, 0, 1);
+            writer.close();
+            Assert.assertEquals(2, writer.getSentRows());
+            try {
+                addEdges(writer, 1, 2);
+                Assert.fail();
+            } catch (IOErrorException e) {
+                Assert.assertEquals("The writer is closed", e.getMessage());
+            }
+            // No permit is lost, so flush doesn't wait forever
+            writer.flush();
+            Assert.assertEquals(2, writer.getSentRows());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseDuringFlush() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            BulkWriterConfig config = new BulkWriterConfig();
+            config.setFlushInterval(20);
+            config.setMaxInFlightBatches(1);
+            RecordingWriter writer = newWriter(server, config);
+            writer.gate = new CountDownLatch(1);
+            addEdges(writer, 0, 1);
+            writer.started.await();
+            // The next timed flush waits for the permit held by the first batch
+            addEdges(writer, 1, 2);
+            Thread.sleep(200);
+
+            Thread opener = new Thread(() -> {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                writer.gate.countDown();
+            });
+            opener.start();
+            // The rows taken by the timed flush aren't lost by close
+            writer.close();
+            Assert.assertEquals(4, writer.getSentRows());
+        }
+    }
+}
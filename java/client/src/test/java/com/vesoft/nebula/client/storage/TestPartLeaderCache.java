@@ -0,0 +1,89 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.HostAddr;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.storage.exception.StorageExecuteFailedException;
+import com.vesoft.nebula.storage.ErrorCode;
+import com.vesoft.nebula.storage.PartitionResult;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPartLeaderCache {
+    private static final int spaceId = 1;
+    private final HostAddress peer = new HostAddress("127.0.0.1", 9779);
+    private final HostAddress newLeader = new HostAddress("127.0.0.2", 9779);
+
+    @Test()
+    public void testPartIds() throws Exception {
+        FakeMetaClient metaClient = new FakeMetaClient(3, peer);
+        PartLeaderCache leaderCache = new PartLeaderCache(metaClient);
+        Assert.assertEquals(Arrays.asList(1, 2, 3), leaderCache.getPartIds(spaceId));
+        Assert.assertEquals(3, leaderCache.getPartNum(spaceId));
+        Assert.assertEquals(3, leaderCache.getLeaders(spaceId).size());
+        Assert.assertEquals(peer, leaderCache.getLeader(spaceId, 2));
+        Assert.assertEquals(1, metaClient.allocCalls.get());
+        Assert.assertEquals(1, metaClient.listPartsCalls.get());
+
+        try {
+            leaderCache.getLeader(spaceId, 4);
+            Assert.fail();
+        } catch (StorageExecuteFailedException e) {
+            // The error code is of the storage server
+            Assert.assertEquals(ErrorCode.E_PART_NOT_FOUND, e.getErrorCode());
+            Assert.assertEquals(4, e.getPartId());
+            System.out.println("We expect must reach here: part not found.");
+        }
+    }
+
+    @Test()
+    public void testLeaderChanged() throws Exception {
+        FakeMetaClient metaClient = new FakeMetaClient(3, peer);
+        PartLeaderCache leaderCache = new PartLeaderCache(metaClient);
+        leaderCache.getPartIds(spaceId);
+
+        // The new leader is used without asking the meta server
+        HostAddr addr = new HostAddr(newLeader.getHost(), newLeader.getPort());
+        Assert.assertTrue(leaderCache.handleFailedPart(spaceId,
+                new PartitionResult(ErrorCode.E_LEADER_CHANGED, 1, addr)));
+        Assert.assertEquals(newLeader, leaderCache.getLeader(spaceId, 1));
+        Assert.assertEquals(1, metaClient.listPartsCalls.get());
+
+        // The partition without the new leader is kept, only its leader is loaded again
+        Assert.assertTrue(leaderCache.handleFailedPart(spaceId,
+                new PartitionResult(ErrorCode.E_LEADER_CHANGED, 2)));
+        Assert.assertEquals(Arrays.asList(1, 2, 3), leaderCache.getPartIds(spaceId));
+        Assert.assertEquals(3, leaderCache.getPartNum(spaceId));
+        Assert.assertEquals(1, metaClient.listPartsCalls.get());
+        metaClient.leaders.put(2, newLeader);
+        Assert.assertEquals(newLeader, leaderCache.getLeader(spaceId, 2));
+        Assert.assertEquals(2, metaClient.listPartsCalls.get());
+        Assert.assertEquals(1, metaClient.allocCalls.get());
+
+        // The partition without leader now is tried on its first peer
+        metaClient.leaders.remove(3);
+        leaderCache.invalidate(spaceId, 3);
+        Assert.assertEquals(3, leaderCache.getLeaders(spaceId).size());
+        Assert.assertEquals(peer, leaderCache.getLeader(spaceId, 3));
+
+        // The other errors aren't retried
+        Assert.assertFalse(leaderCache.handleFailedPart(spaceId,
+                new PartitionResult(ErrorCode.E_CONSENSUS_ERROR, 3)));
+    }
+
+    @Test()
+    public void testUpdateBeforeLoad() throws Exception {
+        FakeMetaClient metaClient = new FakeMetaClient(2, peer);
+        PartLeaderCache leaderCache = new PartLeaderCache(metaClient);
+        // It doesn't create a space with only one partition
+        leaderCache.updateLeader(spaceId, 1, newLeader);
+        Assert.assertEquals(2, leaderCache.getPartNum(spaceId));
+        Assert.assertEquals(peer, leaderCache.getLeader(spaceId, 1));
+    }
+}
@@ -0,0 +1,51 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.Value;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPartitionHash {
+    private static long hash(String id) {
+        return PartitionHash.hash(id.getBytes());
+    }
+
+    @Test()
+    public void testMurmurHash() {
+        // The values of MurmurHash64A with the seed of the servers
+        Assert.assertEquals(4993892634952068459L, hash("a"));
+        Assert.assertEquals(5662213458193308137L, hash("Tim Duncan"));
+        Assert.assertEquals(7289597605171850056L, hash("player100"));
+        Assert.assertEquals(-5409788147785758033L, hash("abcdefghi"));
+        Assert.assertEquals(9002761040096737846L, hash("abcdefghijklmnop"));
+    }
+
+    @Test()
+    public void testInt64() {
+        // The id of 8 bytes is taken as a little endian integer
+        Assert.assertEquals(0x6867666564636261L, hash("abcdefgh"));
+        Assert.assertEquals(10, PartitionHash.getPartId(Value.sVal("abcdefgh".getBytes()), 100));
+        Assert.assertEquals(10, PartitionHash.getPartId(Value.iVal(0x6867666564636261L), 100));
+        // The negative id is taken as unsigned
+        Assert.assertEquals(16, PartitionHash.getPartId(Value.iVal(-1), 100));
+        Assert.assertEquals(1, PartitionHash.getPartId(Value.iVal(0), 100));
+    }
+
+    @Test()
+    public void testPartId() {
+        Assert.assertEquals(38, PartitionHash.getPartId(Value.sVal("Tim Duncan".getBytes()), 100));
+        Assert.assertEquals(57, PartitionHash.getPartId(Value.sVal("player100".getBytes()), 100));
+        Assert.assertEquals(84, PartitionHash.getPartId(Value.sVal("abcdefghi".getBytes()), 100));
+        try {
+            PartitionHash.getPartId(Value.bVal(true), 100);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            System.out.println("We expect must reach here: invalid vertex id.");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/* Copyright (c) 2020 vesoft inc. All rights reserved.
+ *
+ * This source code is licensed under Apache 2.0 License,
+ * attached with Common Clause Condition 1.0, found in the LICENSES directory.
+ */
+
+package com.vesoft.nebula.client.storage;
+
+import com.vesoft.nebula.DataSet;
+import com.vesoft.nebula.Row;
+import com.vesoft.nebula.Value;
+import com.vesoft.nebula.client.graph.data.HostAddress;
+import com.vesoft.nebula.client.graph.exception.IOErrorException;
+import com.vesoft.nebula.storage.ResponseCommon;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestScanResultIterator {
+    private static final int spaceId = 1;
+
+    // The connections are only opened, so the socket doesn't need to accept them
+    private static PartLeaderCache leaderCache(ServerSocket server, List<Integer> parts) {
+        HostAddress leader = new HostAddress("127.0.0.1", server.getLocalPort());
+        return new PartLeaderCache(new FakeMetaClient(parts.size(), leader));
+    }
+
+    // The page of rows with the ids part * 1000 + page * 10 + i
+    private static ScanResultIterator.ScanPage page(int part, int page, int rows, boolean hasNext) {
+        List<Row> data = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            data.add(new Row(Collections.singletonList(Value.iVal(part * 1000 + page * 10 + i))));
+        }
+        return new ScanResultIterator.ScanPage(
+                new ResponseCommon(Collections.emptyList(), 0),
+                new DataSet(Collections.singletonList("id".getBytes()), data),
+                hasNext,
+                ByteBuffer.allocate(4).putInt(page + 1).array());
+    }
+
+    private static int pageOf(byte[] cursor) {
+        return cursor == null ? 0 : ByteBuffer.wrap(cursor).getInt();
+    }
+
+    @Test()
+    public void testMerge() throws Exception {
+        List<Integer> parts = Arrays.asList(1, 2, 3);
+        try (ServerSocket server = new ServerSocket(0);
+             ScanResultIterator iterator = new ScanResultIterator(
+                     spaceId, parts, leaderCache(server, parts), 2, 4, 1000,
+                 (connection, part, cursor) -> page(part, pageOf(cursor), 10,
+                         pageOf(cursor) < 2))) {
+            Set<Long> ids = new HashSet<>();
+            while (iterator.hasNext()) {
+                Assert.assertTrue(ids.add(iterator.next().getLong("id")));
+            }
+            Assert.assertEquals(90, ids.size());
+            for (int part : parts) {
+                for (int i = 0; i < 30; i++) {
+                    Assert.assertTrue(ids.contains((long) (part * 1000 + i)));
+                }
+            }
+            Assert.assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test()
+    public void testError() throws Exception {
+        List<Integer> parts = Arrays.asList(1, 2);
+        try (ServerSocket server = new ServerSocket(0);
+             ScanResultIterator iterator = new ScanResultIterator(
+                     spaceId, parts, leaderCache(server, parts), 2, 4, 1000,
+                 (connection, part, cursor) -> {
+                     if (part == 2 && pageOf(cursor) == 1) {
+                         throw new IOErrorException(IOErrorException.E_CONNECT_BROKEN, "broken");
+                     }
+                     return page(part, pageOf(cursor), 10, pageOf(cursor) < 2);
+                 })) {
+            int rows = 0;
+            try {
+                while (iterator.hasNext()) {
+                    iterator.next();
+                    rows++;
+                }
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertTrue(e.getMessage().contains("broken"));
+            }
+            Assert.assertTrue(rows < 40);
+        }
+    }
+
+    @Test()
+    public void testEarlyClose() throws Exception {
+        List<Integer> parts = Arrays.asList(1, 2, 3);
+        AtomicInteger scans = new AtomicInteger(0);
+        try (ServerSocket server = new ServerSocket(0)) {
+            // The partitions never end, so the scan threads only stop by close
+            ScanResultIterator iterator = new ScanResultIterator(
+                    spaceId, parts, leaderCache(server, parts), 3, 2, 1000,
+                (connection, part, cursor) -> {
+                    scans.incrementAndGet();
+                    return page(part, pageOf(cursor), 10, true);
+                });
+            for (int i = 0; i < 5; i++) {
+                Assert.assertTrue(iterator.hasNext());
+                iterator.next();
+            }
+            iterator.close();
+            Assert.assertFalse(iterator.hasNext());
+
+            Thread.sleep(300);
+            int stopped = scans.get();
+            Thread.sleep(300);
+            Assert.assertEquals(stopped, scans.get());
+        }
+    }
+}